@@ -32,9 +32,12 @@
  */
 package de.knewcleus.fgfs.geodata.shapefile;
 
+import java.io.ByteArrayInputStream;
 import java.io.DataInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.nio.charset.Charset;
 import java.util.Calendar;
 import java.util.Date;
@@ -46,6 +49,7 @@ import de.knewcleus.fgfs.geodata.IDatabaseRow;
 
 public class DBFFileReader {
 	protected final DataInputStream dbfInputStream;
+	protected final ByteBuffer dbfBuffer;
 
 	protected final byte versionNumber;
 	protected final Date lastChangeDate;
@@ -59,7 +63,19 @@ public class DBFFileReader {
 	protected int currentRow=0;
 
 	public DBFFileReader(InputStream inputStream) throws IOException, DataFormatException {
+		this(inputStream, null);
+	}
+
+	/**
+	 * Creates a reader with random access to the rows of a (memory mapped) .dbf file.
+	 */
+	public DBFFileReader(ByteBuffer buffer) throws IOException, DataFormatException {
+		this(new ByteArrayInputStream(getHeader(buffer)), buffer);
+	}
+
+	protected DBFFileReader(InputStream inputStream, ByteBuffer buffer) throws IOException, DataFormatException {
 		this.dbfInputStream=new DataInputStream(inputStream);
+		this.dbfBuffer=buffer;
 
 		/* Read the header */
 		versionNumber=dbfInputStream.readByte();
@@ -117,6 +133,21 @@ public class DBFFileReader {
 		}
 	}
 
+	protected static byte[] getHeader(ByteBuffer buffer) throws DataFormatException {
+		if (buffer.limit()<32) {
+			throw new DataFormatException("Invalid dbf header");
+		}
+		final int length=buffer.duplicate().order(ByteOrder.LITTLE_ENDIAN).getShort(8) & 0xffff;
+		if (length<33 || length>buffer.limit()) {
+			throw new DataFormatException("Invalid dbf header length "+length);
+		}
+		final byte header[]=new byte[length];
+		final ByteBuffer headerBuffer=buffer.duplicate();
+		headerBuffer.position(0);
+		headerBuffer.get(header);
+		return header;
+	}
+
 	public Object parseField(byte[] recordData, DBFFieldDescriptor fieldDescriptor) {
 		final int offset=fieldDescriptor.getFieldOffset();
 		final int length=fieldDescriptor.getFieldLength();
@@ -159,6 +190,9 @@ public class DBFFileReader {
 	}
 
 	public IDatabaseRow readRow(int row) throws IOException {
+		if (dbfBuffer!=null) {
+			return readRowAt(row);
+		}
 		if (row<currentRow || row>=recordCount) {
 			return null;
 		}
@@ -173,6 +207,25 @@ public class DBFFileReader {
 		return new DBFRow(recordData);
 	}
 
+	protected IDatabaseRow readRowAt(int row) throws IOException {
+		if (row<0 || row>=recordCount) {
+			return null;
+		}
+		final long offset=(headerLength & 0xffff)+(long)row*recordLength;
+		if (offset+recordLength>dbfBuffer.limit()) {
+			throw new IOException("Row "+row+" exceeds the dbf file");
+		}
+		final byte[] recordData=new byte[recordLength];
+		final ByteBuffer rowBuffer=dbfBuffer.duplicate();
+		rowBuffer.position((int)offset);
+		rowBuffer.get(recordData);
+		currentRow=row+1;
+		if (recordData[0]==0x2A) {
+			return null;
+		}
+		return new DBFRow(recordData);
+	}
+
 	public FieldDescriptor[] getFieldDescriptors() {
 		return fieldDescriptors;
 	}
@@ -0,0 +1,292 @@
+/**
+ * Copyright (C) 2016 OpenRadar contributors
+ *
+ * This file is part of OpenRadar.
+ *
+ * OpenRadar is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * OpenRadar is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * OpenRadar. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Diese Datei ist Teil von OpenRadar.
+ *
+ * OpenRadar ist Freie Software: Sie können es unter den Bedingungen der GNU
+ * General Public License, wie von der Free Software Foundation, Version 3 der
+ * Lizenz oder (nach Ihrer Option) jeder späteren veröffentlichten Version,
+ * weiterverbreiten und/oder modifizieren.
+ *
+ * OpenRadar wird in der Hoffnung, dass es nützlich sein wird, aber OHNE JEDE
+ * GEWÄHRLEISTUNG, bereitgestellt; sogar ohne die implizite Gewährleistung der
+ * MARKTFÄHIGKEIT oder EIGNUNG FÜR EINEN BESTIMMTEN ZWECK. Siehe die GNU General
+ * Public License für weitere Details.
+ *
+ * Sie sollten eine Kopie der GNU General Public License zusammen mit diesem
+ * Programm erhalten haben. Wenn nicht, siehe <http://www.gnu.org/licenses/>.
+ */
+package de.knewcleus.fgfs.geodata.shapefile;
+
+import java.awt.geom.Rectangle2D;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+
+import de.knewcleus.fgfs.geodata.DataFormatException;
+import de.knewcleus.fgfs.geodata.geometry.Geometry;
+import de.knewcleus.fgfs.geodata.geometry.NullShape;
+import de.knewcleus.fgfs.geodata.geometry.Point;
+
+/**
+ * Random access shapefile reader working on a (memory mapped) buffer of the .shp file.
+ * 
+ * The record offsets are taken from the .shx index if available. If a filter is given,
+ * records whose bounding box does not intersect it are skipped by only looking at the
+ * record header, so their coordinates are never decoded.
+ */
+public class MappedSHPFileReader {
+	protected final ByteBuffer shapeBuffer;
+	protected final int[] recordOffsets;
+	protected final Rectangle2D filter;
+
+	protected final int shapeType;
+	protected int nextRecord=0;
+	protected int lastFeatureID=-1;
+	protected int recordEnd;
+
+	/**
+	 * @param shapeBuffer the content of the .shp file
+	 * @param indexBuffer the content of the .shx file, may be <code>null</code>
+	 * @param filter the area of interest in degrees, <code>null</code> to read all records
+	 */
+	public MappedSHPFileReader(ByteBuffer shapeBuffer, ByteBuffer indexBuffer, Rectangle2D filter) throws DataFormatException {
+		this.shapeBuffer=shapeBuffer.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+		this.filter=filter;
+		
+		if (this.shapeBuffer.limit()<100 || getBigEndianInt(this.shapeBuffer, 0)!=9994) {
+			throw new DataFormatException("Invalid shapefile header");
+		}
+		shapeType=this.shapeBuffer.getInt(32);
+		
+		if (indexBuffer!=null) {
+			recordOffsets=readIndex(indexBuffer.duplicate().order(ByteOrder.LITTLE_ENDIAN));
+		} else {
+			recordOffsets=scanRecords(this.shapeBuffer);
+		}
+	}
+	
+	protected static int getBigEndianInt(ByteBuffer buffer, int offset) {
+		return Integer.reverseBytes(buffer.getInt(offset));
+	}
+	
+	protected int[] readIndex(ByteBuffer indexBuffer) throws DataFormatException {
+		if (indexBuffer.limit()<100 || getBigEndianInt(indexBuffer, 0)!=9994) {
+			throw new DataFormatException("Invalid shapefile index header");
+		}
+		final int indexLength=Math.min(getBigEndianInt(indexBuffer, 24)*2, indexBuffer.limit());
+		final int count=Math.max(0, (indexLength-100)/8);
+		final int offsets[]=new int[count];
+		for (int i=0;i<count;i++) {
+			offsets[i]=getBigEndianInt(indexBuffer, 100+8*i)*2;
+		}
+		return offsets;
+	}
+	
+	protected int[] scanRecords(ByteBuffer buffer) {
+		final int fileLength=Math.min(getBigEndianInt(buffer, 24)*2, buffer.limit());
+		int count=0;
+		for (int offset=100;offset+8<=fileLength;offset+=8+getBigEndianInt(buffer, offset+4)*2) {
+			count++;
+		}
+		final int offsets[]=new int[count];
+		int i=0;
+		for (int offset=100;offset+8<=fileLength;offset+=8+getBigEndianInt(buffer, offset+4)*2) {
+			offsets[i++]=offset;
+		}
+		return offsets;
+	}
+	
+	public int getShapeType() {
+		return shapeType;
+	}
+	
+	public int getRecordCount() {
+		return recordOffsets.length;
+	}
+	
+	public int getLastFeatureID() {
+		return lastFeatureID;
+	}
+	
+	/**
+	 * Advances to the next record intersecting the filter.
+	 * 
+	 * @return <code>true</code> if there is such a record
+	 */
+	public boolean hasNext() {
+		while (nextRecord<recordOffsets.length) {
+			if (isInFilter(recordOffsets[nextRecord])) {
+				return true;
+			}
+			nextRecord++;
+		}
+		return false;
+	}
+	
+	protected boolean isInFilter(int offset) {
+		if (offset<100 || offset+12>shapeBuffer.limit()) {
+			return false; // skip truncated records
+		}
+		if (filter==null) {
+			return true;
+		}
+		final int recordShapeType=shapeBuffer.getInt(offset+8);
+		final int headerEnd=(recordShapeType==SHPFileReader.TYPE_POINT || recordShapeType==SHPFileReader.TYPE_POINTM ||
+				recordShapeType==SHPFileReader.TYPE_POINTZ ? offset+28 : offset+44);
+		if (recordShapeType!=SHPFileReader.TYPE_NULL_SHAPE && headerEnd>shapeBuffer.limit()) {
+			return true; // let readRecord report it
+		}
+		final double xMin, yMin, xMax, yMax;
+		switch (recordShapeType) {
+		case SHPFileReader.TYPE_NULL_SHAPE:
+			return false;
+		case SHPFileReader.TYPE_POINT:
+		case SHPFileReader.TYPE_POINTM:
+		case SHPFileReader.TYPE_POINTZ:
+			xMin=xMax=shapeBuffer.getDouble(offset+12);
+			yMin=yMax=shapeBuffer.getDouble(offset+20);
+			break;
+		case SHPFileReader.TYPE_POLYLINE:
+		case SHPFileReader.TYPE_POLYLINEM:
+		case SHPFileReader.TYPE_POLYLINEZ:
+		case SHPFileReader.TYPE_POLYGON:
+		case SHPFileReader.TYPE_POLYGONM:
+		case SHPFileReader.TYPE_POLYGONZ:
+			xMin=shapeBuffer.getDouble(offset+12);
+			yMin=shapeBuffer.getDouble(offset+20);
+			xMax=shapeBuffer.getDouble(offset+28);
+			yMax=shapeBuffer.getDouble(offset+36);
+			break;
+		default:
+			return true; // let readRecord report it
+		}
+		/* Rectangle2D.intersects() rejects empty boxes, which points and straight lines have */
+		return xMin<=filter.getMaxX() && xMax>=filter.getMinX() && yMin<=filter.getMaxY() && yMax>=filter.getMinY();
+	}
+	
+	/**
+	 * Reads the next record intersecting the filter.
+	 * 
+	 * @return the geometry or <code>null</code> when there are no more records
+	 */
+	public Geometry readRecord() throws DataFormatException {
+		if (!hasNext()) {
+			return null;
+		}
+		final int offset=recordOffsets[nextRecord++];
+		lastFeatureID=getBigEndianInt(shapeBuffer, offset);
+		recordEnd=Math.min(offset+8+getBigEndianInt(shapeBuffer, offset+4)*2, shapeBuffer.limit());
+		
+		final int recordShapeType=shapeBuffer.getInt(offset+8);
+		final int contentOffset=offset+12;
+		
+		switch (recordShapeType) {
+		case SHPFileReader.TYPE_NULL_SHAPE:
+			return NullShape.getInstance();
+		case SHPFileReader.TYPE_POINT:
+			return readPoint(contentOffset, false, false);
+		case SHPFileReader.TYPE_POINTM:
+			return readPoint(contentOffset, false, true);
+		case SHPFileReader.TYPE_POINTZ:
+			return readPoint(contentOffset, true, true);
+		case SHPFileReader.TYPE_POLYLINE:
+			return readPolyLineRecord(contentOffset, false, false, false);
+		case SHPFileReader.TYPE_POLYLINEM:
+			return readPolyLineRecord(contentOffset, false, true, false);
+		case SHPFileReader.TYPE_POLYLINEZ:
+			return readPolyLineRecord(contentOffset, true, true, false);
+		case SHPFileReader.TYPE_POLYGON:
+			return readPolyLineRecord(contentOffset, false, false, true);
+		case SHPFileReader.TYPE_POLYGONM:
+			return readPolyLineRecord(contentOffset, false, true, true);
+		case SHPFileReader.TYPE_POLYGONZ:
+			return readPolyLineRecord(contentOffset, true, true, true);
+		default:
+			throw new DataFormatException("Cannot read records of type "+Integer.toHexString(recordShapeType)+", index "+Integer.toHexString(lastFeatureID));
+		}
+	}
+	
+	protected Point readPoint(int offset, boolean hasZ, boolean hasM) throws DataFormatException {
+		final int mOffset=offset+(hasZ?24:16);
+		if (mOffset>recordEnd) {
+			throw new DataFormatException("Invalid record size, index "+Integer.toHexString(lastFeatureID));
+		}
+		final double x=shapeBuffer.getDouble(offset);
+		final double y=shapeBuffer.getDouble(offset+8);
+		final double z=(hasZ?shapeBuffer.getDouble(offset+16):0);
+		final double m=(hasM && mOffset+8<=recordEnd?shapeBuffer.getDouble(mOffset):0); // measures are optional
+		return new Point(x,y,z,m,hasZ,hasM);
+	}
+	
+	protected Geometry readPolyLineRecord(int offset, boolean hasZ, boolean hasM, boolean polygon) throws DataFormatException {
+		if (offset+40>recordEnd) {
+			throw new DataFormatException("Invalid record size, index "+Integer.toHexString(lastFeatureID));
+		}
+		offset+=4*8; // skip bounding box, we're calculating our own
+		final int numParts=shapeBuffer.getInt(offset);
+		final int numPoints=shapeBuffer.getInt(offset+4);
+		offset+=8;
+		if (numParts<0 || numPoints<0 || offset+4L*numParts+16L*numPoints>recordEnd) {
+			throw new DataFormatException("Invalid record size, index "+Integer.toHexString(lastFeatureID));
+		}
+		
+		final int parts[]=new int[numParts];
+		final ByteBuffer record=shapeBuffer.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+		record.position(offset);
+		record.asIntBuffer().get(parts);
+		offset+=4*numParts;
+		
+		final double points[]=new double[numPoints*2];
+		readDoubles(record, offset, points);
+		offset+=8*points.length;
+		
+		final double pointsz[];
+		if (hasZ) {
+			if (offset+16+8*numPoints>recordEnd) {
+				throw new DataFormatException("Invalid record size, index "+Integer.toHexString(lastFeatureID));
+			}
+			offset+=2*8; // skip z-range
+			pointsz=new double[numPoints];
+			readDoubles(record, offset, pointsz);
+			offset+=8*numPoints;
+		} else {
+			pointsz=null;
+		}
+		
+		final double pointsm[];
+		if (hasM && offset+16+8*numPoints<=recordEnd) {
+			offset+=2*8; // skip m-range
+			pointsm=new double[numPoints];
+			readDoubles(record, offset, pointsm);
+		} else {
+			pointsm=(hasM?new double[numPoints]:null); // measures are optional
+		}
+		
+		if (polygon) {
+			return SHPFileReader.createPolygon(parts, points, pointsz, pointsm, hasZ, hasM);
+		} else {
+			return SHPFileReader.createPolyLine(parts, points, pointsz, pointsm, hasZ, hasM);
+		}
+	}
+	
+	protected static void readDoubles(ByteBuffer record, int offset, double[] target) {
+		record.position(offset);
+		final DoubleBuffer doubles=record.asDoubleBuffer();
+		doubles.get(target);
+	}
+}
@@ -224,25 +224,7 @@ public class SHPFileReader {
 			pointsm=null;
 		}
 		
-		final MultiLineString multiLineString=new MultiLineString();
-		
-		int j=0;
-		
-		for (int i=0;i<numParts;i++) {
-			final int endIndex=(i+1<numParts?parts[i+1]:numPoints);
-			final LineString lineString=new LineString();
-			for (;j<endIndex;j++) {
-				final Point point=new Point(points[2*j], points[2*j+1], (hasZ?pointsz[j]:0), (hasM?pointsm[j]:0), hasZ, hasM);
-				lineString.add(point);
-			}
-			multiLineString.add(lineString);
-		}
-		
-		if (numParts==1) {
-			return multiLineString.getContainedGeometry().get(0);
-		} else {
-			return multiLineString;
-		}
+		return createPolyLine(parts, points, pointsz, pointsm, hasZ, hasM);
 	}
 	
 	protected Geometry readPolygonRecord(boolean hasZ, boolean hasM) throws IOException, DataFormatException {
@@ -282,6 +264,42 @@ public class SHPFileReader {
 			pointsm=null;
 		}
 		
+		return createPolygon(parts, points, pointsz, pointsm, hasZ, hasM);
+	}
+	
+	/**
+	 * Assembles the line strings of a poly line record, given the part start indices and the coordinates.
+	 */
+	protected static Geometry createPolyLine(int[] parts, double[] points, double[] pointsz, double[] pointsm, boolean hasZ, boolean hasM) {
+		final int numParts=parts.length;
+		final int numPoints=points.length/2;
+		final MultiLineString multiLineString=new MultiLineString();
+		
+		int j=0;
+		
+		for (int i=0;i<numParts;i++) {
+			final int endIndex=(i+1<numParts?parts[i+1]:numPoints);
+			final LineString lineString=new LineString();
+			for (;j<endIndex;j++) {
+				final Point point=new Point(points[2*j], points[2*j+1], (hasZ?pointsz[j]:0), (hasM?pointsm[j]:0), hasZ, hasM);
+				lineString.add(point);
+			}
+			multiLineString.add(lineString);
+		}
+		
+		if (numParts==1) {
+			return multiLineString.getContainedGeometry().get(0);
+		} else {
+			return multiLineString;
+		}
+	}
+	
+	/**
+	 * Assembles the rings of a polygon record, given the part start indices and the coordinates.
+	 */
+	protected static Geometry createPolygon(int[] parts, double[] points, double[] pointsz, double[] pointsm, boolean hasZ, boolean hasM) throws DataFormatException {
+		final int numParts=parts.length;
+		final int numPoints=points.length/2;
 		final List<Ring> innerRings=new ArrayList<Ring>();
 		Ring outerRing=null;
 		
@@ -33,11 +33,16 @@
  */
 package de.knewcleus.fgfs.geodata.shapefile;
 
-import java.io.DataInputStream;
+import java.awt.geom.Rectangle2D;
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.util.Enumeration;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipFile;
 
@@ -53,36 +58,45 @@ import de.knewcleus.fgfs.geodata.IDatabaseRow;
 import de.knewcleus.fgfs.geodata.IGeodataLayer;
 import de.knewcleus.fgfs.geodata.geometry.Geometry;
 /**
- * This class reads the shapefiles directly out of the zip files, delivered by the landcover database.
+ * This class reads the shapefiles delivered as zip files by the landcover database.
  * Bases on ShapefileLayer.
  *
+ * The zip is extracted once into a cache directory next to it, later runs memory map the
+ * extracted files. Only the features intersecting the filter bounds are decoded.
+ *
  * @author Wolfram Wagner
  *
  */
 public class ZippedShapefileLayer implements IGeodataLayer {
-	protected SHPFileReader shpFileReader;
+	protected MappedSHPFileReader shpFileReader;
 	protected DBFFileReader dbfFileReader;
 	protected FeatureDefinition featureDefinition;
 	protected int recordCount;
-	protected int nextFeatureID=0;
-
-	protected ZipFile zipArchive = null;
 
 	private final static Logger log = LogManager.getLogger(ZippedShapefileLayer.class);
 	
 	public ZippedShapefileLayer(String airportDir, String layer) throws GeodataException {
+		this(airportDir, layer, null);
+	}
+
+	/**
+	 * @param filterBounds the area of interest (lon, lat in degrees), <code>null</code> to read all features
+	 */
+	public ZippedShapefileLayer(String airportDir, String layer, Rectangle2D filterBounds) throws GeodataException {
 		try {
-	        String archiveName = airportDir+ layer+".zip";
+			final File archive = new File(airportDir+ layer+".zip");
 			final String nameSHP = layer+".shp";
 			final String nameDBF = layer+".dbf";
 			final String nameSHX = layer+".shx";
 
-			final InputStream shapeFileStream=getZipArchiveFileInputStream(archiveName, nameSHP);
-			shpFileReader=new SHPFileReader(shapeFileStream);
-			final InputStream dbfFileStream=getZipArchiveFileInputStream(archiveName, nameDBF);
+			final File cacheDir = extractArchive(archive, new File(airportDir+"shapecache"+File.separator+layer), nameSHP, nameDBF, nameSHX);
+
+			final ByteBuffer shxBuffer = mapFile(new File(cacheDir, nameSHX));
+			shpFileReader=new MappedSHPFileReader(mapFile(new File(cacheDir, nameSHP)), shxBuffer, filterBounds);
+			final ByteBuffer dbfBuffer = mapFile(new File(cacheDir, nameDBF));
 			DBFFileReader dbfReader;
 			try {
-				dbfReader=new DBFFileReader(dbfFileStream);
+				dbfReader=(dbfBuffer!=null ? new DBFFileReader(dbfBuffer) : null);
 			} catch (IOException e) {
 				dbfReader=null;
 			}
@@ -90,17 +104,7 @@ public class ZippedShapefileLayer implements IGeodataLayer {
 			if (dbfFileReader!=null) {
 				recordCount=dbfFileReader.getRecordCount();
 			} else {
-				int indexRecordCount=-1;
-				try {
-					final InputStream indexFileStream=getZipArchiveFileInputStream(archiveName, nameSHX);
-					final DataInputStream indexFileDataStream=new DataInputStream(indexFileStream);
-					indexFileDataStream.skipBytes(24);
-					final int indexFileLength=LittleEndianHelper.readInt(indexFileDataStream);
-					indexRecordCount=(indexFileLength-100)/8;
-				} catch (IOException e) {
-					// Ignore
-				}
-				recordCount=indexRecordCount;
+				recordCount=shpFileReader.getRecordCount();
 			}
 			FieldDescriptor[] fieldDescriptors;
 			if (dbfFileReader!=null) {
@@ -135,8 +139,6 @@ public class ZippedShapefileLayer implements IGeodataLayer {
 		final Geometry geometry;
 		try {
 			geometry=shpFileReader.readRecord();
-		} catch (IOException e) {
-			throw new GeodataException(e);
 		} catch (DataFormatException e) {
 			throw new GeodataException(e);
 		}
@@ -156,31 +158,91 @@ public class ZippedShapefileLayer implements IGeodataLayer {
 		return new Feature(featureDefinition, featureID, geometry, row);
 	}
 
-    protected InputStream getZipArchiveFileInputStream(String archive, String filename) throws IOException {
-        final File inputFile = new File(archive);
-        zipArchive = new ZipFile(inputFile);
-        Enumeration<? extends ZipEntry> entries = zipArchive.entries();
-        while(entries.hasMoreElements()) {
-            ZipEntry zipEntry = entries.nextElement();
-            if(zipEntry.getName().equals(filename)) {
-                return zipArchive.getInputStream(zipEntry);
-            }
-        }
-        throw new IllegalStateException(filename+" not found in "+archive);
-    }
+	/**
+	 * Extracts the given files out of the archive into the cache directory, unless they are already up to date.
+	 * Falls back to the temp directory, if the cache directory cannot be written.
+	 *
+	 * @return the directory containing the extracted files
+	 */
+	protected File extractArchive(File archive, File cacheDir, String... fileNames) throws IOException {
+		final ZipFile zipArchive = new ZipFile(archive);
+		try {
+			try {
+				extractFiles(zipArchive, archive, cacheDir, fileNames);
+				return cacheDir;
+			} catch (IOException e) {
+				final File tempDir = new File(System.getProperty("java.io.tmpdir"), "openradar-shapecache"+File.separator+
+						archive.getParentFile().getName()+File.separator+cacheDir.getName());
+				log.warn("Cannot write shape cache "+cacheDir+" ("+e.getMessage()+"), using "+tempDir);
+				extractFiles(zipArchive, archive, tempDir, fileNames);
+				return tempDir;
+			}
+		} finally {
+			zipArchive.close();
+		}
+	}
 
-    public void closeZipArchive() {
-        if(zipArchive!=null) {
-            try {
-                zipArchive.close();
-            } catch (IOException e) {
-                log.error("Error while closing zip archive!",e);
-            }
-        }
-    }
+	protected void extractFiles(ZipFile zipArchive, File archive, File targetDir, String... fileNames) throws IOException {
+		if (!targetDir.isDirectory() && !targetDir.mkdirs()) {
+			throw new IOException("Cannot create "+targetDir);
+		}
+		for (String fileName : fileNames) {
+			final ZipEntry zipEntry = zipArchive.getEntry(fileName);
+			final File target = new File(targetDir, fileName);
+			if (zipEntry==null) {
+				if (fileName.endsWith(".shp")) {
+					throw new IOException(fileName+" not found in "+archive);
+				}
+				target.delete(); // don't use a stale file of a previous archive
+				continue;
+			}
+			if (target.length()==zipEntry.getSize() && target.lastModified()>=archive.lastModified()) {
+				continue;
+			}
+			final File tempFile = new File(targetDir, fileName+".tmp");
+			final InputStream in = zipArchive.getInputStream(zipEntry);
+			try {
+				final OutputStream out = new FileOutputStream(tempFile);
+				try {
+					final byte buffer[] = new byte[65536];
+					int length;
+					while ((length = in.read(buffer))!=-1) {
+						out.write(buffer, 0, length);
+					}
+				} finally {
+					out.close();
+				}
+			} finally {
+				in.close();
+			}
+			target.delete();
+			if (!tempFile.renameTo(target)) {
+				throw new IOException("Cannot rename "+tempFile+" to "+target);
+			}
+		}
+	}
+
+	/**
+	 * Maps the file read only.
+	 *
+	 * @return the buffer or <code>null</code> if the file does not exist
+	 */
+	protected static ByteBuffer mapFile(File file) throws IOException {
+		if (!file.isFile()) {
+			return null;
+		}
+		final RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+		try {
+			final FileChannel channel = randomAccessFile.getChannel();
+			final MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			return buffer; // the mapping stays valid after the channel has been closed
+		} finally {
+			randomAccessFile.close();
+		}
+	}
 
     @Override
     public boolean hasNext() {
-        return shpFileReader!=null && shpFileReader.getLastFeatureID()<recordCount;
+        return shpFileReader!=null && shpFileReader.hasNext();
     }
 }
@@ -33,31 +33,42 @@
  */
 package de.knewcleus.fgfs.multiplayer;
 
+import static de.knewcleus.fgfs.multiplayer.protocol.MultiplayerPacket.HEADER_SIZE;
+import static de.knewcleus.fgfs.multiplayer.protocol.MultiplayerPacket.MAX_CALLSIGN_LEN;
 import static de.knewcleus.fgfs.multiplayer.protocol.MultiplayerPacket.MAX_PACKET_SIZE;
 
-import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.net.DatagramPacket;
 import java.net.DatagramSocket;
 import java.net.InetAddress;
-import java.net.SocketTimeoutException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.HashSet;
 import java.util.List;
-import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.log4j.LogManager;
 import org.apache.log4j.Logger;
 
 import de.knewcleus.fgfs.multiplayer.protocol.MultiplayerPacket;
-import de.knewcleus.fgfs.multiplayer.protocol.XDRInputStream;
 import de.knewcleus.fgfs.multiplayer.protocol.XDROutputStream;
 
 public abstract class AbstractMultiplayerEndpoint<T extends Player> implements Runnable {
 	protected static Logger log = LogManager.getLogger("de.knewcleus.fgfs.multiplayer");
+	protected final DatagramChannel datagramChannel;
 	protected final DatagramSocket datagramSocket;
+	protected static final int DATAGRAM_POOL_SIZE=512;
+	/** interval of the player expiry, done by the first decoder lane only to keep the lanes independent */
+	protected static final int EXPIRY_INTERVAL_MILLIS=Math.max(1, Integer.getInteger("de.knewcleus.fgfs.multiplayer.expiryIntervalMillis", 1000));
+	protected final ByteBuffer receiveBuffer=ByteBuffer.allocateDirect(MAX_PACKET_SIZE);
+	protected final BlockingQueue<ReceivedDatagram> freeDatagrams=new ArrayBlockingQueue<ReceivedDatagram>(DATAGRAM_POOL_SIZE);
+	protected final DecoderLane[] decoderLanes;
+	protected long droppedPackets=0;
 	protected final IPlayerRegistry<T> playerRegistry;
 	protected final List<IChatListener> chatListeners = Collections.synchronizedList(new ArrayList<IChatListener>());
 
@@ -66,13 +77,14 @@ public abstract class AbstractMultiplayerEndpoint<T extends Player> implements R
 	}
 
 	public AbstractMultiplayerEndpoint(IPlayerRegistry<T> playerRegistry, int port) throws IOException {
-		if (port==0) {
-			datagramSocket=new DatagramSocket();
-		} else {
-			datagramSocket=new DatagramSocket(port);
-		}
-		datagramSocket.setSoTimeout(0);//getUpdateMillis());
+		datagramChannel=DatagramChannel.open();
+		datagramSocket=datagramChannel.socket();
+		datagramSocket.bind(new InetSocketAddress(port)); // port 0 picks an ephemeral port
 		this.playerRegistry=playerRegistry;
+		decoderLanes=new DecoderLane[getDecoderLaneCount()];
+		for (int i=0;i<decoderLanes.length;i++) {
+			decoderLanes[i]=new DecoderLane(this, i);
+		}
 	}
 
 	// see FGMPClient
@@ -86,19 +98,23 @@ public abstract class AbstractMultiplayerEndpoint<T extends Player> implements R
 		return datagramSocket.getPort();
 	}
 
+	/**
+	 * Receives the datagrams and hands them to the decoder lanes.
+	 * 
+	 * A datagram is assigned to a lane by the hash of its callsign, so all packets of
+	 * a player are decoded and applied in order by the same thread, while different
+	 * players are processed in parallel. A slow lane does not stall the socket: if all
+	 * pooled buffers are queued, further datagrams are dropped until one is free.
+	 */
 	@Override
 	public void run() {
+		startDecoderLanes();
 		while (true) {
 			try {
 				receivePacket();
-			} catch (SocketTimeoutException e) {
-			    log.warn("Error in FGFS networking!",e);
 			} catch (IOException e) {
 				log.error("Error in FGFS networking!",e);
-			} catch (MultiplayerException e) {
-			    log.error("Error in FGFS networking!",e);
 			}
-			update();
 		}
 	}
 
@@ -106,46 +122,83 @@ public abstract class AbstractMultiplayerEndpoint<T extends Player> implements R
 		expirePlayers();
 	}
 
-	protected void receivePacket() throws IOException, MultiplayerException {
-		byte[] buffer=new byte[MAX_PACKET_SIZE];
-		final DatagramPacket packet=new DatagramPacket(buffer,MAX_PACKET_SIZE);
-		datagramSocket.receive(packet);
-
-		log.trace("Received packet from "+packet.getAddress()+":"+packet.getPort()+", length="+packet.getLength());
-//		if (false) {//log.isTraceEnabled()) {
-		// ENDLESS LOOP!
-//			int offset=0;
-//			while (offset<packet.getLength()) {
-//				String line="";
-//				final int end=Math.min(offset+16,packet.getLength());
-//				int i;
-//				for (i=offset;i<end;i++) {
-//					line+=String.format("%02x ",buffer[i]);
-//				}
-//				while (i<offset+16) {
-//					line+="   ";
-//				}
-//				for (i=offset;i<end;i++) {
-//					char ch=(char)buffer[i];
-//					if (Character.isISOControl(ch)) {
-//						ch='.';
-//					}
-//					line+=ch;
-//				}
-//				log.trace(line);
-//				offset=end;
-//			}
-//		}
-
-		ByteArrayInputStream byteInputStream;
-		XDRInputStream xdrInputStream;
-		byteInputStream=new ByteArrayInputStream(packet.getData(),packet.getOffset(),packet.getLength());
-		xdrInputStream=new XDRInputStream(byteInputStream);
-
-		MultiplayerPacket mppacket=MultiplayerPacket.decode(xdrInputStream);
-		processPacket(packet.getAddress(), packet.getPort(), mppacket);
-		xdrInputStream.close();
-		byteInputStream.close();
+	protected static int getDecoderLaneCount() {
+		int defaultCount=Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors()-1));
+		return Math.max(1, Integer.getInteger("de.knewcleus.fgfs.multiplayer.decoderThreads", defaultCount));
+	}
+
+	protected void startDecoderLanes() {
+		for (int i=0;i<DATAGRAM_POOL_SIZE;i++) {
+			freeDatagrams.add(new ReceivedDatagram());
+		}
+		for (DecoderLane lane: decoderLanes) {
+			lane.start();
+		}
+	}
+
+	protected void receivePacket() throws IOException {
+		final ReceivedDatagram datagram=freeDatagrams.poll();
+		if (datagram==null) {
+			// all buffers are waiting for decoding, keep draining the socket
+			receiveBuffer.clear();
+			datagramChannel.receive(receiveBuffer);
+			if (droppedPackets++%1000==0) {
+				log.warn("MP decoding cannot keep up, "+droppedPackets+" packets dropped so far");
+			}
+			return;
+		}
+
+		// the buffer is reused, decoding copies everything it keeps
+		datagram.buffer.clear();
+		datagram.sender=(InetSocketAddress)datagramChannel.receive(datagram.buffer);
+		datagram.buffer.flip();
+
+		if (log.isTraceEnabled()) {
+			log.trace("Received packet from "+datagram.sender.getAddress()+":"+datagram.sender.getPort()+", length="+datagram.buffer.remaining());
+		}
+
+		decoderLanes[getLane(datagram.buffer)].queue.add(datagram);
+	}
+
+	/**
+	 * Hashes the callsign in the packet header without decoding the packet.
+	 */
+	protected int getLane(ByteBuffer buffer) {
+		final int start=buffer.position()+HEADER_SIZE-MAX_CALLSIGN_LEN;
+		final int end=Math.min(start+MAX_CALLSIGN_LEN, buffer.limit());
+		int hash=0;
+		for (int i=start;i<end;i++) {
+			final byte b=buffer.get(i);
+			if (b==0) {
+				break;
+			}
+			hash=31*hash+b;
+		}
+		return (hash&0x7fffffff)%decoderLanes.length;
+	}
+
+	protected void decodeAndProcess(ReceivedDatagram datagram) {
+		final InetSocketAddress sender=datagram.sender;
+		MultiplayerPacket mppacket;
+		try {
+			mppacket=MultiplayerPacket.decode(datagram.buffer);
+		} catch (MultiplayerException e) {
+		    log.error("Error in FGFS networking!",e);
+		    return;
+		} catch (RuntimeException e) {
+		    // a broken packet must not end the lane, its callsigns would never be decoded again
+		    log.error("Error decoding MP packet from "+sender+"!",e);
+		    return;
+		} finally {
+			freeDatagrams.offer(datagram);
+		}
+		try {
+			processPacket(sender.getAddress(), sender.getPort(), mppacket);
+		} catch (MultiplayerException e) {
+		    log.error("Error in FGFS networking!",e);
+		} catch (RuntimeException e) {
+		    log.error("Error processing MP packet from "+sender+"!",e);
+		}
 	}
 
 	protected void sendPacket(InetAddress address, int port, MultiplayerPacket mppacket) throws MultiplayerException {
@@ -169,45 +222,27 @@ public abstract class AbstractMultiplayerEndpoint<T extends Player> implements R
 	}
 
 	protected void processPacket(InetAddress address, int port, MultiplayerPacket mppacket) throws MultiplayerException {
-		T player;
 		final String callsign=mppacket.getCallsign();
 		if(callsign.equals("*FGMS*")) return;
-		synchronized (playerRegistry) {
-			if (playerRegistry.hasPlayer(callsign)) {
-				player=playerRegistry.getPlayer(callsign);
-		        player.setAddress(address);
-		        player.setPort(port);
-			} else {
-				player=playerRegistry.createNewPlayer(mppacket.getCallsign());
-		        player.setAddress(address);
-		        player.setPort(port);
-				playerRegistry.registerPlayer(player);
+		T player=playerRegistry.getPlayer(callsign);
+		if (player==null) {
+			final T newPlayer=playerRegistry.createNewPlayer(callsign);
+			newPlayer.setLastMessageTime(System.currentTimeMillis());
+	        newPlayer.setAddress(address);
+	        newPlayer.setPort(port);
+			player=playerRegistry.registerPlayerIfAbsent(newPlayer);
+			if (player==newPlayer) {
 				newPlayerLogon(player);
 			}
 		}
+        player.setAddress(address);
+        player.setPort(port);
 		player.setLastMessageTime(System.currentTimeMillis());
 		processPacket(player,mppacket);
-		
-		expirePlayers();
 	}
 
 	protected void expirePlayers() {
-		synchronized (playerRegistry) {
-			Set<T> expiredPlayers=new HashSet<T>();
-			long oldestExpireTime=System.currentTimeMillis()-getPlayerTimeoutMillis();
-			for (T player: playerRegistry.getPlayers()) {
-//			    if(player.getCallsign().equals("D-W794")) {
-//			        System.out.println(player.getCallsign()+" "+ oldestExpireTime+" "+player.getLastMessageTime()+" "+ (player.getLastMessageTime()-oldestExpireTime));
-//			    }
-				if (player.getLastMessageTime()<=oldestExpireTime) {
-					expiredPlayers.add(player);
-				}
-			}
-
-			for (T player: expiredPlayers) {
-				playerRegistry.unregisterPlayer(player);
-			}
-		}
+		playerRegistry.expirePlayers(System.currentTimeMillis()-getPlayerTimeoutMillis());
 	}
 
 	public IPlayerRegistry<T> getPlayerRegistry() {
@@ -230,4 +265,50 @@ public abstract class AbstractMultiplayerEndpoint<T extends Player> implements R
             l.newChatMessageReceived(callSign, frequency, message);
         }
     }
+
+    protected static class ReceivedDatagram {
+        protected final ByteBuffer buffer=ByteBuffer.allocateDirect(MAX_PACKET_SIZE);
+        protected InetSocketAddress sender;
+    }
+
+    protected static class DecoderLane extends Thread {
+        protected final AbstractMultiplayerEndpoint<?> endpoint;
+        protected final BlockingQueue<ReceivedDatagram> queue=new ArrayBlockingQueue<ReceivedDatagram>(DATAGRAM_POOL_SIZE);
+
+        public DecoderLane(AbstractMultiplayerEndpoint<?> endpoint, int index) {
+            super("OpenRadar - MP decoder "+index);
+            this.endpoint=endpoint;
+            setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            final boolean expiring=(endpoint.decoderLanes[0]==this);
+            long nextUpdate=System.currentTimeMillis()+EXPIRY_INTERVAL_MILLIS;
+            while (true) {
+                try {
+                    if (!expiring) {
+                        endpoint.decodeAndProcess(queue.take());
+                        continue;
+                    }
+                    final long wait=nextUpdate-System.currentTimeMillis();
+                    final ReceivedDatagram datagram=(wait>0 ? queue.poll(wait, TimeUnit.MILLISECONDS) : queue.poll());
+                    if (datagram!=null) {
+                        endpoint.decodeAndProcess(datagram);
+                    }
+                } catch (InterruptedException e) {
+                    log.warn(getName()+" was interrupted");
+                }
+                final long now=System.currentTimeMillis();
+                if (expiring && now>=nextUpdate) {
+                    nextUpdate=now+EXPIRY_INTERVAL_MILLIS;
+                    try {
+                        endpoint.update();
+                    } catch (RuntimeException e) {
+                        log.error("Error expiring MP players!",e);
+                    }
+                }
+            }
+        }
+    }
 }
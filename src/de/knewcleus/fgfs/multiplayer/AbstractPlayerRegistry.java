@@ -36,19 +36,28 @@ package de.knewcleus.fgfs.multiplayer;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
-import java.util.Map;
-import java.util.Set;
-
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 
+/**
+ * Player registry that can be read and updated without a global lock.
+ * 
+ * Players are kept in a {@link ConcurrentHashMap}, so packet ingest, the radar
+ * sweep and the GUI never wait for each other. Expiry uses a queue ordered by the
+ * last message time known when the entry was queued. Only the head of the queue
+ * is inspected, entries of players that sent messages meanwhile are requeued with
+ * their current time.
+ */
 public abstract class AbstractPlayerRegistry<T extends Player> implements IPlayerRegistry<T> {
 	public abstract T createNewPlayer(String callsign) throws MultiplayerException;
 
-	protected final Set<T> players = new HashSet<T>();
-	protected final Map<String, T> playersByAddress = new HashMap<String, T>();
-	protected final List<IPlayerListener<T>> listeners= new ArrayList<IPlayerListener<T>>();
+	protected final ConcurrentMap<String, T> playersByCallsign = new ConcurrentHashMap<String, T>();
+	protected final Collection<T> players = Collections.unmodifiableCollection(playersByCallsign.values());
+	protected final List<IPlayerListener<T>> listeners= new CopyOnWriteArrayList<IPlayerListener<T>>();
+	protected final PriorityQueue<ExpiryEntry<T>> expiryQueue = new PriorityQueue<ExpiryEntry<T>>();
 	
 //		private static final Logger log = Logger.getLogger(AbstractPlayerRegistry.class);
 	
@@ -65,43 +74,103 @@ public abstract class AbstractPlayerRegistry<T extends Player> implements IPlaye
         listeners.remove(l);
     }
 	
-	public synchronized boolean hasPlayer(String callsign) {
-		return playersByAddress.containsKey(callsign);
+	public boolean hasPlayer(String callsign) {
+		return playersByCallsign.containsKey(callsign);
+	}
+
+	public T getPlayer(String callsign) {
+		return playersByCallsign.get(callsign);
+	}
+
+	public void registerPlayer(T player) {
+		/* Replace any old player with that callsign */
+		T oldPlayer = playersByCallsign.put(player.getCallsign(), player);
+		if (oldPlayer != null && oldPlayer != player) {
+			firePlayerRemoved(oldPlayer);
+		}
+		scheduleExpiry(player);
+		firePlayerAdded(player);
+	}
+
+	public T registerPlayerIfAbsent(T player) {
+		T existingPlayer = playersByCallsign.putIfAbsent(player.getCallsign(), player);
+		if (existingPlayer != null) {
+			return existingPlayer;
+		}
+		scheduleExpiry(player);
+		firePlayerAdded(player);
+		return player;
 	}
 
-	public synchronized T getPlayer(String callsign) {
-		return playersByAddress.get(callsign);
+	public void unregisterPlayer(T expiredPlayer) {
+		if (playersByCallsign.remove(expiredPlayer.getCallsign(), expiredPlayer)) {
+			firePlayerRemoved(expiredPlayer);
+		}
 	}
 
-	public synchronized void registerPlayer(T player) {
-		/* First unregister any old player at that address */
-		if (hasPlayer(player.getCallsign()))
-			unregisterPlayer(getPlayer(player.getCallsign()));
-		players.add(player);
-		playersByAddress.put(player.getCallsign(),player);
-		
+	public void expirePlayers(long oldestMessageTime) {
+		List<T> expiredPlayers = null;
+		synchronized (expiryQueue) {
+			ExpiryEntry<T> entry;
+			while ((entry = expiryQueue.peek()) != null && entry.lastMessageTime <= oldestMessageTime) {
+				expiryQueue.poll();
+				if (playersByCallsign.get(entry.player.getCallsign()) != entry.player) {
+					// already unregistered or replaced
+					continue;
+				}
+				long lastMessageTime = entry.player.getLastMessageTime();
+				if (lastMessageTime <= oldestMessageTime) {
+					if (expiredPlayers == null) {
+						expiredPlayers = new ArrayList<T>();
+					}
+					expiredPlayers.add(entry.player);
+				} else {
+					entry.lastMessageTime = lastMessageTime;
+					expiryQueue.add(entry);
+				}
+			}
+		}
+		if (expiredPlayers != null) {
+			for (T player : expiredPlayers) {
+				unregisterPlayer(player);
+			}
+		}
+	}
+	
+	public Collection<T> getPlayers() {
+		return players;
+	}
+
+	protected void scheduleExpiry(T player) {
+		synchronized (expiryQueue) {
+			expiryQueue.add(new ExpiryEntry<T>(player));
+		}
+	}
+
+	protected void firePlayerAdded(T player) {
 		for(IPlayerListener<T> l : listeners) {
 		    l.playerAdded(player);
 		}
-		
-//		log.warn("Player ADDED");
-//		log.warn("Player:          "+players.size());
-//		log.warn("PlayerByAddress: "+playersByAddress.size());
 	}
 
-	public synchronized void unregisterPlayer(T expiredPlayer) {
-		players.remove(expiredPlayer);
-		playersByAddress.remove(expiredPlayer.getCallsign());
-
+	protected void firePlayerRemoved(T player) {
 		for(IPlayerListener<T> l : listeners) {
-            l.playerRemoved(expiredPlayer);
+            l.playerRemoved(player);
         }
-//		log.warn("Player EXPIRED");
-//		log.warn("Player:          "+players.size());
-//		log.warn("PlayerByAddress: "+playersByAddress.size());
 	}
-	
-	public Collection<T> getPlayers() {
-		return Collections.unmodifiableCollection(players);
+
+	protected static class ExpiryEntry<T extends Player> implements Comparable<ExpiryEntry<T>> {
+		protected final T player;
+		protected long lastMessageTime;
+
+		public ExpiryEntry(T player) {
+			this.player = player;
+			this.lastMessageTime = player.getLastMessageTime();
+		}
+
+		@Override
+		public int compareTo(ExpiryEntry<T> o) {
+			return Long.compare(lastMessageTime, o.lastMessageTime);
+		}
 	}
-}
\ No newline at end of file
+}
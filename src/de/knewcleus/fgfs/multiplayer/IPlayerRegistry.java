@@ -47,9 +47,21 @@ public interface IPlayerRegistry<T extends Player> {
 	public abstract T getPlayer(String callsign);
 
 	public abstract void registerPlayer(T player) throws MultiplayerException;
+
+	/**
+	 * Registers the player unless one with the same callsign is known already.
+	 * 
+	 * @return the registered player, either the given or the existing one
+	 */
+	public abstract T registerPlayerIfAbsent(T player) throws MultiplayerException;
 	
 	public abstract void unregisterPlayer(T expiredPlayer);
 
+	/**
+	 * Unregisters all players whose last message is not newer than the given time.
+	 */
+	public abstract void expirePlayers(long oldestMessageTime);
+
     public abstract T createNewPlayer(String callsign) throws MultiplayerException;
 
 	public abstract Collection<T> getPlayers();
@@ -65,6 +65,11 @@ public abstract class MultiplayerClient<T extends Player> extends AbstractMultip
     
     
     protected volatile long lastPositionUpdateTimeMillis;
+    /**
+     * Sends the properties in the compact (v2) encoding, which FlightGear versions
+     * before 2017.2 cannot read. Reception understands both encodings anyway.
+     */
+    protected volatile boolean compactPropertyEncoding = Boolean.getBoolean("de.knewcleus.fgfs.multiplayer.compact");
 
     public MultiplayerClient(IPlayerRegistry<T> playerRegistry, String mpServer, int mpServerPort, int mpLocalPort,
                              boolean packetForward1, String packetForwardHost1, int packetForwardPort1,
@@ -132,6 +137,7 @@ public abstract class MultiplayerClient<T extends Player> extends AbstractMultip
         positionMessage.setOrientation(getOrientation());
         positionMessage.setLinearVelocity(getLinearVelocity());
         positionMessage.setModel(getModel());
+        positionMessage.setCompactEncoding(compactPropertyEncoding);
 
         if (activeChatMessage != null) {
             if (System.currentTimeMillis() - activeChatMessage.firstSendTime > 3000 && activeChatMessage.sendCounter > 9) {
@@ -219,13 +225,13 @@ public abstract class MultiplayerClient<T extends Player> extends AbstractMultip
     protected void processPacket(T player, MultiplayerPacket mppacket) throws MultiplayerException {
         if (mppacket.getMessage() instanceof PositionMessage) {
             PositionMessage positionMessage = (PositionMessage) mppacket.getMessage();
-            String chatMessage = positionMessage.getProperty("sim/multiplay/chat");
+            String chatMessage = positionMessage.getStringProperty(PositionMessage.PROP_CHAT);
             // if(player.callsign.startsWith("TE")) {
             // System.out.println(player.callsign+": '" +chatMessage+"'");
             // }
             if (chatMessage != null && !chatMessage.isEmpty()) {
                 String frequency = "";
-                String f = (String) positionMessage.getProperty("sim/multiplay/transmission-freq-hz");
+                String f = positionMessage.getStringProperty(PositionMessage.PROP_TRANSMISSION_FREQ);
                 if (f != null) {
                     BigDecimal bdFreq = new BigDecimal(f);
                     bdFreq = bdFreq.divide(new BigDecimal(1000000));
@@ -235,23 +241,19 @@ public abstract class MultiplayerClient<T extends Player> extends AbstractMultip
                 notifyChatListeners(mppacket.getCallsign(), frequency, chatMessage);
             }
             // transponder data
-            Integer transponderSquawkCode = (Integer) positionMessage.getProperty("instrumentation/transponder/id-code");
-            player.setTranspSquawkCode(transponderSquawkCode);
-            Integer transponderAltitude = (Integer) positionMessage.getProperty("instrumentation/transponder/altitude");
-            player.setTranspAltitude(transponderAltitude);
+            player.setTranspSquawkCode(positionMessage.getIntProperty(PositionMessage.PROP_TRANSPONDER_ID_CODE, Player.TRANSPONDER_UNAVAILABLE));
+            player.setTranspAltitude(positionMessage.getIntProperty(PositionMessage.PROP_TRANSPONDER_ALTITUDE, Player.TRANSPONDER_UNAVAILABLE));
 //            System.out.println(transponderAltitude);
 //            for(String key : positionMessage.getProperties().keySet()) {
 //                if(key.contains("ident")) {
 //                    System.out.println(positionMessage.getProperty(key));
 //                }
 //            }
-            Boolean b = positionMessage.getProperty("instrumentation/transponder/ident");
-            if(b!=null && b==true) {
+            if(positionMessage.getBoolProperty(PositionMessage.PROP_TRANSPONDER_IDENT, false)) {
                 player.startTranspIdent();
             }
-            if(positionMessage.getProperty("instrumentation/transponder/inputs/mode")!=null) {
-                int transponderMode = (Integer) positionMessage.getProperty("instrumentation/transponder/inputs/mode");
-                player.setTranspMode(transponderMode);
+            if(positionMessage.hasProperty(PositionMessage.PROP_TRANSPONDER_MODE)) {
+                player.setTranspMode(positionMessage.getIntProperty(PositionMessage.PROP_TRANSPONDER_MODE, 0));
             }
 
             player.updatePosition(System.currentTimeMillis(), positionMessage);
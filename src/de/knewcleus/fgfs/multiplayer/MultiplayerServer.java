@@ -81,26 +81,24 @@ public class MultiplayerServer<T extends Player> extends AbstractMultiplayerEndp
 		
 		/* Send back to all local clients */
 		synchronized (queuedPackets) {
-			synchronized (playerRegistry) {
-				for (T otherPlayer: playerRegistry.getPlayers()) {
-					if (!player.isLocalPlayer())
-						continue;
-					
-					for (MultiplayerPacket queuedPacket: queuedPackets)
-						sendPacket(otherPlayer, queuedPacket);
-					
-					/* Don't send to sender itself */
-					if (player==otherPlayer)
-						continue;
-					
-					/* Don't send to players out of range */
-					Position otherPos=otherPlayer.getCartesianPosition();
-					Vector3D delta=otherPos.subtract(senderPosition);
-					if (delta.getLength()>maxDistance)
-						continue;
-					
-					sendPacket(otherPlayer, mppacket);
-				}
+			for (T otherPlayer: playerRegistry.getPlayers()) {
+				if (!player.isLocalPlayer())
+					continue;
+				
+				for (MultiplayerPacket queuedPacket: queuedPackets)
+					sendPacket(otherPlayer, queuedPacket);
+				
+				/* Don't send to sender itself */
+				if (player==otherPlayer)
+					continue;
+				
+				/* Don't send to players out of range */
+				Position otherPos=otherPlayer.getCartesianPosition();
+				Vector3D delta=otherPos.subtract(senderPosition);
+				if (delta.getLength()>maxDistance)
+					continue;
+				
+				sendPacket(otherPlayer, mppacket);
 			}
 			queuedPackets.clear();
 		}
@@ -54,8 +54,8 @@ public class Player {
 	protected volatile Vector3D linearVelocity=new Vector3D();
 	protected volatile String model;
 	protected volatile String frequency="";
-    protected volatile Integer transpSquawkCode=null;
-	protected volatile Integer transpAltitude=null;
+    protected volatile int transpSquawkCode=TRANSPONDER_UNAVAILABLE;
+	protected volatile int transpAltitude=TRANSPONDER_UNAVAILABLE;
 	protected volatile int transpMode=0;
 	protected volatile long transpLastIdentStart=0;
    /*
@@ -64,6 +64,8 @@ public class Player {
     *  2 = transponder mode S
     */
 	public enum TransponderModes {A,C,S};
+	/** Marks transponder values the contact does not transmit at all */
+	public static final int TRANSPONDER_UNAVAILABLE=Integer.MIN_VALUE;
 	
 	public Player(String callsign) {
 		this.callsign=callsign;
@@ -89,14 +91,20 @@ public class Player {
 		return callsign;
 	}
 
-    public synchronized void setLastMessageTime(long lastMessageTime) {
+    // volatile, no need to lock the player for the timestamp
+    public void setLastMessageTime(long lastMessageTime) {
 		this.lastMessageTime = lastMessageTime;
 	}
 
-	public synchronized long getLastMessageTime() {
+	public long getLastMessageTime() {
 		return lastMessageTime;
 	}
 
+	/** Tells whether a position update has been applied to this player yet */
+	public boolean hasPosition() {
+		return lastPositionLocalTime!=0;
+	}
+
 	public synchronized double getPositionTime() {
 		return positionTime;
 	}
@@ -126,18 +134,28 @@ public class Player {
     }
 
 	public synchronized Integer getTranspSquawkCode() {
+        return transpSquawkCode!=TRANSPONDER_UNAVAILABLE ? Integer.valueOf(transpSquawkCode) : null;
+    }
+
+    /** @return the squawk code or {@link #TRANSPONDER_UNAVAILABLE} */
+    public synchronized int getTranspSquawkCodeValue() {
         return transpSquawkCode;
     }
 
-    public synchronized void setTranspSquawkCode(Integer transpSquawkCode) {
+    public synchronized void setTranspSquawkCode(int transpSquawkCode) {
         this.transpSquawkCode = transpSquawkCode;
     }
 
     public synchronized Integer getTranspAltitude() {
+        return transpAltitude!=TRANSPONDER_UNAVAILABLE ? Integer.valueOf(transpAltitude) : null;
+    }
+
+    /** @return the transponder altitude or {@link #TRANSPONDER_UNAVAILABLE} */
+    public synchronized int getTranspAltitudeValue() {
         return transpAltitude;
     }
 
-    public synchronized void setTranspAltitude(Integer transpAltitude) {
+    public synchronized void setTranspAltitude(int transpAltitude) {
         this.transpAltitude = transpAltitude;
     }
 
@@ -146,7 +164,7 @@ public class Player {
     }
 
     public synchronized String getTranspModeS() {
-        return transpAltitude!=null && -1<transpMode && 3>transpMode ? TransponderModes.values()[transpAltitude].toString() : null;// : transpMode;
+        return transpAltitude!=TRANSPONDER_UNAVAILABLE && -1<transpMode && 3>transpMode ? TransponderModes.values()[transpAltitude].toString() : null;// : transpMode;
     }
 
     public synchronized void setTranspMode(int transpMode) {
@@ -169,7 +187,7 @@ public class Player {
 		orientation=Quaternion.fromAngleAxis(packet.getOrientation());
 		linearVelocity=packet.getLinearVelocity();
 		model=packet.getModel();
-        String freq = (String)packet.getProperty("sim/multiplay/transmission-freq-hz");
+        String freq = packet.getStringProperty(PositionMessage.PROP_TRANSMISSION_FREQ);
         if(freq!=null) {
             BigDecimal bdFreq = new BigDecimal(freq);
             bdFreq = bdFreq.divide(new BigDecimal(1000000));
@@ -33,6 +33,8 @@
 package de.knewcleus.fgfs.multiplayer.protocol;
 
 import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
 
 import de.knewcleus.fgfs.multiplayer.MultiplayerException;
 
@@ -72,10 +74,12 @@ public class ChatMessage implements IMultiplayerMessage {
 		}
 	}
 
-	public void decode(XDRInputStream inputStream) throws MultiplayerException {
+	public void decode(ByteBuffer buffer) throws MultiplayerException {
 		try {
-			message=MPUtils.readCString(inputStream, MAX_CHAT_MSG_LEN);
-		} catch (IOException e) {
+			message=MPUtils.readCString(buffer, MAX_CHAT_MSG_LEN);
+		} catch (BufferUnderflowException e) {
+			throw new MultiplayerException(e);
+		} catch (IllegalArgumentException e) {
 			throw new MultiplayerException(e);
 		}
 	}
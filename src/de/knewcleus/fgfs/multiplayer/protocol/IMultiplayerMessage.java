@@ -34,12 +34,21 @@ package de.knewcleus.fgfs.multiplayer.protocol;
 
 import static de.knewcleus.fgfs.multiplayer.protocol.MultiplayerPacket.HEADER_SIZE;
 import static de.knewcleus.fgfs.multiplayer.protocol.MultiplayerPacket.MAX_PACKET_SIZE;
+
+import java.nio.ByteBuffer;
+
 import de.knewcleus.fgfs.multiplayer.MultiplayerException;
 
 public interface IMultiplayerMessage {
 	public final static int MAX_MESSAGE_SIZE=MAX_PACKET_SIZE-HEADER_SIZE;
 	public void encode(XDROutputStream outputStream) throws MultiplayerException;
-	public void decode(XDRInputStream inputStream) throws MultiplayerException;
+	/**
+	 * Decodes the message from the current position of the given buffer.
+	 * 
+	 * The buffer is reused by the receiver, so implementations must not keep
+	 * references to it or to views of it.
+	 */
+	public void decode(ByteBuffer buffer) throws MultiplayerException;
 	
 	public int getMessageID();
 	public int getMessageSize();
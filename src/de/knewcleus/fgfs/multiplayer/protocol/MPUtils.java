@@ -33,6 +33,8 @@
 package de.knewcleus.fgfs.multiplayer.protocol;
 
 import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
 
 import de.knewcleus.fgfs.Units;
 import de.knewcleus.fgfs.location.Position;
@@ -49,6 +51,35 @@ public class MPUtils {
 		return new String(b,0,len,"US-ASCII");
 	}
 	
+	public static String readCString(ByteBuffer buffer, int bufferlen) {
+		if (buffer.remaining()<bufferlen) {
+			/* truncated datagram, like the relative getters would report it */
+			throw new BufferUnderflowException();
+		}
+		final int start=buffer.position();
+		int len;
+		for (len=0;len<bufferlen;len++) {
+			if (buffer.get(start+len)==0)
+				break;
+		}
+		final String str=readASCII(buffer, start, len);
+		buffer.position(start+bufferlen);
+		return str;
+	}
+	
+	/**
+	 * Decodes <code>len</code> US-ASCII characters starting at the given absolute
+	 * buffer index without copying them into an intermediate array.
+	 */
+	public static String readASCII(ByteBuffer buffer, int start, int len) {
+		char[] chars=new char[len];
+		for (int i=0;i<len;i++) {
+			final byte b=buffer.get(start+i);
+			chars[i]=(b>=0 ? (char)b : '\uFFFD');
+		}
+		return new String(chars);
+	}
+	
 	public static void writeCString(XDROutputStream outputStream, String str, int bufferlen) throws IOException {
 		byte[] b=str.getBytes("US-ASCII");
 		int len=Math.min(b.length,bufferlen-1);
@@ -79,6 +110,26 @@ public class MPUtils {
 		return new Position(x,y,z);
 	}
 	
+	public static Position readDoublePosition(ByteBuffer buffer) {
+		double x,y,z;
+		
+		x=buffer.getDouble()*Units.M;
+		y=buffer.getDouble()*Units.M;
+		z=buffer.getDouble()*Units.M;
+		
+		return new Position(x,y,z);
+	}
+	
+	public static Position readFloatPosition(ByteBuffer buffer) {
+		double x,y,z;
+		
+		x=buffer.getFloat()*Units.M;
+		y=buffer.getFloat()*Units.M;
+		z=buffer.getFloat()*Units.M;
+		
+		return new Position(x,y,z);
+	}
+	
 	public static void writeDoublePosition(XDROutputStream outputStream, Position pos) throws IOException {
 		outputStream.writeDouble(pos.getX()/Units.M);
 		outputStream.writeDouble(pos.getY()/Units.M);
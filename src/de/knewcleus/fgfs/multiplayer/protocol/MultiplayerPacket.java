@@ -34,6 +34,8 @@
 package de.knewcleus.fgfs.multiplayer.protocol;
 
 import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
 
 import de.knewcleus.fgfs.multiplayer.MultiplayerException;
 
@@ -97,34 +99,39 @@ public class MultiplayerPacket {
 		}
 	}
 	
-	public static MultiplayerPacket decode(XDRInputStream inputStream) throws MultiplayerException {
+	/**
+	 * Decodes a packet directly from the receive buffer, between its position and limit.
+	 */
+	public static MultiplayerPacket decode(ByteBuffer buffer) throws MultiplayerException {
 		int magic, id;
 		String callsign;
 		try {
-			magic = inputStream.readInt();
+			magic = buffer.getInt();
 
 			if (magic!=MSG_MAGIC && magic!=RELAY_MAGIC) {
 				throw new MultiplayerException("Invalid packet magic:"+Integer.toHexString(magic));
 			}
 
-			int version=inputStream.readInt();
+			int version=buffer.getInt();
 
 			if (version!=PROTO_VER) {
 				throw new MultiplayerException("Invalid protocol version:"+version);
 			}
 
-			id=inputStream.readInt();
+			id=buffer.getInt();
 			
-			int msgLen=inputStream.readInt();
+			int msgLen=buffer.getInt();
             
 			if (msgLen<HEADER_SIZE || msgLen>MAX_PACKET_SIZE) {
 				throw new MultiplayerException("Invalid packet size:"+msgLen);
 			}
 			
-			inputStream.skip(8); // replyAddress and replyPort are obsolete
+			buffer.position(buffer.position()+8); // replyAddress and replyPort are obsolete
 			
-			callsign=MPUtils.readCString(inputStream, MAX_CALLSIGN_LEN);
-		} catch (IOException e) {
+			callsign=MPUtils.readCString(buffer, MAX_CALLSIGN_LEN);
+		} catch (BufferUnderflowException e) {
+			throw new MultiplayerException(e);
+		} catch (IllegalArgumentException e) {
 			throw new MultiplayerException(e);
 		}
 		
@@ -141,7 +148,7 @@ public class MultiplayerPacket {
 			throw new MultiplayerException("Unknown packet id "+id);
 		}
 		
-		message.decode(inputStream);
+		message.decode(buffer);
 		
 		return new MultiplayerPacket(callsign, message, (magic==RELAY_MAGIC));
 	}
@@ -33,12 +33,9 @@
  */
 package de.knewcleus.fgfs.multiplayer.protocol;
 
-import java.io.EOFException;
 import java.io.IOException;
-import java.io.UnsupportedEncodingException;
-import java.util.Collections;
-import java.util.HashMap;
-import java.util.Map;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
 
 import org.apache.log4j.LogManager;
 import org.apache.log4j.Logger;
@@ -50,6 +47,17 @@ public class PositionMessage implements IMultiplayerMessage {
 	protected static Logger log = LogManager.getLogger("de.knewcleus.fgfs.multiplayer");
 	public static final int MAX_MODEL_NAME_LEN=96;
 	public static final int MAX_PROPERTY_LEN=52;
+	/** Sent in the pad word in front of the properties by clients using the compact (v2) encoding */
+	public static final int V2_PAD_MAGIC=0x1face002;
+	protected static final int NO_SHORT_VALUE=Integer.MIN_VALUE;
+
+	/* descriptors of the properties evaluated by the radar, resolved once */
+	public static final PropertyDescriptor PROP_TRANSMISSION_FREQ=PropertyRegistry.getInstance().getByName("sim/multiplay/transmission-freq-hz");
+	public static final PropertyDescriptor PROP_CHAT=PropertyRegistry.getInstance().getByName("sim/multiplay/chat");
+	public static final PropertyDescriptor PROP_TRANSPONDER_ID_CODE=PropertyRegistry.getInstance().getByName("instrumentation/transponder/id-code");
+	public static final PropertyDescriptor PROP_TRANSPONDER_ALTITUDE=PropertyRegistry.getInstance().getByName("instrumentation/transponder/altitude");
+	public static final PropertyDescriptor PROP_TRANSPONDER_IDENT=PropertyRegistry.getInstance().getByName("instrumentation/transponder/ident");
+	public static final PropertyDescriptor PROP_TRANSPONDER_MODE=PropertyRegistry.getInstance().getByName("instrumentation/transponder/inputs/mode");
 
 	protected String model;
 	protected double time;
@@ -60,7 +68,8 @@ public class PositionMessage implements IMultiplayerMessage {
 	protected Position angularVelocity=new Position();
 	protected Position linearAcceleration=new Position();
 	protected Position angularAcceleration=new Position();
-	protected final Map<String, Object> properties=Collections.synchronizedMap(new HashMap<String, Object>());
+	protected final PropertyStore properties=new PropertyStore();
+	protected boolean compactEncoding=false;
 
 	public PositionMessage() {
 	}
@@ -145,17 +154,58 @@ public class PositionMessage implements IMultiplayerMessage {
 		this.angularAcceleration = angularAcceleration;
 	}
 
-	public Map<String, Object> getProperties() {
+	/**
+	 * Tells whether the properties were received in, or are to be sent with, the
+	 * compact (v2) encoding.
+	 */
+	public boolean isCompactEncoding() {
+		return compactEncoding;
+	}
+
+	public void setCompactEncoding(boolean compactEncoding) {
+		this.compactEncoding = compactEncoding;
+	}
+
+	public PropertyStore getProperties() {
 		return properties;
 	}
 
 	public <T> void putProperty(String name, T value) {
-		properties.put(name, value);
+		PropertyDescriptor descriptor=PropertyRegistry.getInstance().getByName(name);
+		if (descriptor==null) {
+			log.warn("Skipping unknown property "+name);
+			return;
+		}
+		properties.put(descriptor, value);
 	}
 
+	/**
+	 * Returns the boxed value of the named property. The typed getters of
+	 * {@link #getProperties()} avoid both the name lookup and the boxing.
+	 */
 	@SuppressWarnings("unchecked")
 	public <T> T getProperty(String name) {
-		return (T)properties.get(name);
+		return (T)properties.get(PropertyRegistry.getInstance().getByName(name));
+	}
+
+	public int getIntProperty(PropertyDescriptor descriptor, int defaultValue) {
+		return properties.getInt(descriptor, defaultValue);
+	}
+
+	public boolean getBoolProperty(PropertyDescriptor descriptor, boolean defaultValue) {
+		return properties.getBool(descriptor, defaultValue);
+	}
+
+	public float getFloatProperty(PropertyDescriptor descriptor, float defaultValue) {
+		return properties.getFloat(descriptor, defaultValue);
+	}
+
+	public String getStringProperty(PropertyDescriptor descriptor) {
+		return properties.getString(descriptor);
+	}
+
+	public boolean hasProperty(PropertyDescriptor descriptor) {
+		return properties.contains(descriptor);
 	}
 
 	public void encode(XDROutputStream outputStream) throws MultiplayerException {
@@ -180,35 +230,32 @@ public class PositionMessage implements IMultiplayerMessage {
 		}
 	}
 
-	public void decode(XDRInputStream inputStream) throws MultiplayerException {
+	public void decode(ByteBuffer buffer) throws MultiplayerException {
 		try {
-			model=MPUtils.readCString(inputStream, MAX_MODEL_NAME_LEN);
+			model=MPUtils.readCString(buffer, MAX_MODEL_NAME_LEN);
 			//System.out.println(model);
-			time=inputStream.readDouble();
-			lag=inputStream.readDouble();
+			time=buffer.getDouble();
+			lag=buffer.getDouble();
             //System.out.println(time+" "+lag);
-			position=MPUtils.readDoublePosition(inputStream);
-			orientation=MPUtils.readFloatPosition(inputStream);
-			linearVelocity=MPUtils.readFloatPosition(inputStream);
-			angularVelocity=MPUtils.readFloatPosition(inputStream);
-			linearAcceleration=MPUtils.readFloatPosition(inputStream);
-			angularAcceleration=MPUtils.readFloatPosition(inputStream);
+			position=MPUtils.readDoublePosition(buffer);
+			orientation=MPUtils.readFloatPosition(buffer);
+			linearVelocity=MPUtils.readFloatPosition(buffer);
+			angularVelocity=MPUtils.readFloatPosition(buffer);
+			linearAcceleration=MPUtils.readFloatPosition(buffer);
+			angularAcceleration=MPUtils.readFloatPosition(buffer);
 //			inputStream.skipBytes(4); must be conditional, moved into decodeProperties();
-			decodeProperties(inputStream);
-		} catch (IOException e) {
+			decodeProperties(buffer);
+		} catch (BufferUnderflowException e) {
+			throw new MultiplayerException(e);
+		} catch (IllegalArgumentException e) {
 			throw new MultiplayerException(e);
 		}
 	}
 
 	protected int getPropertiesLength() {
-		int length=0;
-		for (Map.Entry<String, Object> entry: properties.entrySet()) {
-			PropertyDescriptor descriptor=PropertyRegistry.getInstance().getByName(entry.getKey());
-			if (descriptor==null) {
-				continue;
-			}
-
-			length+=4;
+		int length=(compactEncoding ? 4 : 0); // pad word
+		for (int slot=0;slot<properties.size();slot++) {
+			PropertyDescriptor descriptor=properties.getDescriptor(slot);
 
 			switch (descriptor.getType()) {
 			case INT:
@@ -216,23 +263,21 @@ public class PositionMessage implements IMultiplayerMessage {
 			case LONG:
 			case FLOAT:
 			case DOUBLE:
-				length+=4;
+				length+=(getShortValue(slot)!=NO_SHORT_VALUE ? 4 : 8);
 				break;
 			case STRING:
 			case UNSPECIFIED:
-				String str=entry.getValue().toString();
-				byte bytes[];
-				try {
-					bytes = str.getBytes("US-ASCII");
-				} catch (UnsupportedEncodingException e) {
-					throw new RuntimeException(e);
-				}
-				int pad=(-bytes.length)&3;
-				int strlen=4+4*(bytes.length+pad);
+				int strlen=properties.stringValueAt(slot).length();
+				int pad=(-strlen)&3;
 
-				length+=strlen;
+				if (compactEncoding) {
+					length+=4+strlen+pad;
+				} else {
+					length+=4+4+4*(strlen+pad);
+				}
 				break;
             default:
+                length+=4;
                 break;
 			}
 		}
@@ -240,114 +285,213 @@ public class PositionMessage implements IMultiplayerMessage {
 		return length;
 	}
 
+	/**
+	 * Returns the value packed into the lower 16 bits of the ID word, or {@link #NO_SHORT_VALUE}
+	 * if the property is sent in the legacy layout.
+	 */
+	protected int getShortValue(int slot) {
+		if (!compactEncoding) {
+			return NO_SHORT_VALUE;
+		}
+		final TransmissionType transmissionType=properties.getDescriptor(slot).getTransmissionType();
+		if (!transmissionType.isShort()) {
+			return NO_SHORT_VALUE;
+		}
+		final float value;
+		if (transmissionType==TransmissionType.SHORTINT) {
+			value=properties.intValueAt(slot);
+		} else {
+			value=Math.round(properties.floatValueAt(slot)*transmissionType.getScale());
+		}
+		if (value<Short.MIN_VALUE || value>Short.MAX_VALUE) {
+			// does not fit, fall back to the legacy layout for this property
+			return NO_SHORT_VALUE;
+		}
+		return (int)value;
+	}
+
 	protected void encodeProperties(XDROutputStream outputStream) throws IOException {
-		for (Map.Entry<String, Object> entry: properties.entrySet()) {
-			PropertyDescriptor descriptor=PropertyRegistry.getInstance().getByName(entry.getKey());
-			if (descriptor==null) {
-				log.warn("Skipping encoding of property "+entry.getKey());
-				continue;
-			}
-			outputStream.writeInt(descriptor.getPropertyID());
+		if (compactEncoding) {
+			outputStream.writeInt(V2_PAD_MAGIC);
+		}
+		for (int slot=0;slot<properties.size();slot++) {
+			PropertyDescriptor descriptor=properties.getDescriptor(slot);
+			final int id=descriptor.getPropertyID();
 
-			Number num;
 			switch (descriptor.getType()) {
 			case INT:
 			case BOOL:
 			case LONG:
-				if (entry.getValue() instanceof Boolean) {
-					Boolean bool=(Boolean)entry.getValue();
-					num=new Integer(bool.booleanValue()?1:0);
-				} else {
-					num=(Number)entry.getValue();
-				}
-				outputStream.writeInt(num.intValue());
-				break;
 			case FLOAT:
 			case DOUBLE:
-				if (entry.getValue() instanceof Boolean) {
-					Boolean bool=(Boolean)entry.getValue();
-					num=new Integer(bool.booleanValue()?1:0);
+				int shortValue=getShortValue(slot);
+				if (shortValue!=NO_SHORT_VALUE) {
+					outputStream.writeInt((id<<16)|(shortValue&0xffff));
+				} else if (descriptor.getType()==PropertyType.FLOAT || descriptor.getType()==PropertyType.DOUBLE) {
+					outputStream.writeInt(id);
+					outputStream.writeFloat(properties.floatValueAt(slot));
 				} else {
-					num=(Number)entry.getValue();
+					outputStream.writeInt(id);
+					outputStream.writeInt(properties.intValueAt(slot));
 				}
-				outputStream.writeFloat(num.floatValue());
 				break;
 			case STRING:
 			case UNSPECIFIED:
-				String str=entry.getValue().toString();
-				byte bytes[]=str.getBytes("US-ASCII");
-				outputStream.writeInt(bytes.length);
-				for (int i=0;i<bytes.length;i++) {
-					outputStream.writeInt(bytes[i]);
-				}
+				byte bytes[]=properties.stringValueAt(slot).getBytes("US-ASCII");
 				int pad=(-bytes.length)&3;
-				while (pad>0) {
-					outputStream.writeInt(0);
-					pad--;
+				if (compactEncoding) {
+					// one byte per character, length in the ID word
+					outputStream.writeInt((id<<16)|bytes.length);
+					outputStream.write(bytes);
+					while (pad>0) {
+						outputStream.writeByte(0);
+						pad--;
+					}
+				} else {
+					outputStream.writeInt(id);
+					outputStream.writeInt(bytes.length);
+					for (int i=0;i<bytes.length;i++) {
+						outputStream.writeInt(bytes[i]);
+					}
+					while (pad>0) {
+						outputStream.writeInt(0);
+						pad--;
+					}
 				}
 				break;
             default:
+                outputStream.writeInt(id);
                 break;
 			}
 		}
 	}
 
-	protected void decodeProperties(XDRInputStream inputStream) throws IOException {
-		try {
-			while (true) {
-				int id=inputStream.readInt();
-				if(id==0) continue; // padding
-				PropertyDescriptor descriptor=PropertyRegistry.getInstance().getByID(id);
-				//System.out.println(id+" "+(descriptor!=null ? descriptor.getPropertyName()+" ("+descriptor.getType()+")": "unknown"));
-				if (descriptor==null) {
-					//logger.warning("Unknown property id "+id+", skipping rest of properties: "+toString());
-				    // unknown ID this is mostly an error in protocol. I think
-					//id=inputStream.readInt();System.out.println(id);
-					// inputStream.skip(0);
-					continue;
-				    //descriptor = new PropertyDescriptor(id, "unknown", PropertyType.INT);
+	/**
+	 * Decodes the properties in either layout.
+	 * 
+	 * In the legacy layout the ID and every value occupy full XDR words, strings
+	 * are sent as one word per character. Compact clients announce themselves with
+	 * {@link #V2_PAD_MAGIC} and pack the ID into the upper 16 bits of a word, so a
+	 * non-zero upper half identifies a short encoded property. Its lower half holds
+	 * the value, or the length of a string whose characters follow as bytes.
+	 */
+	protected void decodeProperties(ByteBuffer buffer) {
+		// the properties run up to the end of the datagram, a truncated trailing value is dropped
+		while (buffer.remaining()>=4) {
+			int word=buffer.getInt();
+			if(word==0) continue; // padding
+			if(word==V2_PAD_MAGIC) {
+				compactEncoding=true;
+				continue;
+			}
+			final boolean shortEncoded=(word>>>16)!=0;
+			final int id=(shortEncoded ? word>>>16 : word);
+			PropertyDescriptor descriptor=PropertyRegistry.getInstance().getByID(id);
+			//System.out.println(id+" "+(descriptor!=null ? descriptor.getPropertyName()+" ("+descriptor.getType()+")": "unknown"));
+			if (descriptor==null) {
+				//logger.warning("Unknown property id "+id+", skipping rest of properties: "+toString());
+			    // unknown ID this is mostly an error in protocol. I think
+				// a short encoded value is contained in the word, so this keeps in sync for them
+				continue;
+			    //descriptor = new PropertyDescriptor(id, "unknown", PropertyType.INT);
+			}
+			if (log.isTraceEnabled()) {
+				log.trace("Reading property "+descriptor.getPropertyID()+", name="+descriptor.getPropertyName()+(shortEncoded ? " (short)" : ""));
+			}
+			if (shortEncoded) {
+				compactEncoding=true;
+				if (!decodeShortProperty(buffer, descriptor, (short)word)) {
+					// truncated string, drop the rest of the properties
+					buffer.position(buffer.limit());
 				}
-				log.trace("Reading property "+descriptor.getPropertyID()+", name="+descriptor.getPropertyName());
-
-				Object value=null;
+				continue;
+			}
+			if (buffer.remaining()<4) {
+				break;
+			}
 
-				switch (descriptor.getType()) {
-				case INT:
-					value=new Integer(inputStream.readInt());
-					break;
-				case BOOL:
-					value=new Boolean(inputStream.readInt()!=0);
-					break;
-				case LONG:
-					value=new Long(inputStream.readInt());
-					break;
-				case FLOAT:
-					value=new Float(inputStream.readFloat());
-					break;
-				case DOUBLE:
-					value=new Double(inputStream.readFloat());
-					break;
-				case STRING:
-				case UNSPECIFIED:
-					int length=inputStream.readInt();
-					byte bytes[]=new byte[length];
-					for (int i=0;i<length;i++) {
-						bytes[i]=(byte)inputStream.readInt();
-					}
-					inputStream.skip(4*((-length)&3));
-					value=new String(bytes,"US-ASCII");
+			switch (descriptor.getType()) {
+			case INT:
+			case BOOL:
+			case LONG:
+				properties.putInt(descriptor, buffer.getInt());
+				break;
+			case FLOAT:
+			case DOUBLE:
+				properties.putFloat(descriptor, buffer.getFloat());
+				break;
+			case STRING:
+			case UNSPECIFIED:
+				String value=readString(buffer);
+				if (value==null) {
+					// corrupt or truncated string, drop the rest of the properties
+					buffer.position(buffer.limit());
 					break;
-                default:
-                    break;
 				}
+				properties.putString(descriptor, value);
+				break;
+            default:
+                break;
+			}
+		}
+	}
 
-				if (value!=null) {
-					properties.put(descriptor.getPropertyName(), value);
-
+	protected boolean decodeShortProperty(ByteBuffer buffer, PropertyDescriptor descriptor, short value) {
+		switch (descriptor.getType()) {
+		case INT:
+		case BOOL:
+		case LONG:
+			properties.putInt(descriptor, value);
+			break;
+		case FLOAT:
+		case DOUBLE:
+			final TransmissionType transmissionType=descriptor.getTransmissionType();
+			if (!transmissionType.isShort() || transmissionType==TransmissionType.SHORTINT) {
+				// scale unknown, skip the value instead of storing a wrong one
+				if (log.isTraceEnabled()) {
+					log.trace("Undecodable short float "+descriptor.getPropertyName());
 				}
+				break;
+			}
+			properties.putFloat(descriptor, value/transmissionType.getScale());
+			break;
+		case STRING:
+		case UNSPECIFIED:
+			final int length=value&0xffff;
+			final int padded=length+((-length)&3);
+			if (padded>buffer.remaining()) {
+				return false;
 			}
-		} catch (EOFException e) {
+			properties.putString(descriptor, MPUtils.readASCII(buffer, buffer.position(), length));
+			buffer.position(buffer.position()+padded);
+			break;
+        default:
+            break;
+		}
+		return true;
+	}
+
+	/**
+	 * Decodes a string sent as one XDR int per character, reading the characters in
+	 * place from the buffer. Returns <code>null</code> if the length is invalid.
+	 */
+	protected static String readString(ByteBuffer buffer) {
+		final int length=buffer.getInt();
+		if (length<0 || length>buffer.remaining()/4) {
+			return null;
+		}
+		final int padded=4*(length+((-length)&3));
+		if (padded>buffer.remaining()) {
+			return null;
+		}
+		final int start=buffer.position();
+		final char chars[]=new char[length];
+		for (int i=0;i<length;i++) {
+			final byte b=(byte)buffer.getInt(start+4*i);
+			chars[i]=(b>=0 ? (char)b : '\uFFFD');
 		}
+		buffer.position(start+padded);
+		return new String(chars);
 	}
 
 	@Override
@@ -36,11 +36,15 @@ public class PropertyDescriptor {
 	protected final int propertyID;
 	protected final String propertyName;
 	protected final PropertyType type;
+	protected final TransmissionType transmissionType;
+	protected final int index;
 	
-	public PropertyDescriptor(int propertyID, String propertyName, PropertyType type) {
+	public PropertyDescriptor(int propertyID, String propertyName, PropertyType type, TransmissionType transmissionType, int index) {
 		this.propertyID=propertyID;
 		this.propertyName=propertyName;
 		this.type=type;
+		this.transmissionType=transmissionType;
+		this.index=index;
 	}
 	
 	public int getPropertyID() {
@@ -54,4 +58,18 @@ public class PropertyDescriptor {
 	public PropertyType getType() {
 		return type;
 	}
+	
+	/**
+	 * Returns the wire format used for this property in the compact encoding.
+	 */
+	public TransmissionType getTransmissionType() {
+		return transmissionType;
+	}
+	
+	/**
+	 * Returns the dense index of this descriptor within the {@link PropertyRegistry}.
+	 */
+	public int getIndex() {
+		return index;
+	}
 }
@@ -34,7 +34,9 @@ package de.knewcleus.fgfs.multiplayer.protocol;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 
@@ -44,10 +46,14 @@ import org.apache.log4j.Logger;
 
 public class PropertyRegistry {
 	protected static Logger log = LogManager.getLogger("de.knewcleus.fgfs.multiplayer");
-	protected static PropertyRegistry instance;
+	// created eagerly, the registry is read by all decoder threads
+	protected static final PropertyRegistry instance=new PropertyRegistry();
 	
 	protected final Map<String, PropertyDescriptor> descriptorsByName=new HashMap<String, PropertyDescriptor>();
-	protected final Map<Integer, PropertyDescriptor> descriptorsByID=new HashMap<Integer, PropertyDescriptor>();
+	protected final List<PropertyDescriptor> descriptors=new ArrayList<PropertyDescriptor>();
+	/* open addressed table of the property IDs, avoids boxing the ID on every lookup */
+	protected int[] idTable=new int[0];
+	protected PropertyDescriptor[] descriptorTable=new PropertyDescriptor[0];
 	
 	protected PropertyRegistry() {
 		InputStream inputStream=PropertyRegistry.class.getResourceAsStream("propertytypes.properties");
@@ -70,14 +76,74 @@ public class PropertyRegistry {
 			if (type==null)
 				type=PropertyType.UNSPECIFIED;
 			
-			PropertyDescriptor descriptor=new PropertyDescriptor(id,name,type);
+			TransmissionType transmissionType=getTransmissionType(properties.getProperty(prefix+".transmission"), type);
+			
+			PropertyDescriptor descriptor=new PropertyDescriptor(id,name,type,transmissionType,descriptors.size());
 			descriptorsByName.put(name,descriptor);
-			descriptorsByID.put(id,descriptor);
+			descriptors.add(descriptor);
+		}
+		
+		int capacity=1;
+		while (capacity<2*descriptors.size()) {
+			capacity<<=1;
+		}
+		idTable=new int[capacity];
+		descriptorTable=new PropertyDescriptor[capacity];
+		for (PropertyDescriptor descriptor: descriptors) {
+			int slot=hash(descriptor.getPropertyID())&(capacity-1);
+			while (descriptorTable[slot]!=null && idTable[slot]!=descriptor.getPropertyID()) {
+				slot=(slot+1)&(capacity-1);
+			}
+			idTable[slot]=descriptor.getPropertyID();
+			descriptorTable[slot]=descriptor;
+		}
+	}
+	
+	/**
+	 * Determines the compact wire format, configured per property as in FlightGear's
+	 * property table. Unless configured, integers are sent as short ints and everything
+	 * else as is. The scale of a short float cannot be guessed, such values are not
+	 * decoded.
+	 */
+	protected static TransmissionType getTransmissionType(String configured, PropertyType type) {
+		if (configured!=null) {
+			return TransmissionType.valueOf(configured);
+		}
+		switch (type) {
+		case INT:
+		case BOOL:
+		case LONG:
+			return TransmissionType.SHORTINT;
+		default:
+			return TransmissionType.ASIS;
 		}
 	}
 	
+	protected static int hash(int id) {
+		return id*0x9E3779B9>>>16;
+	}
+	
 	public PropertyDescriptor getByID(int id) {
-		return descriptorsByID.get(id);
+		final int mask=idTable.length-1;
+		if (mask<0) {
+			return null;
+		}
+		int slot=hash(id)&mask;
+		while (descriptorTable[slot]!=null) {
+			if (idTable[slot]==id) {
+				return descriptorTable[slot];
+			}
+			slot=(slot+1)&mask;
+		}
+		return null;
+	}
+	
+	public PropertyDescriptor getByIndex(int index) {
+		return descriptors.get(index);
+	}
+	
+	public int getDescriptorCount() {
+		return descriptors.size();
 	}
 	
 	public PropertyDescriptor getByName(String name) {
@@ -85,8 +151,6 @@ public class PropertyRegistry {
 	}
 	
 	public static PropertyRegistry getInstance() {
-		if (instance==null)
-			instance=new PropertyRegistry();
 		return instance;
 	}
 	
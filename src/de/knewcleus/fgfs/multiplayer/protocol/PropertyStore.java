@@ -0,0 +1,258 @@
+/**
+ * Copyright (C) 2016 OpenRadar contributors
+ *
+ * This file is part of OpenRadar.
+ *
+ * OpenRadar is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * OpenRadar is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * OpenRadar. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Diese Datei ist Teil von OpenRadar.
+ *
+ * OpenRadar ist Freie Software: Sie können es unter den Bedingungen der GNU
+ * General Public License, wie von der Free Software Foundation, Version 3 der
+ * Lizenz oder (nach Ihrer Option) jeder späteren veröffentlichten Version,
+ * weiterverbreiten und/oder modifizieren.
+ *
+ * OpenRadar wird in der Hoffnung, dass es nützlich sein wird, aber OHNE JEDE
+ * GEWÄHRLEISTUNG, bereitgestellt; sogar ohne die implizite Gewährleistung der
+ * MARKTFÄHIGKEIT oder EIGNUNG FÜR EINEN BESTIMMTEN ZWECK. Siehe die GNU General
+ * Public License für weitere Details.
+ *
+ * Sie sollten eine Kopie der GNU General Public License zusammen mit diesem
+ * Programm erhalten haben. Wenn nicht, siehe <http://www.gnu.org/licenses/>.
+ */
+package de.knewcleus.fgfs.multiplayer.protocol;
+
+/**
+ * Holds the decoded properties of a single position message.
+ * 
+ * Values are kept in parallel primitive arrays addressed by slot, a bitset over
+ * the dense descriptor index tells whether a property is present. INT, BOOL and
+ * LONG values are stored as int, FLOAT and DOUBLE as float bits and STRING
+ * values as String, so decoding a message does not box anything.
+ * 
+ * Instances are not thread safe, they are filled by the decoding thread and read
+ * afterwards.
+ */
+public class PropertyStore {
+	protected static final int INITIAL_CAPACITY=32;
+
+	protected PropertyDescriptor[] descriptors=new PropertyDescriptor[INITIAL_CAPACITY];
+	protected int[] values=new int[INITIAL_CAPACITY];
+	protected String[] strings=new String[INITIAL_CAPACITY];
+	protected long[] present;
+	protected int size;
+
+	public PropertyStore() {
+		present=new long[Math.max(1, (PropertyRegistry.getInstance().getDescriptorCount()+63)>>>6)];
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public boolean isEmpty() {
+		return size==0;
+	}
+
+	public void clear() {
+		for (int i=0;i<size;i++) {
+			descriptors[i]=null;
+			strings[i]=null;
+		}
+		for (int i=0;i<present.length;i++) {
+			present[i]=0L;
+		}
+		size=0;
+	}
+
+	public boolean contains(PropertyDescriptor descriptor) {
+		if (descriptor==null) {
+			return false;
+		}
+		final int index=descriptor.getIndex();
+		final int word=index>>>6;
+		return word<present.length && (present[word]&(1L<<index))!=0;
+	}
+
+	public PropertyDescriptor getDescriptor(int slot) {
+		return descriptors[slot];
+	}
+
+	public void putInt(PropertyDescriptor descriptor, int value) {
+		final int slot=slotFor(descriptor);
+		values[slot]=(isFloatType(descriptor) ? Float.floatToRawIntBits(value) : value);
+		strings[slot]=null;
+	}
+
+	public void putBool(PropertyDescriptor descriptor, boolean value) {
+		putInt(descriptor, value ? 1 : 0);
+	}
+
+	public void putFloat(PropertyDescriptor descriptor, float value) {
+		final int slot=slotFor(descriptor);
+		values[slot]=(isFloatType(descriptor) ? Float.floatToRawIntBits(value) : (int)value);
+		strings[slot]=null;
+	}
+
+	public void putString(PropertyDescriptor descriptor, String value) {
+		final int slot=slotFor(descriptor);
+		values[slot]=0;
+		strings[slot]=value;
+	}
+
+	/**
+	 * Stores a boxed value, converting it to the representation of the descriptor's type.
+	 */
+	public void put(PropertyDescriptor descriptor, Object value) {
+		if (!isNumericType(descriptor)) {
+			putString(descriptor, value.toString());
+		} else if (value instanceof Boolean) {
+			putBool(descriptor, ((Boolean)value).booleanValue());
+		} else if (value instanceof Number) {
+			if (isFloatType(descriptor)) {
+				putFloat(descriptor, ((Number)value).floatValue());
+			} else {
+				putInt(descriptor, ((Number)value).intValue());
+			}
+		} else {
+			throw new IllegalArgumentException("Property "+descriptor.getPropertyName()+" requires a numeric value");
+		}
+	}
+
+	public int getInt(PropertyDescriptor descriptor, int defaultValue) {
+		final int slot=indexOf(descriptor);
+		if (slot<0 || !isNumericType(descriptors[slot])) {
+			return defaultValue;
+		}
+		return intValueAt(slot);
+	}
+
+	public boolean getBool(PropertyDescriptor descriptor, boolean defaultValue) {
+		final int slot=indexOf(descriptor);
+		if (slot<0 || !isNumericType(descriptors[slot])) {
+			return defaultValue;
+		}
+		return intValueAt(slot)!=0;
+	}
+
+	public float getFloat(PropertyDescriptor descriptor, float defaultValue) {
+		final int slot=indexOf(descriptor);
+		if (slot<0 || !isNumericType(descriptors[slot])) {
+			return defaultValue;
+		}
+		return floatValueAt(slot);
+	}
+
+	public String getString(PropertyDescriptor descriptor) {
+		final int slot=indexOf(descriptor);
+		return (slot<0 ? null : strings[slot]);
+	}
+
+	/**
+	 * Returns the value boxed according to the descriptor's type or <code>null</code> if absent.
+	 */
+	public Object get(PropertyDescriptor descriptor) {
+		final int slot=indexOf(descriptor);
+		if (slot<0) {
+			return null;
+		}
+		switch (descriptor.getType()) {
+		case INT:
+			return Integer.valueOf(intValueAt(slot));
+		case BOOL:
+			return Boolean.valueOf(intValueAt(slot)!=0);
+		case LONG:
+			return Long.valueOf(intValueAt(slot));
+		case FLOAT:
+			return Float.valueOf(floatValueAt(slot));
+		case DOUBLE:
+			return Double.valueOf(floatValueAt(slot));
+		default:
+			return strings[slot];
+		}
+	}
+
+	public int intValueAt(int slot) {
+		return (isFloatType(descriptors[slot]) ? (int)Float.intBitsToFloat(values[slot]) : values[slot]);
+	}
+
+	public float floatValueAt(int slot) {
+		return (isFloatType(descriptors[slot]) ? Float.intBitsToFloat(values[slot]) : values[slot]);
+	}
+
+	public String stringValueAt(int slot) {
+		return strings[slot];
+	}
+
+	protected int indexOf(PropertyDescriptor descriptor) {
+		if (!contains(descriptor)) {
+			return -1;
+		}
+		for (int i=0;i<size;i++) {
+			if (descriptors[i]==descriptor) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	protected int slotFor(PropertyDescriptor descriptor) {
+		final int existing=indexOf(descriptor);
+		if (existing>=0) {
+			return existing;
+		}
+		if (size==descriptors.length) {
+			grow();
+		}
+		final int index=descriptor.getIndex();
+		final int word=index>>>6;
+		if (word>=present.length) {
+			final long[] newPresent=new long[word+1];
+			System.arraycopy(present, 0, newPresent, 0, present.length);
+			present=newPresent;
+		}
+		present[word]|=1L<<index;
+		descriptors[size]=descriptor;
+		return size++;
+	}
+
+	protected void grow() {
+		final int capacity=descriptors.length*2;
+		final PropertyDescriptor[] newDescriptors=new PropertyDescriptor[capacity];
+		final int[] newValues=new int[capacity];
+		final String[] newStrings=new String[capacity];
+		System.arraycopy(descriptors, 0, newDescriptors, 0, size);
+		System.arraycopy(values, 0, newValues, 0, size);
+		System.arraycopy(strings, 0, newStrings, 0, size);
+		descriptors=newDescriptors;
+		values=newValues;
+		strings=newStrings;
+	}
+
+	protected static boolean isNumericType(PropertyDescriptor descriptor) {
+		switch (descriptor.getType()) {
+		case INT:
+		case BOOL:
+		case LONG:
+		case FLOAT:
+		case DOUBLE:
+			return true;
+		default:
+			return false;
+		}
+	}
+
+	protected static boolean isFloatType(PropertyDescriptor descriptor) {
+		return descriptor.getType()==PropertyType.FLOAT || descriptor.getType()==PropertyType.DOUBLE;
+	}
+}
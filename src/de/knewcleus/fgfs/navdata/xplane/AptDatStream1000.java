@@ -30,9 +30,6 @@ package de.knewcleus.fgfs.navdata.xplane;
 
 import java.awt.geom.Point2D;
 import java.awt.geom.Rectangle2D;
-import java.io.BufferedReader;
-import java.io.IOException;
-import java.io.Reader;
 import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.List;
@@ -62,57 +59,56 @@ import de.knewcleus.openradar.gui.setup.AirportData;
  */
 public class AptDatStream1000 implements INavDataStream<INavPoint> {
     protected final AirportData data;
-    protected final BufferedReader bufferedReader;
+    protected final FieldScanner scanner;
     protected final Rectangle2D bounds;
+    // airports whose first landing surface lies outside of this area cannot have their reference point in the bounds
+    protected final Rectangle2D rejectBounds;
     protected final Queue<INavPoint> datumQueue = new LinkedList<INavPoint>();
-    protected String nextLine = null;
+    protected boolean linePending = false;
     protected final static GeodesicUtils geodesicUtils = new GeodesicUtils(Ellipsoid.WGS84);
     protected List<Pavement> pavements = new ArrayList<>();
     protected Pavement currentPavement = null;
 
-  //  private final Logger log = Logger.getLogger(AptDatStream1000.class);
+    /** margin in degrees between the sector and a runway of an airport with its reference point inside the sector */
+    protected static final double REJECT_MARGIN = 0.5;
 
-    public AptDatStream1000(AirportData data, Reader reader, Rectangle2D bounds) throws IOException {
-        this(data, new BufferedReader(reader), bounds);
-    }
+  //  private final Logger log = Logger.getLogger(AptDatStream1000.class);
 
-    public AptDatStream1000(AirportData data, BufferedReader bufferedReader, Rectangle2D bounds) throws IOException {
+    public AptDatStream1000(AirportData data, FieldScanner scanner, Rectangle2D bounds) {
         this.data=data;
-        this.bufferedReader = bufferedReader;
+        this.scanner = scanner;
         this.bounds = bounds;
+        if (bounds != null) {
+            final double margin = REJECT_MARGIN * Units.DEG;
+            rejectBounds = new Rectangle2D.Double(bounds.getMinX() - margin, bounds.getMinY() - margin, bounds.getWidth() + 2 * margin, bounds.getHeight() + 2 * margin);
+        } else {
+            rejectBounds = null;
+        }
         // Skip the line-ending-marker (I/A)
-        bufferedReader.readLine();
+        scanner.nextLine();
         // Skip the copyright-line
-        bufferedReader.readLine();
+        scanner.nextLine();
     }
 
-    protected String peekLine() throws NavDataStreamException {
-        while (nextLine == null || isEmpty(nextLine)) {
-            try {
-                nextLine = bufferedReader.readLine();
-            } catch (IOException e) {
-                throw new NavDataStreamException(e);
-            }
-            if (nextLine == null) {
+    /**
+     * Positions the scanner at the first field of the next non-empty line, without consuming the line.
+     *
+     * @return false at the end of the file
+     */
+    protected boolean peekLine() {
+        if (!linePending) {
+            if (!scanner.nextLine()) {
                 /* End of file */
-                return null;
+                return false;
             }
+            linePending = true;
         }
-        return nextLine;
+        scanner.reset();
+        return true;
     }
 
     protected void consumeLine() {
-        nextLine = null;
-    }
-
-    protected static boolean isEmpty(String line) {
-        final int length = line.length();
-        for (int i = 0; i < length; ++i) {
-            if (!Character.isWhitespace(line.charAt(i))) {
-                return false;
-            }
-        }
-        return true;
+        linePending = false;
     }
 
     @Override
@@ -120,105 +116,117 @@ public class AptDatStream1000 implements INavDataStream<INavPoint> {
         if (!datumQueue.isEmpty()) {
             return datumQueue.poll();
         }
-        final String line = peekLine();
-        if (line == null) {
-            /* End of file */
-            return null;
-        }
-        final FieldIterator fieldIterator = new FieldIterator(line);
-        final String recordTypeString = fieldIterator.next();
-        if (recordTypeString.equals("99")) {
+        if (!peekLine()) {
             /* End of file */
             return null;
         }
-        return parseAirport();
+        INavPoint airport;
+        do {
+            if (!peekLine() || scanner.peekEquals("99")) {
+                /* End of file */
+                return null;
+            }
+            airport = parseAirport();
+        } while (airport == null);
+        return airport;
     }
 
     protected INavPoint parseAirport() throws NavDataStreamException {
-        final String airportLine = peekLine();
-        final FieldIterator fieldIterator = new FieldIterator(airportLine);
-        assert (fieldIterator.hasNext());
-        final String airportCode = fieldIterator.next();
+        peekLine();
+        assert (scanner.hasNext());
         final IAerodrome.Type aerodromeType;
-        if (airportCode.equals("1")) {
+        if (scanner.peekEquals("1")) {
             aerodromeType = IAerodrome.Type.Land;
-        } else if (airportCode.equals("16")) {
+        } else if (scanner.peekEquals("16")) {
             aerodromeType = IAerodrome.Type.Sea;
-        } else if (airportCode.equals("17")) {
+        } else if (scanner.peekEquals("17")) {
             aerodromeType = IAerodrome.Type.Heliport;
         } else {
-            throw new NavDataStreamException("Invalid airport code '" + airportCode + "'");
+            throw new NavDataStreamException("Invalid airport code '" + scanner.next() + "'");
         }
-        final String elevString, identification, name;
+        scanner.skip();
+        final String identification, name;
+        final float elevation;
 
         try {
-            elevString = fieldIterator.next();
+            try {
+                elevation = scanner.nextFloat() * Units.FT;
+            } catch (NumberFormatException e) {
+                throw new NavDataStreamException("Elevation is not a number", e);
+            }
             // skip tower field
-            fieldIterator.next();
+            scanner.skip();
             // skip default buildings field
-            fieldIterator.next();
-            identification = fieldIterator.next();
-            name = fieldIterator.restOfLine();
+            scanner.skip();
+            identification = scanner.next();
+            name = scanner.restOfLine();
         } catch (NoSuchElementException e) {
             throw new NavDataStreamException("Missing field in airport line", e);
         }
-
-        final float elevation;
-        try {
-            elevation = Float.parseFloat(elevString) * Units.FT;
-        } catch (NumberFormatException e) {
-            throw new NavDataStreamException("Elevation is not a number", e);
-        }
         consumeLine();
 
         Point2D towerPosition = null;
 
         final List<LandingSurface> landingSurfaces = new ArrayList<LandingSurface>();
         final List<RawFrequency> frequencies = new ArrayList<RawFrequency>();
-        while (peekLine() != null) {
-            final String recordLine = peekLine();
-            final FieldIterator recordIterator = new FieldIterator(recordLine);
-            assert (recordIterator.hasNext());
-            final String recordCode = recordIterator.next();
-            if (recordCode.equals("1") || recordCode.equals("16") || recordCode.equals("17") || recordCode.equals("99")) {
+        boolean positionChecked = false;
+        while (peekLine()) {
+            assert (scanner.hasNext());
+            final int recordCode;
+            try {
+                recordCode = scanner.nextInt();
+            } catch (NumberFormatException e) {
+                // unknown record
+                consumeLine();
+                continue;
+            }
+            if (recordCode == 1 || recordCode == 16 || recordCode == 17 || recordCode == 99) {
                 /* end of file marker or next airport header */
                 currentPavement=null;
                 break;
-            } else if (recordCode.equals("100")) {
+            } else if (!positionChecked && (recordCode == 100 || recordCode == 101 || recordCode == 102)) {
+                positionChecked = true;
+                if (isOutsideSector(recordCode)) {
+                    skipAirport();
+                    pavements.clear();
+                    currentPavement=null;
+                    return null;
+                }
+            }
+            if (recordCode == 100) {
                 // runway
-                final LandingSurface surface = parseRunway(recordIterator);
+                final LandingSurface surface = parseRunway(scanner);
                 if (surface != null) {
                     landingSurfaces.add(surface);
                 }
-            } else if (recordCode.equals("101")) {
+            } else if (recordCode == 101) {
                 // water runway
-                final LandingSurface surface = parseWaterRunway(recordIterator);
+                final LandingSurface surface = parseWaterRunway(scanner);
                 if (surface != null) {
                     landingSurfaces.add(surface);
                 }
-            } else if (recordCode.equals("102")) {
+            } else if (recordCode == 102) {
                 // helipad
-                final LandingSurface surface = parseHelipad(recordIterator);
+                final LandingSurface surface = parseHelipad(scanner);
                 if (surface != null) {
                     landingSurfaces.add(surface);
                 }
-            } else if (recordCode.equals("110") || recordCode.equals("111") || recordCode.equals("112") || recordCode.equals("113") || recordCode.equals("114")
-                        || recordCode.equals("115") || recordCode.equals("116")) {
+            } else if (recordCode >= 110 && recordCode <= 116) {
 //                   if(identification.equals(data.getAirportCode())) {
-                        processPavement(recordLine.split("\\s+", 15));
+                        processPavement(scanner.getLine().split("\\s+", 15));
 //                   }
-            } else if (recordCode.equals("120") || recordCode.equals("130")) {
+            } else if (recordCode == 120 || recordCode == 130) {
                 currentPavement=null; // other linear features
-            } else if (recordCode.equals("14")) {
+            } else if (recordCode == 14) {
                 // tower position
-                double towerLat = Double.parseDouble(recordIterator.next()) * Units.DEG;
-                double towerLon = Double.parseDouble(recordIterator.next()) * Units.DEG;
+                double towerLat = scanner.nextDouble() * Units.DEG;
+                double towerLon = scanner.nextDouble() * Units.DEG;
 
                 towerPosition = new Point2D.Double(towerLon, towerLat);
-            } else if (/* recordCode.equals("50") || recordCode.equals("51") || */ recordCode.equals("53") || recordCode.equals("54")
-                    || recordCode.equals("55")) {
+            } else if (/* recordCode == 50 || recordCode == 51 || */ recordCode == 53 || recordCode == 54
+                    || recordCode == 55) {
                 // Radio frequencies
-                final RawFrequency f = parseFrequency(recordIterator);
+                final RawFrequency f = parseFrequency(scanner);
                 if (f != null) {
                     frequencies.add(f);
                 }
@@ -269,6 +277,41 @@ public class AptDatStream1000 implements INavDataStream<INavPoint> {
 
     }
 
+    /**
+     * Reads the position of the first landing surface, which is the first record of an airport that carries one.
+     * The scanner is left after the record code.
+     */
+    protected boolean isOutsideSector(int recordCode) {
+        if (rejectBounds == null) {
+            return false;
+        }
+        try {
+            // skip to the (first) latitude of the record
+            scanner.skip(recordCode == 100 ? 8 : (recordCode == 101 ? 3 : 1));
+            final double latitude = scanner.nextDouble() * Units.DEG;
+            final double longitude = scanner.nextDouble() * Units.DEG;
+            return !rejectBounds.contains(longitude, latitude);
+        } catch (RuntimeException e) {
+            // leave malformed records to the parser
+            return false;
+        } finally {
+            scanner.reset();
+            scanner.skip();
+        }
+    }
+
+    /**
+     * Skips the remaining records of the current airport, only comparing their record codes.
+     */
+    protected void skipAirport() {
+        while (peekLine()) {
+            if (scanner.peekEquals("1") || scanner.peekEquals("16") || scanner.peekEquals("17") || scanner.peekEquals("99")) {
+                return;
+            }
+            consumeLine();
+        }
+    }
+
     private void processPavement(String[] def) {
         if (def[0].equals("110")) {
             // pavement header
@@ -300,14 +343,14 @@ public class AptDatStream1000 implements INavDataStream<INavPoint> {
         return distance < maxMiles; //bounds.contains(lon, lat);
     }
 
-    private RawFrequency parseFrequency(FieldIterator recordIterator) throws NavDataStreamException {
+    private RawFrequency parseFrequency(FieldScanner scanner) throws NavDataStreamException {
 
         final RawFrequency freq;
         try {
-            String f = recordIterator.next();
+            String f = scanner.next();
             StringBuilder code = new StringBuilder();
-            while (recordIterator.hasNext()) {
-                code.append(recordIterator.next());
+            while (scanner.hasNext()) {
+                code.append(scanner.next());
                 code.append(" ");
             }
 
@@ -320,57 +363,50 @@ public class AptDatStream1000 implements INavDataStream<INavPoint> {
         return freq;
     }
 
-    protected LandingSurface parseRunway(FieldIterator fieldIterator) throws NavDataStreamException {
-        final String widthString, surfaceCodeString;
-        final String latStringA, lonStringA, runwayEndNumberA, thresholdStringA;
-        final String latStringB, lonStringB, runwayEndNumberB, thresholdStringB;
+    protected LandingSurface parseRunway(FieldScanner scanner) throws NavDataStreamException {
+        final String runwayEndNumberA, runwayEndNumberB;
+        final double latitudeA, longitudeA, latitudeB, longitudeB;
+        final float widthM, endAthresholdM, endBthresholdM;
+        final int surfaceCode;
 
         try {
-            widthString = fieldIterator.next();
-            surfaceCodeString = fieldIterator.next();
-            fieldIterator.next(); // shoulder type
-            fieldIterator.next(); // runway smoothness
-            fieldIterator.next(); // runway edge lightning
-            fieldIterator.next(); // runway center lightning
-            fieldIterator.next(); // runway auto signs
+            widthM = scanner.nextFloat();
+            surfaceCode = scanner.nextInt();
+            scanner.skip(); // shoulder type
+            scanner.skip(); // runway smoothness
+            scanner.skip(); // runway edge lightning
+            scanner.skip(); // runway center lightning
+            scanner.skip(); // runway auto signs
             // runway end A
-            runwayEndNumberA = fieldIterator.next();
-            latStringA = fieldIterator.next();
-            lonStringA = fieldIterator.next();
-            thresholdStringA = fieldIterator.next();
-            fieldIterator.next(); // runway over run
-            fieldIterator.next(); // runway markings
-            fieldIterator.next(); // runway lighting
-            fieldIterator.next(); // runway touchdown zone
-            fieldIterator.next(); // runway end identifier
+            runwayEndNumberA = scanner.next();
+            latitudeA = scanner.nextDouble() * Units.DEG;
+            longitudeA = scanner.nextDouble() * Units.DEG;
+            endAthresholdM = scanner.nextFloat();
+            scanner.skip(); // runway over run
+            scanner.skip(); // runway markings
+            scanner.skip(); // runway lighting
+            scanner.skip(); // runway touchdown zone
+            scanner.skip(); // runway end identifier
             // runway end B
-            runwayEndNumberB = fieldIterator.next();
-            latStringB = fieldIterator.next();
-            lonStringB = fieldIterator.next();
-            thresholdStringB = fieldIterator.next();
-            fieldIterator.next(); // runway over run
-            fieldIterator.next(); // runway markings
-            fieldIterator.next(); // runway lighting
-            fieldIterator.next(); // runway touchdown zone
-            fieldIterator.next(); // runway end identifier
+            runwayEndNumberB = scanner.next();
+            latitudeB = scanner.nextDouble() * Units.DEG;
+            longitudeB = scanner.nextDouble() * Units.DEG;
+            endBthresholdM = scanner.nextFloat();
+            scanner.skip(); // runway over run
+            scanner.skip(); // runway markings
+            scanner.skip(); // runway lighting
+            scanner.skip(); // runway touchdown zone
+            scanner.skip(); // runway end identifier
 
         } catch (NoSuchElementException e) {
             throw new NavDataStreamException("Missing field in runway definition", e);
+        } catch (NumberFormatException e) {
+            throw new NavDataStreamException("Non-numeric value in numeric field", e);
         }
 
-        final double latitudeA, longitudeA, latitudeB, longitudeB;
         final float heading;
         final float length, width;
-        final SurfaceType surfaceType;
-        try {
-            latitudeA = Double.parseDouble(latStringA) * Units.DEG;
-            longitudeA = Double.parseDouble(lonStringA) * Units.DEG;
-            latitudeB = Double.parseDouble(latStringB) * Units.DEG;
-            longitudeB = Double.parseDouble(lonStringB) * Units.DEG;
-            surfaceType = getSurfaceType(Integer.parseInt(surfaceCodeString));
-        } catch (NumberFormatException e) {
-            throw new NavDataStreamException("Non-numeric value in numeric field", e);
-        }
+        final SurfaceType surfaceType = getSurfaceType(surfaceCode);
 
         if(!isInRange(longitudeA, latitudeA,100)) {
             return null;
@@ -379,60 +415,48 @@ public class AptDatStream1000 implements INavDataStream<INavPoint> {
         GeoUtilInfo result = GeoUtil.getDistance(longitudeA, latitudeA, longitudeB, latitudeB);
         heading = (float) result.angle;
         length = (float) result.length;
-        width = Float.parseFloat(widthString) * Units.M;
+        width = widthM * Units.M;
 
         final Point2D rwACenter = new Point2D.Double(longitudeA, latitudeA);
         final Point2D rwBCenter = new Point2D.Double(longitudeB, latitudeB);
         final Point2D center = new Point2D.Double(longitudeA + (longitudeB - longitudeA) / 2, latitudeA + (latitudeB - latitudeA) / 2);
 
-        final float endAthreshold, endBthreshold;
-        try {
-            endAthreshold = Float.parseFloat(thresholdStringA) * Units.M;
-            endBthreshold = Float.parseFloat(thresholdStringB) * Units.M;
-        } catch (NumberFormatException e) {
-            throw new NavDataStreamException("Non-numeric value in numeric field", e);
-        }
+        final float endAthreshold = endAthresholdM * Units.M;
+        final float endBthreshold = endBthresholdM * Units.M;
 
         return new Runway(surfaceType, length, width, center, rwACenter, rwBCenter, heading, runwayEndNumberA, runwayEndNumberB, endAthreshold, endBthreshold);
     }
 
-    protected LandingSurface parseWaterRunway(FieldIterator fieldIterator) throws NavDataStreamException {
-        final String widthString;
-        final String latStringA, lonStringA, runwayEndNumberA;
-        final String latStringB, lonStringB, runwayEndNumberB;
+    protected LandingSurface parseWaterRunway(FieldScanner scanner) throws NavDataStreamException {
+        final String runwayEndNumberA, runwayEndNumberB;
+        final double latitudeA, longitudeA, latitudeB, longitudeB;
+        final float widthM;
 
         try {
-            widthString = fieldIterator.next();
-            fieldIterator.next(); // flag for buoys
+            widthM = scanner.nextFloat();
+            scanner.skip(); // flag for buoys
             // runway end A
-            runwayEndNumberA = fieldIterator.next();
-            latStringA = fieldIterator.next();
-            lonStringA = fieldIterator.next();
+            runwayEndNumberA = scanner.next();
+            latitudeA = scanner.nextDouble() * Units.DEG;
+            longitudeA = scanner.nextDouble() * Units.DEG;
 
             // runway end B
-            runwayEndNumberB = fieldIterator.next();
-            latStringB = fieldIterator.next();
-            lonStringB = fieldIterator.next();
+            runwayEndNumberB = scanner.next();
+            latitudeB = scanner.nextDouble() * Units.DEG;
+            longitudeB = scanner.nextDouble() * Units.DEG;
         } catch (NoSuchElementException e) {
             throw new NavDataStreamException("Missing field in runway definition", e);
+        } catch (NumberFormatException e) {
+            throw new NavDataStreamException("Non-numeric value in numeric field", e);
         }
 
-        final double latitudeA, longitudeA, latitudeB, longitudeB;
         final float heading;
         final float length, width;
         final SurfaceType surfaceType = SurfaceType.WATER;
-        try {
-            latitudeA = Double.parseDouble(latStringA) * Units.DEG;
-            longitudeA = Double.parseDouble(lonStringA) * Units.DEG;
-            latitudeB = Double.parseDouble(latStringB) * Units.DEG;
-            longitudeB = Double.parseDouble(lonStringB) * Units.DEG;
-        } catch (NumberFormatException e) {
-            throw new NavDataStreamException("Non-numeric value in numeric field", e);
-        }
         GeoUtilInfo result = GeoUtil.getDistance(longitudeA, latitudeA, longitudeB, latitudeB);
         heading = (float) result.angle;
         length = (float) result.length;
-        width = Float.parseFloat(widthString) * Units.M;
+        width = widthM * Units.M;
 
         final Point2D rwACenter = new Point2D.Double(longitudeA, latitudeA);
         final Point2D rwBCenter = new Point2D.Double(longitudeB, latitudeB);
@@ -441,42 +465,33 @@ public class AptDatStream1000 implements INavDataStream<INavPoint> {
         return new Runway(surfaceType, length, width, center, rwACenter, rwBCenter, heading, runwayEndNumberA, runwayEndNumberB, 0, 0);
     }
 
-    protected LandingSurface parseHelipad(FieldIterator fieldIterator) throws NavDataStreamException {
+    protected LandingSurface parseHelipad(FieldScanner scanner) throws NavDataStreamException {
 
-        final String designation, latString, lonString, headingString, lengthString, widthString, surfaceCodeString;
+        final String designation;
+        final double latitude, longitude;
+        final float heading;
+        final float length, width;
+        final int surfaceCode;
 
         try {
-            designation = fieldIterator.next();
-            latString = fieldIterator.next();
-            lonString = fieldIterator.next();
-            headingString = fieldIterator.next();
-            lengthString = fieldIterator.next();
-            widthString = fieldIterator.next();
-            surfaceCodeString = fieldIterator.next();
-            fieldIterator.next(); // markings
-            fieldIterator.next(); // shoulder type
-            fieldIterator.next(); // helipad smoothness
-            fieldIterator.next(); // runway edge lightning
+            designation = scanner.next();
+            latitude = scanner.nextDouble() * Units.DEG;
+            longitude = scanner.nextDouble() * Units.DEG;
+            heading = scanner.nextFloat();
+            length = scanner.nextFloat() * Units.M;
+            width = scanner.nextFloat() * Units.M;
+            surfaceCode = scanner.nextInt();
+            scanner.skip(); // markings
+            scanner.skip(); // shoulder type
+            scanner.skip(); // helipad smoothness
+            scanner.skip(); // runway edge lightning
 
         } catch (NoSuchElementException e) {
             throw new NavDataStreamException("Missing field in runway definition", e);
-        }
-
-        final double latitude, longitude;
-        final float heading;
-        final float length, width;
-        final SurfaceType surfaceType;
-        try {
-            latitude = Double.parseDouble(latString) * Units.DEG;
-            longitude = Double.parseDouble(lonString) * Units.DEG;
-            surfaceType = getSurfaceType(Integer.parseInt(surfaceCodeString));
-            heading = Float.parseFloat(headingString);
-            length = Float.parseFloat(lengthString) * Units.M;
-            ;
-            width = Float.parseFloat(widthString) * Units.M;
         } catch (NumberFormatException e) {
             throw new NavDataStreamException("Non-numeric value in numeric field", e);
         }
+        final SurfaceType surfaceType = getSurfaceType(surfaceCode);
         final Point2D center = new Point2D.Double(longitude, latitude);
 
         return new Helipad(surfaceType, length, width, center, heading, designation);
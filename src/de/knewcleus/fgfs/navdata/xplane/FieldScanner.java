@@ -0,0 +1,308 @@
+/**
+ * Copyright (C) 2016 OpenRadar contributors
+ *
+ * This file is part of OpenRadar.
+ *
+ * OpenRadar is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * OpenRadar is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * OpenRadar. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Diese Datei ist Teil von OpenRadar.
+ *
+ * OpenRadar ist Freie Software: Sie können es unter den Bedingungen der GNU
+ * General Public License, wie von der Free Software Foundation, Version 3 der
+ * Lizenz oder (nach Ihrer Option) jeder späteren veröffentlichten Version,
+ * weiterverbreiten und/oder modifizieren.
+ *
+ * OpenRadar wird in der Hoffnung, dass es nützlich sein wird, aber OHNE JEDE
+ * GEWÄHRLEISTUNG, bereitgestellt; sogar ohne die implizite Gewährleistung der
+ * MARKTFÄHIGKEIT oder EIGNUNG FÜR EINEN BESTIMMTEN ZWECK. Siehe die GNU General
+ * Public License für weitere Details.
+ *
+ * Sie sollten eine Kopie der GNU General Public License zusammen mit diesem
+ * Programm erhalten haben. Wenn nicht, siehe <http://www.gnu.org/licenses/>.
+ */
+package de.knewcleus.fgfs.navdata.xplane;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Splits the lines of X-Plane data files into whitespace separated fields, working on the bytes of the file.
+ *
+ * Unlike the {@link FieldIterator} no string is created for a line or a field unless the caller asks for one, the
+ * numeric fields are parsed directly from the bytes. The data is given as a sequence of buffers, a line never spans
+ * two of them.
+ */
+public class FieldScanner {
+    private static final double[] POWERS_OF_TEN = { 1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11, 1e12,
+            1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22 };
+    private static final float[] FLOAT_POWERS_OF_TEN = { 1e0f, 1e1f, 1e2f, 1e3f, 1e4f, 1e5f, 1e6f, 1e7f, 1e8f, 1e9f, 1e10f };
+
+    protected final ByteBuffer[] segments;
+    protected final Charset charset;
+    protected int segmentIndex = 0;
+    protected ByteBuffer segment;
+    protected int lineStart = 0, lineEnd = 0;
+    protected int position = 0;
+    protected byte[] scratch = new byte[64];
+
+    public FieldScanner(List<ByteBuffer> segments) {
+        this(segments.toArray(new ByteBuffer[segments.size()]), Charset.defaultCharset());
+    }
+
+    public FieldScanner(ByteBuffer[] segments, Charset charset) {
+        this.segments = segments;
+        this.charset = charset;
+        segment = segments.length > 0 ? segments[0] : ByteBuffer.allocate(0);
+        lineStart = lineEnd = position = segment.position();
+    }
+
+    /**
+     * Moves to the next line containing at least one field.
+     *
+     * @return false at the end of the data
+     */
+    public boolean nextLine() {
+        while (true) {
+            int start = lineEnd;
+            final int limit = segment.limit();
+            if (start < limit && segment.get(start) == '\n') {
+                start++;
+            } else if (start >= limit) {
+                if (segmentIndex + 1 >= segments.length) {
+                    lineStart = lineEnd = position = limit;
+                    return false;
+                }
+                segment = segments[++segmentIndex];
+                start = segment.position();
+            }
+            int end = start;
+            while (end < segment.limit() && segment.get(end) != '\n') {
+                end++;
+            }
+            lineStart = start;
+            lineEnd = end;
+            position = skipWhitespace(start);
+            if (position < lineEnd) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Moves back to the first field of the current line.
+     */
+    public void reset() {
+        position = skipWhitespace(lineStart);
+    }
+
+    public boolean hasNext() {
+        return position < lineEnd;
+    }
+
+    public String next() throws NoSuchElementException {
+        final int end = fieldEnd();
+        final String field = decode(position, end);
+        position = skipWhitespace(end);
+        return field;
+    }
+
+    public void skip() throws NoSuchElementException {
+        position = skipWhitespace(fieldEnd());
+    }
+
+    public void skip(int count) throws NoSuchElementException {
+        for (int i = 0; i < count; i++) {
+            skip();
+        }
+    }
+
+    /**
+     * Consumes the next field and compares it with the given ASCII text.
+     */
+    public boolean nextEquals(String text) throws NoSuchElementException {
+        final int end = fieldEnd();
+        boolean equal = end - position == text.length();
+        for (int i = 0; equal && i < text.length(); i++) {
+            equal = segment.get(position + i) == text.charAt(i);
+        }
+        position = skipWhitespace(end);
+        return equal;
+    }
+
+    /**
+     * Compares the next field with the given ASCII text without consuming it.
+     */
+    public boolean peekEquals(String text) {
+        final int start = position;
+        final boolean equal = hasNext() && nextEquals(text);
+        position = start;
+        return equal;
+    }
+
+    public int nextInt() throws NoSuchElementException, NumberFormatException {
+        final int end = fieldEnd();
+        int i = position;
+        final boolean negative = segment.get(i) == '-';
+        if (negative || segment.get(i) == '+') {
+            i++;
+        }
+        long value = 0;
+        if (i == end || end - i > 9) {
+            // empty or possibly out of range, let the JDK decide
+            return Integer.parseInt(next());
+        }
+        for (; i < end; i++) {
+            final int digit = segment.get(i) - '0';
+            if (digit < 0 || digit > 9) {
+                throw new NumberFormatException("For input string: \"" + decode(position, end) + "\"");
+            }
+            value = value * 10 + digit;
+        }
+        position = skipWhitespace(end);
+        return (int) (negative ? -value : value);
+    }
+
+    public double nextDouble() throws NoSuchElementException, NumberFormatException {
+        final int end = fieldEnd();
+        final long decimal = parseDecimal(position, end);
+        if (decimal != INEXACT) {
+            final long mantissa = decimal >> 8;
+            final int exponent = (byte) decimal;
+            if (exponent >= -22) {
+                // both operands are exact, so the single rounding step gives the same result as Double.parseDouble
+                position = skipWhitespace(end);
+                return mantissa / POWERS_OF_TEN[-exponent];
+            }
+        }
+        return Double.parseDouble(next());
+    }
+
+    public float nextFloat() throws NoSuchElementException, NumberFormatException {
+        final int end = fieldEnd();
+        final long decimal = parseDecimal(position, end);
+        if (decimal != INEXACT) {
+            final long mantissa = decimal >> 8;
+            final int exponent = (byte) decimal;
+            if (Math.abs(mantissa) < (1L << 24) && exponent >= -10) {
+                position = skipWhitespace(end);
+                return mantissa / FLOAT_POWERS_OF_TEN[-exponent];
+            }
+        }
+        return Float.parseFloat(next());
+    }
+
+    private static final long INEXACT = Long.MIN_VALUE;
+
+    /**
+     * Parses a plain decimal number of up to 15 digits into its integer mantissa (upper bits) and the negative count
+     * of its fraction digits (lowest byte).
+     *
+     * @return {@link #INEXACT} if the field has to be parsed by the JDK, because of its length or its notation
+     */
+    private long parseDecimal(int start, int end) {
+        int i = start;
+        final boolean negative = segment.get(i) == '-';
+        if (negative || segment.get(i) == '+') {
+            i++;
+        }
+        long mantissa = 0;
+        int digits = 0, exponent = 0;
+        boolean point = false, anyDigit = false;
+        for (; i < end; i++) {
+            final byte b = segment.get(i);
+            if (b >= '0' && b <= '9') {
+                anyDigit = true;
+                if (mantissa != 0 || b != '0') {
+                    if (++digits > 15) {
+                        return INEXACT;
+                    }
+                }
+                mantissa = mantissa * 10 + (b - '0');
+                if (point) {
+                    exponent--;
+                }
+            } else if (b == '.' && !point) {
+                point = true;
+            } else {
+                // exponents, special values and malformed fields
+                return INEXACT;
+            }
+        }
+        if (!anyDigit || exponent < -100 || negative && mantissa == 0) {
+            // negative zero is left to the JDK as well
+            return INEXACT;
+        }
+        return ((negative ? -mantissa : mantissa) << 8) | (exponent & 0xFF);
+    }
+
+    /**
+     * Returns the rest of the current line, starting at the next field.
+     */
+    public String restOfLine() {
+        int end = lineEnd;
+        if (end > position && segment.get(end - 1) == '\r') {
+            end--;
+        }
+        final String rest = decode(position, end);
+        position = lineEnd;
+        return rest;
+    }
+
+    /**
+     * Returns the complete current line, for error messages and records that are parsed elsewhere.
+     */
+    public String getLine() {
+        int end = lineEnd;
+        if (end > lineStart && segment.get(end - 1) == '\r') {
+            end--;
+        }
+        return decode(lineStart, end);
+    }
+
+    protected int fieldEnd() throws NoSuchElementException {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        int i = position;
+        while (i < lineEnd && !isWhitespace(segment.get(i))) {
+            i++;
+        }
+        return i;
+    }
+
+    protected int skipWhitespace(int start) {
+        int i = start;
+        while (i < lineEnd && isWhitespace(segment.get(i))) {
+            i++;
+        }
+        return i;
+    }
+
+    protected static boolean isWhitespace(byte b) {
+        return b == ' ' || b == '\t' || b == '\r' || b == '\f' || b == 0x0B || (b >= 0x1C && b <= 0x1F);
+    }
+
+    protected String decode(int start, int end) {
+        final int length = end - start;
+        if (scratch.length < length) {
+            scratch = Arrays.copyOf(scratch, Math.max(length, scratch.length * 2));
+        }
+        for (int i = 0; i < length; i++) {
+            scratch[i] = segment.get(start + i);
+        }
+        return new String(scratch, 0, length, charset);
+    }
+}
@@ -33,9 +33,6 @@
 package de.knewcleus.fgfs.navdata.xplane;
 
 import java.awt.geom.Point2D;
-import java.io.BufferedReader;
-import java.io.IOException;
-import java.io.Reader;
 import java.util.NoSuchElementException;
 
 import de.knewcleus.fgfs.Units;
@@ -54,63 +51,39 @@ import de.knewcleus.fgfs.navdata.model.INavDataStream;
  *
  */
 public class FixDatStream implements INavDataStream<IIntersection> {
-	protected final BufferedReader bufferedReader;
+	protected final FieldScanner scanner;
 	
-	public FixDatStream(Reader reader) throws IOException {
-		this(new BufferedReader(reader));
-	}
-	
-	public FixDatStream(BufferedReader bufferedReader) throws IOException {
-		this.bufferedReader = bufferedReader;
+	public FixDatStream(FieldScanner scanner) {
+		this.scanner = scanner;
 		// Skip the line-ending-marker (I/A)
-		bufferedReader.readLine();
+		scanner.nextLine();
 		// Skip the copyright-line
-		bufferedReader.readLine();
+		scanner.nextLine();
 	}
 	
 	@Override
 	public IIntersection readDatum() throws NavDataStreamException {
-		IIntersection record = null;
-		do {
-			String line;
-			try {
-				line = bufferedReader.readLine();
-			} catch (IOException e1) {
-				throw new NavDataStreamException(e1);
-			}
-			if (line == null) {
-				/* End of file reached */
-				return null;
-			}
-			final FieldIterator fieldIterator = new FieldIterator(line);
-			if (!fieldIterator.hasNext()) {
-				/* Skip empty records */
-				continue;
-			}
-			final String firstField = fieldIterator.next();
-			if (firstField.equals("99")) {
-				/* End-of-file marker */
-				return null;
-			}
-			record = parseRecord(new FieldIterator(line));
-		} while (record==null);
-		return record;
+		/* Empty records are skipped by the scanner */
+		if (!scanner.nextLine()) {
+			/* End of file reached */
+			return null;
+		}
+		if (scanner.peekEquals("99")) {
+			/* End-of-file marker */
+			return null;
+		}
+		return parseRecord(scanner);
 	}
 	
-	protected IIntersection parseRecord(FieldIterator fieldIterator) throws NavDataStreamException {
-		final String latString, lonString;
+	protected IIntersection parseRecord(FieldScanner scanner) throws NavDataStreamException {
+		final double lat, lon;
 		final String identification;
 		try {
-			latString = fieldIterator.next();
-			lonString = fieldIterator.next();
-			identification = fieldIterator.next();
+			lat = scanner.nextDouble() * Units.DEG;
+			lon = scanner.nextDouble() * Units.DEG;
+			identification = scanner.next();
 		} catch (NoSuchElementException e) {
 			throw new NavDataStreamException(e);
-		}
-		final double lat, lon;
-		try {
-			lat = Double.parseDouble(latString) * Units.DEG;
-			lon = Double.parseDouble(lonString) * Units.DEG;
 		} catch (NumberFormatException e) {
 			throw new NavDataStreamException(e);
 		}
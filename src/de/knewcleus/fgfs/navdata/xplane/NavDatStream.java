@@ -33,9 +33,6 @@
 package de.knewcleus.fgfs.navdata.xplane;
 
 import java.awt.geom.Point2D;
-import java.io.BufferedReader;
-import java.io.IOException;
-import java.io.Reader;
 import java.util.NoSuchElementException;
 
 import de.knewcleus.fgfs.Units;
@@ -67,107 +64,84 @@ import de.knewcleus.fgfs.navdata.model.IVOR;
  *
  */
 public class NavDatStream implements INavDataStream<INavPoint> {
-	protected final BufferedReader bufferedReader;
+	protected final FieldScanner scanner;
 	
-	public NavDatStream(Reader reader) throws IOException {
-		this(new BufferedReader(reader));
-	}
-	
-	public NavDatStream(BufferedReader bufferedReader) throws IOException {
-		this.bufferedReader = bufferedReader;
+	public NavDatStream(FieldScanner scanner) {
+		this.scanner = scanner;
 		// Skip the line-ending-marker (I/A)
-		bufferedReader.readLine();
+		scanner.nextLine();
 		// Skip the copyright-line
-		bufferedReader.readLine();
+		scanner.nextLine();
 	}
 	
 	@Override
 	public INavPoint readDatum() throws NavDataStreamException {
 		INavPoint record = null;
 		do {
-			String line;
-			try {
-				line = bufferedReader.readLine();
-			} catch (IOException e1) {
-				throw new NavDataStreamException(e1);
-			}
-			if (line == null) {
+			/* Empty records are skipped by the scanner */
+			if (!scanner.nextLine()) {
 				/* End of file reached */
 				return null;
 			}
-			final FieldIterator fieldIterator = new FieldIterator(line);
-			if (!fieldIterator.hasNext()) {
-				/* Skip empty records */
-				continue;
-			}
-			final String recordTypeString = fieldIterator.next();
 			final int recordType;
 			try {
-				recordType = Integer.parseInt(recordTypeString);
+				recordType = scanner.nextInt();
 			} catch (NumberFormatException e) {
-				throw new NavDataStreamException("Record type must be a number:'"+recordTypeString+"'", e);
+				throw new NavDataStreamException("Record type must be a number:'"+scanner.getLine()+"'", e);
 			}
 			if (recordType == 99) {
 				/* End-of-file marker */
 				return null;
 			}
-			record = parseRecord(recordType, fieldIterator);
+			record = parseRecord(recordType, scanner);
 		} while (record==null);
 		return record;
 	}
 	
-	protected INavPoint parseRecord(int recordType, FieldIterator fieldIterator)
+	protected INavPoint parseRecord(int recordType, FieldScanner scanner)
 		throws NavDataStreamException
 	{
 		switch (recordType) {
 		case 2:
-			return parseNDB(fieldIterator);
+			return parseNDB(scanner);
 		case 3:
-			return parseVOR(fieldIterator);
+			return parseVOR(scanner);
 		case 4:
 		case 5:
-			return parseLocalizer(fieldIterator);
+			return parseLocalizer(scanner);
 		case 6:
-			return parseGlideslope(fieldIterator);
+			return parseGlideslope(scanner);
 		case 7:
-			return parseMarkerBeacon(IMarkerBeacon.Type.Outer, fieldIterator);
+			return parseMarkerBeacon(IMarkerBeacon.Type.Outer, scanner);
 		case 8:
-			return parseMarkerBeacon(IMarkerBeacon.Type.Middle, fieldIterator);
+			return parseMarkerBeacon(IMarkerBeacon.Type.Middle, scanner);
 		case 9:
-			return parseMarkerBeacon(IMarkerBeacon.Type.Inner, fieldIterator);
+			return parseMarkerBeacon(IMarkerBeacon.Type.Inner, scanner);
 		case 12:
 		case 13:
-			return parseDME(fieldIterator);
+			return parseDME(scanner);
 		default:
 			return null;
 		}
 	}
 	
-	protected INDB parseNDB(FieldIterator fieldIterator) throws NavDataStreamException {
-		final String latString, lonString, elevString, freqString, rangeString;
+	protected INDB parseNDB(FieldScanner scanner) throws NavDataStreamException {
+		final double lat, lon;
+		final float elev, range;
+		final float freqKHz;
 		final String identification, name;
 		try {
-			latString = fieldIterator.next();
-			lonString = fieldIterator.next();
-			elevString = fieldIterator.next();
-			freqString = fieldIterator.next();
-			rangeString = fieldIterator.next();
+			lat = scanner.nextDouble() * Units.DEG;
+			lon = scanner.nextDouble() * Units.DEG;
+			elev = scanner.nextFloat()*Units.FT;
+			freqKHz = scanner.nextFloat();
+			range = scanner.nextFloat()*Units.NM;
 			// skip multi-purpose field
-			fieldIterator.next();
-			identification = fieldIterator.next();
-			name = fieldIterator.restOfLine();
+			scanner.skip();
+			identification = scanner.next();
+			name = scanner.restOfLine();
 		} catch (NoSuchElementException e) {
 			throw new NavDataStreamException(e);
-		}
-		final double lat, lon;
-		final float elev, range;
-		final float freqKHz;
-		try {
-			lat = Double.parseDouble(latString) * Units.DEG;
-			lon = Double.parseDouble(lonString) * Units.DEG;
-			elev = Float.parseFloat(elevString)*Units.FT;
-			range = Float.parseFloat(rangeString)*Units.NM;
-			freqKHz = Float.parseFloat(freqString);
 		} catch (NumberFormatException e) {
 			throw new NavDataStreamException(e);
 		}
@@ -176,31 +150,22 @@ public class NavDatStream implements INavDataStream<INavPoint> {
 		return new NDB(geographicPosition, elev, identification, name, frequency, range);
 	}
 	
-	protected IVOR parseVOR(FieldIterator fieldIterator) throws NavDataStreamException {
-		final String latString, lonString, elevString, freqString, rangeString, varString;
-		final String identification, name;
-		try {
-			latString = fieldIterator.next();
-			lonString = fieldIterator.next();
-			elevString = fieldIterator.next();
-			freqString = fieldIterator.next();
-			rangeString = fieldIterator.next();
-			varString = fieldIterator.next();
-			identification = fieldIterator.next();
-			name = fieldIterator.restOfLine();
-		} catch (NoSuchElementException e) {
-			throw new NavDataStreamException(e);
-		}
+	protected IVOR parseVOR(FieldScanner scanner) throws NavDataStreamException {
 		final double lat, lon;
 		final float elev, range, variation;
 		final float freqMHz;
+		final String identification, name;
 		try {
-			lat = Double.parseDouble(latString) * Units.DEG;
-			lon = Double.parseDouble(lonString) * Units.DEG;
-			elev = Float.parseFloat(elevString)*Units.FT;
-			range = Float.parseFloat(rangeString)*Units.NM;
-			variation = Float.parseFloat(varString)*Units.DEG;
-			freqMHz = Float.parseFloat(freqString) / 100.0f;
+			lat = scanner.nextDouble() * Units.DEG;
+			lon = scanner.nextDouble() * Units.DEG;
+			elev = scanner.nextFloat()*Units.FT;
+			freqMHz = scanner.nextFloat() / 100.0f;
+			range = scanner.nextFloat()*Units.NM;
+			variation = scanner.nextFloat()*Units.DEG;
+			identification = scanner.next();
+			name = scanner.restOfLine();
+		} catch (NoSuchElementException e) {
+			throw new NavDataStreamException(e);
 		} catch (NumberFormatException e) {
 			throw new NavDataStreamException(e);
 		}
@@ -209,34 +174,25 @@ public class NavDatStream implements INavDataStream<INavPoint> {
 		return new VOR(geographicPosition, elev, identification, name, frequency, range, variation);
 	}
 	
-	protected ILocalizer parseLocalizer(FieldIterator fieldIterator) throws NavDataStreamException {
-		final String latString, lonString, elevString, freqString, rangeString, trueHeadingString;
+	protected ILocalizer parseLocalizer(FieldScanner scanner) throws NavDataStreamException {
+		final double lat, lon;
+		final float elev, range, trueHeading;
+		final float freqMHz;
 		final String identification, airportID, runwayID;
 		try {
-			latString = fieldIterator.next();
-			lonString = fieldIterator.next();
-			elevString = fieldIterator.next();
-			freqString = fieldIterator.next();
-			rangeString = fieldIterator.next();
-			trueHeadingString = fieldIterator.next();
-			identification = fieldIterator.next();
-			airportID = fieldIterator.next();
-			runwayID = fieldIterator.next();
+			lat = scanner.nextDouble() * Units.DEG;
+			lon = scanner.nextDouble() * Units.DEG;
+			elev = scanner.nextFloat()*Units.FT;
+			freqMHz = scanner.nextFloat() / 100.0f;
+			range = scanner.nextFloat()*Units.NM;
+			trueHeading = scanner.nextFloat()*Units.DEG;
+			identification = scanner.next();
+			airportID = scanner.next();
+			runwayID = scanner.next();
 			// skip component type
-			fieldIterator.next();
+			scanner.skip();
 		} catch (NoSuchElementException e) {
 			throw new NavDataStreamException(e);
-		}
-		final double lat, lon;
-		final float elev, range, trueHeading;
-		final float freqMHz;
-		try {
-			lat = Double.parseDouble(latString) * Units.DEG;
-			lon = Double.parseDouble(lonString) * Units.DEG;
-			elev = Float.parseFloat(elevString)*Units.FT;
-			range = Float.parseFloat(rangeString)*Units.NM;
-			trueHeading = Float.parseFloat(trueHeadingString)*Units.DEG;
-			freqMHz = Float.parseFloat(freqString) / 100.0f;
 		} catch (NumberFormatException e) {
 			throw new NavDataStreamException(e);
 		}
@@ -245,34 +201,26 @@ public class NavDatStream implements INavDataStream<INavPoint> {
 		return new Localizer(geographicPosition, elev, identification, frequency, range, airportID, runwayID, trueHeading);
 	}
 	
-	protected IGlideslope parseGlideslope(FieldIterator fieldIterator) throws NavDataStreamException {
-		final String latString, lonString, elevString, freqString, rangeString, glideslopeAngleString;
+	protected IGlideslope parseGlideslope(FieldScanner scanner) throws NavDataStreamException {
+		final double lat, lon;
+		final float elev, range, glideslopeAngle;
+		final float freqMHz;
 		final String identification, airportID, runwayID;
 		try {
-			latString = fieldIterator.next();
-			lonString = fieldIterator.next();
-			elevString = fieldIterator.next();
-			freqString = fieldIterator.next();
-			rangeString = fieldIterator.next();
-			glideslopeAngleString = fieldIterator.next();
-			identification = fieldIterator.next();
-			airportID = fieldIterator.next();
-			runwayID = fieldIterator.next();
+			lat = scanner.nextDouble() * Units.DEG;
+			lon = scanner.nextDouble() * Units.DEG;
+			elev = scanner.nextFloat()*Units.FT;
+			freqMHz = scanner.nextFloat() / 100.0f;
+			range = scanner.nextFloat()*Units.NM;
+			// the angle is coded in the first three digits of the combined angle and heading field
+			glideslopeAngle = Integer.parseInt(scanner.next().substring(0, 3))*0.01f*Units.DEG;
+			identification = scanner.next();
+			airportID = scanner.next();
+			runwayID = scanner.next();
 			// skip component type
-			fieldIterator.next();
+			scanner.skip();
 		} catch (NoSuchElementException e) {
 			throw new NavDataStreamException(e);
-		}
-		final double lat, lon;
-		final float elev, range, glideslopeAngle;
-		final float freqMHz;
-		try {
-			lat = Double.parseDouble(latString) * Units.DEG;
-			lon = Double.parseDouble(lonString) * Units.DEG;
-			elev = Float.parseFloat(elevString)*Units.FT;
-			range = Float.parseFloat(rangeString)*Units.NM;
-			glideslopeAngle = Integer.parseInt(glideslopeAngleString.substring(0, 3))*0.01f*Units.DEG;
-			freqMHz = Float.parseFloat(freqString) / 100.0f;
 		} catch (NumberFormatException e) {
 			throw new NavDataStreamException(e);
 		}
@@ -281,35 +229,23 @@ public class NavDatStream implements INavDataStream<INavPoint> {
 		return new Glideslope(geographicPosition, elev, identification, frequency, range, airportID, runwayID, glideslopeAngle);
 	}
 	
-	protected IMarkerBeacon parseMarkerBeacon(IMarkerBeacon.Type type, FieldIterator fieldIterator) throws NavDataStreamException {
-		final String latString, lonString, elevString;
+	protected IMarkerBeacon parseMarkerBeacon(IMarkerBeacon.Type type, FieldScanner scanner) throws NavDataStreamException {
+		final double lat, lon;
+		final float elev;
 		final String airportID, runwayID;
 		try {
-			latString = fieldIterator.next();
-			lonString = fieldIterator.next();
-			elevString = fieldIterator.next();
-			// skip frequency
-			fieldIterator.next();
-			// skip range
-			fieldIterator.next();
-			// skip multipurpose field
-			fieldIterator.next();
-			// skip identification
-			fieldIterator.next();
+			lat = scanner.nextDouble() * Units.DEG;
+			lon = scanner.nextDouble() * Units.DEG;
+			elev = scanner.nextFloat()*Units.FT;
+			// skip frequency, range, multipurpose field and identification
+			scanner.skip(4);
 			
-			airportID = fieldIterator.next();
-			runwayID = fieldIterator.next();
+			airportID = scanner.next();
+			runwayID = scanner.next();
 			// skip component type
-			fieldIterator.next();
+			scanner.skip();
 		} catch (NoSuchElementException e) {
-			throw new NavDataStreamException(fieldIterator.getLine(),e);
-		}
-		final double lat, lon;
-		final float elev;
-		try {
-			lat = Double.parseDouble(latString) * Units.DEG;
-			lon = Double.parseDouble(lonString) * Units.DEG;
-			elev = Float.parseFloat(elevString)*Units.FT;
+			throw new NavDataStreamException(scanner.getLine(),e);
 		} catch (NumberFormatException e) {
 			throw new NavDataStreamException(e);
 		}
@@ -317,31 +253,22 @@ public class NavDatStream implements INavDataStream<INavPoint> {
 		return new MarkerBeacon(geographicPosition, elev, type, airportID, runwayID);
 	}
 	
-	protected IDME parseDME(FieldIterator fieldIterator) throws NavDataStreamException {
-		final String latString, lonString, elevString, freqString, rangeString, biasString;
-		final String identification, name;
-		try {
-			latString = fieldIterator.next();
-			lonString = fieldIterator.next();
-			elevString = fieldIterator.next();
-			freqString = fieldIterator.next();
-			rangeString = fieldIterator.next();
-			biasString = fieldIterator.next();
-			identification = fieldIterator.next();
-			name = fieldIterator.restOfLine();
-		} catch (NoSuchElementException e) {
-			throw new NavDataStreamException(e);
-		}
+	protected IDME parseDME(FieldScanner scanner) throws NavDataStreamException {
 		final double lat, lon;
 		final float elev, range, bias;
 		final float freqMHz;
+		final String identification, name;
 		try {
-			lat = Double.parseDouble(latString) * Units.DEG;
-			lon = Double.parseDouble(lonString) * Units.DEG;
-			elev = Float.parseFloat(elevString)*Units.FT;
-			range = Float.parseFloat(rangeString)*Units.NM;
-			bias = Float.parseFloat(biasString)*Units.NM;
-			freqMHz = Float.parseFloat(freqString) / 100.0f;
+			lat = scanner.nextDouble() * Units.DEG;
+			lon = scanner.nextDouble() * Units.DEG;
+			elev = scanner.nextFloat()*Units.FT;
+			freqMHz = scanner.nextFloat() / 100.0f;
+			range = scanner.nextFloat()*Units.NM;
+			bias = scanner.nextFloat()*Units.NM;
+			identification = scanner.next();
+			name = scanner.restOfLine();
+		} catch (NoSuchElementException e) {
+			throw new NavDataStreamException(e);
 		} catch (NumberFormatException e) {
 			throw new NavDataStreamException(e);
 		}
@@ -0,0 +1,343 @@
+/**
+ * Copyright (C) 2016 OpenRadar contributors
+ *
+ * This file is part of OpenRadar.
+ *
+ * OpenRadar is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * OpenRadar is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * OpenRadar. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Diese Datei ist Teil von OpenRadar.
+ *
+ * OpenRadar ist Freie Software: Sie können es unter den Bedingungen der GNU
+ * General Public License, wie von der Free Software Foundation, Version 3 der
+ * Lizenz oder (nach Ihrer Option) jeder späteren veröffentlichten Version,
+ * weiterverbreiten und/oder modifizieren.
+ *
+ * OpenRadar wird in der Hoffnung, dass es nützlich sein wird, aber OHNE JEDE
+ * GEWÄHRLEISTUNG, bereitgestellt; sogar ohne die implizite Gewährleistung der
+ * MARKTFÄHIGKEIT oder EIGNUNG FÜR EINEN BESTIMMTEN ZWECK. Siehe die GNU General
+ * Public License für weitere Details.
+ *
+ * Sie sollten eine Kopie der GNU General Public License zusammen mit diesem
+ * Programm erhalten haben. Wenn nicht, siehe <http://www.gnu.org/licenses/>.
+ */
+package de.knewcleus.fgfs.navdata.xplane;
+
+import java.awt.geom.Point2D;
+import java.awt.geom.Rectangle2D;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.log4j.LogManager;
+import org.apache.log4j.Logger;
+
+import de.knewcleus.fgfs.Units;
+
+/**
+ * A memory mapped index of the X-Plane apt.dat, earth_nav.dat and earth_fix.dat files contained in AptNav.zip.
+ *
+ * The records of each file are bucketed into 1°x1° tiles, so a sector only reads the records of the tiles it
+ * overlaps. The records are stored as their original text, the scanners returned by {@link #openAptDat(Rectangle2D)},
+ * {@link #openNavDat(Rectangle2D)} and {@link #openFixDat(Rectangle2D)} feed them to the usual stream parsers. An
+ * additional hash table maps the codes of the land airports to their name and position for the airport search.
+ *
+ * The index is compiled by {@link NavDataIndexCompiler} whenever AptNav.zip is newer than the index.
+ */
+public class NavDataIndex {
+    public static final int MAGIC = 0x4F524E49; // "ORNI"
+    public static final int VERSION = 1;
+
+    public static final int LON_TILES = 360;
+    public static final int LAT_TILES = 180;
+    public static final int TILE_COUNT = LON_TILES * LAT_TILES;
+
+    public static final int APT = 0;
+    public static final int NAV = 1;
+    public static final int FIX = 2;
+    protected static final int SECTION_COUNT = 3;
+
+    /** the size of the fixed header: magic, version, length and modification time of the source file */
+    protected static final int HEADER_SIZE = 24;
+
+    private static final Logger log = LogManager.getLogger(NavDataIndex.class);
+
+    private static NavDataIndex instance = null;
+    private static File instanceSource = null;
+
+    protected final ByteBuffer buffer;
+    protected final int[] sectionHeaderStart = new int[SECTION_COUNT];
+    protected final int[] sectionHeaderLength = new int[SECTION_COUNT];
+    protected final int[] tileTableStart = new int[SECTION_COUNT];
+    protected final int[] dataStart = new int[SECTION_COUNT];
+    protected final int airportCount;
+    protected final int slotCount;
+    protected final int slotStart;
+    protected final int entryOffsetStart;
+    protected final int entryStart;
+
+    /**
+     * Returns the index of the given AptNav.zip, compiling it first if it is missing or outdated.
+     */
+    public static synchronized NavDataIndex getInstance(File sourceZip) throws IOException {
+        if (instance == null || !sourceZip.equals(instanceSource)) {
+            instance = open(sourceZip);
+            instanceSource = sourceZip;
+        }
+        return instance;
+    }
+
+    public static File getIndexFile(File sourceZip) {
+        String name = sourceZip.getName();
+        int dot = name.lastIndexOf('.');
+        return new File(sourceZip.getParentFile(), (dot > 0 ? name.substring(0, dot) : name) + ".idx");
+    }
+
+    protected static NavDataIndex open(File sourceZip) throws IOException {
+        File indexFile = getIndexFile(sourceZip);
+        if (!isCurrent(indexFile, sourceZip)) {
+            try {
+                NavDataIndexCompiler.compile(sourceZip, indexFile);
+            } catch (IOException e) {
+                // the data directory may be read only, keep the index for this session only
+                log.warn("Could not write navdata index " + indexFile + ": " + e.getMessage());
+                indexFile = File.createTempFile("AptNav", ".idx");
+                indexFile.deleteOnExit();
+                NavDataIndexCompiler.compile(sourceZip, indexFile);
+            }
+        }
+        RandomAccessFile file = new RandomAccessFile(indexFile, "r");
+        try {
+            // the mapping stays valid after the channel has been closed
+            return new NavDataIndex(file.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, file.length()));
+        } finally {
+            file.close();
+        }
+    }
+
+    protected static boolean isCurrent(File indexFile, File sourceZip) {
+        if (!indexFile.exists()) {
+            return false;
+        }
+        DataInputStream in = null;
+        try {
+            in = new DataInputStream(new FileInputStream(indexFile));
+            return in.readInt() == MAGIC && in.readInt() == VERSION && in.readLong() == sourceZip.length() && in.readLong() == sourceZip.lastModified();
+        } catch (IOException e) {
+            return false;
+        } finally {
+            if (in != null) {
+                try {
+                    in.close();
+                } catch (IOException e) {
+                }
+            }
+        }
+    }
+
+    protected NavDataIndex(ByteBuffer buffer) throws IOException {
+        this.buffer = buffer;
+        if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+            throw new IOException("Not a navdata index of version " + VERSION);
+        }
+        int position = HEADER_SIZE;
+        for (int section = 0; section < SECTION_COUNT; section++) {
+            sectionHeaderLength[section] = buffer.getInt(position);
+            sectionHeaderStart[section] = position + 4;
+            tileTableStart[section] = sectionHeaderStart[section] + sectionHeaderLength[section];
+            dataStart[section] = tileTableStart[section] + (TILE_COUNT + 1) * 4;
+            position = dataStart[section] + getTileStart(section, TILE_COUNT);
+        }
+        airportCount = buffer.getInt(position);
+        slotCount = buffer.getInt(position + 4);
+        slotStart = position + 8;
+        entryOffsetStart = slotStart + slotCount * 4;
+        entryStart = entryOffsetStart + airportCount * 4;
+    }
+
+    protected int getTileStart(int section, int tile) {
+        return buffer.getInt(tileTableStart[section] + tile * 4);
+    }
+
+    public FieldScanner openAptDat(Rectangle2D bounds) {
+        // the records are bucketed by their first runway, which lies within a tile of the airport reference point
+        return openSection(APT, bounds, 1);
+    }
+
+    public FieldScanner openNavDat(Rectangle2D bounds) {
+        return openSection(NAV, bounds, 0);
+    }
+
+    public FieldScanner openFixDat(Rectangle2D bounds) {
+        return openSection(FIX, bounds, 0);
+    }
+
+    /**
+     * Returns a scanner over the section header and the records of all tiles touched by the bounds (given in radians,
+     * like the geographic positions of the nav data) followed by the end of file marker. The scanner works on the
+     * mapped index, the records are not copied.
+     */
+    protected FieldScanner openSection(int section, Rectangle2D bounds, int margin) {
+        List<ByteBuffer> segments = new ArrayList<ByteBuffer>();
+        segments.add(slice(sectionHeaderStart[section], sectionHeaderLength[section]));
+
+        int minLatTile = Math.max(0, getLatTile(bounds.getMinY() / Units.DEG) - margin);
+        int maxLatTile = Math.min(LAT_TILES - 1, getLatTile(bounds.getMaxY() / Units.DEG) + margin);
+        int minLonTile = (int) Math.floor(bounds.getMinX() / Units.DEG + 180) - margin;
+        int maxLonTile = (int) Math.floor(bounds.getMaxX() / Units.DEG + 180) + margin;
+        if (maxLonTile - minLonTile >= LON_TILES) {
+            minLonTile = 0;
+            maxLonTile = LON_TILES - 1;
+        }
+        for (int latTile = minLatTile; latTile <= maxLatTile; latTile++) {
+            // the tiles of a row are stored one after the other, so each run of tiles is a single range
+            int runStart = -1, runEnd = -1;
+            for (int lonTile = minLonTile; lonTile <= maxLonTile; lonTile++) {
+                int tile = latTile * LON_TILES + ((lonTile % LON_TILES) + LON_TILES) % LON_TILES;
+                int start = getTileStart(section, tile);
+                int end = getTileStart(section, tile + 1);
+                if (start != runEnd) {
+                    addRange(segments, section, runStart, runEnd);
+                    runStart = start;
+                }
+                runEnd = end;
+            }
+            addRange(segments, section, runStart, runEnd);
+        }
+        segments.add(ByteBuffer.wrap("99\n".getBytes(Charset.forName("ISO-8859-1"))));
+        return new FieldScanner(segments);
+    }
+
+    private void addRange(List<ByteBuffer> segments, int section, int start, int end) {
+        if (start >= 0 && end > start) {
+            segments.add(slice(dataStart[section] + start, end - start));
+        }
+    }
+
+    protected ByteBuffer slice(int start, int length) {
+        ByteBuffer slice = buffer.duplicate();
+        slice.position(start);
+        slice.limit(start + length);
+        return slice.slice();
+    }
+
+    public static int getLatTile(double latitude) {
+        return Math.max(0, Math.min(LAT_TILES - 1, (int) Math.floor(latitude + 90)));
+    }
+
+    public static int getLonTile(double longitude) {
+        return Math.max(0, Math.min(LON_TILES - 1, (int) Math.floor(longitude + 180)));
+    }
+
+    /**
+     * Returns the tile of the given position in degrees.
+     */
+    public static int getTile(double longitude, double latitude) {
+        return getLatTile(latitude) * LON_TILES + getLonTile(longitude);
+    }
+
+    public int getAirportCount() {
+        return airportCount;
+    }
+
+    /**
+     * Looks up a land airport by its code, ignoring the case.
+     *
+     * @return the airport or null if there is no land airport with a runway of this code
+     */
+    public AirportEntry findAirport(String code) {
+        if (slotCount == 0) {
+            return null;
+        }
+        String key = code.toUpperCase();
+        int slot = getSlot(key, slotCount);
+        int entry;
+        while ((entry = buffer.getInt(slotStart + slot * 4)) >= 0) {
+            AirportEntry airport = readAirport(entry);
+            if (airport.getCode().toUpperCase().equals(key)) {
+                return airport;
+            }
+            slot = (slot + 1) & (slotCount - 1);
+        }
+        return null;
+    }
+
+    /**
+     * Returns all land airports whose code or name contains the search term, ignoring the case.
+     */
+    public List<AirportEntry> searchAirports(String searchTerm) {
+        String term = searchTerm.toUpperCase();
+        List<AirportEntry> result = new ArrayList<AirportEntry>();
+        for (int entry = 0; entry < airportCount; entry++) {
+            AirportEntry airport = readAirport(entry);
+            if (airport.getCode().toUpperCase().contains(term) || airport.getName().toUpperCase().contains(term)) {
+                result.add(airport);
+            }
+        }
+        return result;
+    }
+
+    protected AirportEntry readAirport(int entry) {
+        ByteBuffer in = buffer.duplicate();
+        in.position(entryStart + buffer.getInt(entryOffsetStart + entry * 4));
+        float longitude = in.getFloat();
+        float latitude = in.getFloat();
+        String code = readString(in);
+        String name = readString(in);
+        return new AirportEntry(code, name, new Point2D.Float(longitude, latitude));
+    }
+
+    private static String readString(ByteBuffer in) {
+        byte[] bytes = new byte[in.getShort() & 0xFFFF];
+        in.get(bytes);
+        return new String(bytes, Charset.forName("UTF-8"));
+    }
+
+    protected static int getSlot(String upperCaseCode, int slotCount) {
+        int hash = upperCaseCode.hashCode();
+        return (hash ^ (hash >>> 16)) & (slotCount - 1);
+    }
+
+    /**
+     * A land airport of the index, positioned at its first runway (longitude and latitude in degrees).
+     */
+    public static class AirportEntry {
+        private final String code;
+        private final String name;
+        private final Point2D position;
+
+        public AirportEntry(String code, String name, Point2D position) {
+            this.code = code;
+            this.name = name;
+            this.position = position;
+        }
+
+        public String getCode() {
+            return code;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public Point2D getPosition() {
+            return position;
+        }
+    }
+}
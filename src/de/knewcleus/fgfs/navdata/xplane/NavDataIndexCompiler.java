@@ -0,0 +1,414 @@
+/**
+ * Copyright (C) 2016 OpenRadar contributors
+ *
+ * This file is part of OpenRadar.
+ *
+ * OpenRadar is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * OpenRadar is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * OpenRadar. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Diese Datei ist Teil von OpenRadar.
+ *
+ * OpenRadar ist Freie Software: Sie können es unter den Bedingungen der GNU
+ * General Public License, wie von der Free Software Foundation, Version 3 der
+ * Lizenz oder (nach Ihrer Option) jeder späteren veröffentlichten Version,
+ * weiterverbreiten und/oder modifizieren.
+ *
+ * OpenRadar wird in der Hoffnung, dass es nützlich sein wird, aber OHNE JEDE
+ * GEWÄHRLEISTUNG, bereitgestellt; sogar ohne die implizite Gewährleistung der
+ * MARKTFÄHIGKEIT oder EIGNUNG FÜR EINEN BESTIMMTEN ZWECK. Siehe die GNU General
+ * Public License für weitere Details.
+ *
+ * Sie sollten eine Kopie der GNU General Public License zusammen mit diesem
+ * Programm erhalten haben. Wenn nicht, siehe <http://www.gnu.org/licenses/>.
+ */
+package de.knewcleus.fgfs.navdata.xplane;
+
+import java.awt.geom.Point2D;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.StringTokenizer;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import org.apache.log4j.LogManager;
+import org.apache.log4j.Logger;
+
+import de.knewcleus.fgfs.navdata.xplane.NavDataIndex.AirportEntry;
+
+/**
+ * Compiles the X-Plane data files of AptNav.zip into a {@link NavDataIndex}.
+ *
+ * Each file is streamed once. The records are spilled into a temporary file together with their tile and are then
+ * copied tile by tile into the index, so the compiler does not need to hold the world data in memory.
+ *
+ * Usage: NavDataIndexCompiler [AptNav.zip [AptNav.idx]]
+ */
+public class NavDataIndexCompiler {
+    // the lines are copied as they are, ISO-8859-1 maps each byte to one char and back
+    protected static final Charset RAW = Charset.forName("ISO-8859-1");
+
+    private static final Logger log = LogManager.getLogger(NavDataIndexCompiler.class);
+
+    public static void main(String[] args) throws IOException {
+        File sourceZip = new File(args.length > 0 ? args[0] : "data/AptNav.zip");
+        File indexFile = args.length > 1 ? new File(args[1]) : NavDataIndex.getIndexFile(sourceZip);
+        compile(sourceZip, indexFile);
+    }
+
+    public static void compile(File sourceZip, File indexFile) throws IOException {
+        final long startTime = System.currentTimeMillis();
+        final File tempFile = new File(indexFile.getPath() + ".tmp");
+        final List<AirportEntry> airports = new ArrayList<AirportEntry>();
+
+        ZipFile zif = new ZipFile(sourceZip);
+        try {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile), 1 << 16));
+            try {
+                out.writeInt(NavDataIndex.MAGIC);
+                out.writeInt(NavDataIndex.VERSION);
+                out.writeLong(sourceZip.length());
+                out.writeLong(sourceZip.lastModified());
+                writeSection(out, openEntry(zif, "apt.dat"), NavDataIndex.APT, airports);
+                writeSection(out, openEntry(zif, "earth_nav.dat"), NavDataIndex.NAV, null);
+                writeSection(out, openEntry(zif, "earth_fix.dat"), NavDataIndex.FIX, null);
+                writeAirportDirectory(out, airports);
+            } finally {
+                out.close();
+            }
+        } catch (IOException e) {
+            tempFile.delete();
+            throw e;
+        } finally {
+            zif.close();
+        }
+        if (indexFile.exists() && !indexFile.delete() || !tempFile.renameTo(indexFile)) {
+            tempFile.delete();
+            throw new IOException("Cannot replace " + indexFile);
+        }
+        log.info("Compiled navdata index " + indexFile + " (" + airports.size() + " airports) in " + (System.currentTimeMillis() - startTime) + " ms.");
+    }
+
+    private static BufferedReader openEntry(ZipFile zif, String name) throws IOException {
+        ZipEntry zipentry = zif.getEntry(name);
+        if (zipentry == null) {
+            throw new IOException(name + " not found in " + zif.getName() + "!");
+        }
+        return new BufferedReader(new InputStreamReader(zif.getInputStream(zipentry), RAW), 1 << 16);
+    }
+
+    /**
+     * Writes the header lines, the tile table and the records of one data file sorted by tile.
+     */
+    protected static void writeSection(DataOutputStream out, BufferedReader reader, int section, List<AirportEntry> airports) throws IOException {
+        final StringBuilder header = new StringBuilder();
+        // the line-ending-marker (I/A) and the copyright-line
+        for (int i = 0; i < 2; i++) {
+            String line = reader.readLine();
+            if (line != null) {
+                header.append(line).append('\n');
+            }
+        }
+
+        final File spillFile = File.createTempFile("navdata", ".spill");
+        try {
+            final RecordSpill spill = new RecordSpill(spillFile);
+            try {
+                if (section == NavDataIndex.APT) {
+                    spillAirports(reader, spill, airports);
+                } else {
+                    spillPoints(reader, spill, section == NavDataIndex.NAV ? 1 : 0);
+                }
+            } finally {
+                reader.close();
+                spill.close();
+            }
+
+            byte[] headerBytes = header.toString().getBytes(RAW);
+            out.writeInt(headerBytes.length);
+            out.write(headerBytes);
+            spill.writeSorted(out);
+        } finally {
+            spillFile.delete();
+        }
+    }
+
+    /**
+     * Spills one record per airport, starting with its header line and ending before the next one.
+     */
+    protected static void spillAirports(BufferedReader reader, RecordSpill spill, List<AirportEntry> airports) throws IOException {
+        final StringBuilder record = new StringBuilder();
+        int tile = -1;
+        String airportCode = null, airportName = null;
+        boolean listAirport = false;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            final StringTokenizer st = new StringTokenizer(line, " \t");
+            if (!st.hasMoreTokens()) {
+                continue;
+            }
+            final String recordCode = st.nextToken();
+            if (recordCode.equals("1") || recordCode.equals("16") || recordCode.equals("17") || recordCode.equals("99")) {
+                if (record.length() > 0 && tile >= 0) {
+                    spill.add(tile, record);
+                }
+                record.setLength(0);
+                tile = -1;
+                if (recordCode.equals("99")) {
+                    break;
+                }
+                // only land airports are offered by the airport search
+                listAirport = recordCode.equals("1") && st.countTokens() >= 4;
+                if (listAirport) {
+                    st.nextToken(); // elevation
+                    st.nextToken(); // tower
+                    st.nextToken(); // default buildings
+                    airportCode = st.nextToken();
+                    StringBuilder name = new StringBuilder();
+                    while (st.hasMoreTokens()) {
+                        if (name.length() > 0) {
+                            name.append(" ");
+                        }
+                        name.append(st.nextToken());
+                    }
+                    airportName = name.toString();
+                }
+            } else if (record.length() == 0) {
+                // lines outside of an airport
+                continue;
+            } else if (tile < 0) {
+                try {
+                    if (recordCode.equals("100")) {
+                        tile = getTile(line, 9);
+                        if (listAirport) {
+                            airports.add(new AirportEntry(airportCode, airportName, getRunwayPosition(line)));
+                            listAirport = false;
+                        }
+                    } else if (recordCode.equals("101")) {
+                        tile = getTile(line, 4);
+                    } else if (recordCode.equals("102")) {
+                        tile = getTile(line, 2);
+                    }
+                } catch (RuntimeException e) {
+                    // malformed line, the parser will complain about it
+                }
+            }
+            record.append(line).append('\n');
+        }
+        // airports without any landing surface have no position and are never within a sector
+    }
+
+    /**
+     * Spills one record per line, the position is found at the given field.
+     */
+    protected static void spillPoints(BufferedReader reader, RecordSpill spill, int latitudeField) throws IOException {
+        final StringBuilder record = new StringBuilder();
+        String line;
+        while ((line = reader.readLine()) != null) {
+            final StringTokenizer st = new StringTokenizer(line, " \t");
+            if (!st.hasMoreTokens()) {
+                continue;
+            }
+            if (st.nextToken().equals("99")) {
+                break;
+            }
+            int tile;
+            try {
+                tile = getTile(line, latitudeField);
+            } catch (RuntimeException e) {
+                continue;
+            }
+            record.setLength(0);
+            record.append(line).append('\n');
+            spill.add(tile, record);
+        }
+    }
+
+    /**
+     * Returns the tile of the position given by the latitude field and the longitude field following it.
+     */
+    protected static int getTile(String line, int latitudeField) {
+        final StringTokenizer st = new StringTokenizer(line, " \t");
+        for (int i = 0; i < latitudeField; i++) {
+            st.nextToken();
+        }
+        final double latitude = Double.parseDouble(st.nextToken());
+        final double longitude = Double.parseDouble(st.nextToken());
+        return NavDataIndex.getTile(longitude, latitude);
+    }
+
+    /**
+     * Returns the center of the runway (or its first end) in degrees, like the airport search has always done.
+     */
+    protected static Point2D getRunwayPosition(String line) {
+        final StringTokenizer st = new StringTokenizer(line, " \t");
+        for (int i = 0; i < 9; i++) {
+            st.nextToken();
+        }
+        final float latA = Float.parseFloat(st.nextToken());
+        final float lonA = Float.parseFloat(st.nextToken());
+        try {
+            for (int i = 0; i < 7; i++) {
+                st.nextToken();
+            }
+            final float latB = Float.parseFloat(st.nextToken());
+            final float lonB = Float.parseFloat(st.nextToken());
+            return new Point2D.Float((lonA + lonB) / 2, (latA + latB) / 2);
+        } catch (RuntimeException e) {
+            // one way runway
+            return new Point2D.Float(lonA, latA);
+        }
+    }
+
+    /**
+     * Writes the airport entries and an open addressing hash table over their codes.
+     */
+    protected static void writeAirportDirectory(DataOutputStream out, List<AirportEntry> airports) throws IOException {
+        int slotCount = Integer.highestOneBit(Math.max(1, airports.size()) * 2) * 2;
+        final int[] slots = new int[slotCount];
+        Arrays.fill(slots, -1);
+        for (int i = 0; i < airports.size(); i++) {
+            int slot = NavDataIndex.getSlot(airports.get(i).getCode().toUpperCase(), slotCount);
+            while (slots[slot] >= 0) {
+                slot = (slot + 1) & (slotCount - 1);
+            }
+            slots[slot] = i;
+        }
+
+        final Charset utf8 = Charset.forName("UTF-8");
+        final List<byte[]> codes = new ArrayList<byte[]>(), names = new ArrayList<byte[]>();
+        out.writeInt(airports.size());
+        out.writeInt(slotCount);
+        for (int slot : slots) {
+            out.writeInt(slot);
+        }
+        int offset = 0;
+        for (AirportEntry airport : airports) {
+            // the names have been read as raw bytes, the index stores them decoded
+            byte[] code = truncate(new String(airport.getCode().getBytes(RAW)).getBytes(utf8));
+            byte[] name = truncate(new String(airport.getName().getBytes(RAW)).getBytes(utf8));
+            codes.add(code);
+            names.add(name);
+            out.writeInt(offset);
+            offset += 8 + 2 + code.length + 2 + name.length;
+        }
+        for (int i = 0; i < airports.size(); i++) {
+            final AirportEntry airport = airports.get(i);
+            out.writeFloat((float) airport.getPosition().getX());
+            out.writeFloat((float) airport.getPosition().getY());
+            out.writeShort(codes.get(i).length);
+            out.write(codes.get(i));
+            out.writeShort(names.get(i).length);
+            out.write(names.get(i));
+        }
+    }
+
+    private static byte[] truncate(byte[] bytes) {
+        return bytes.length > 0xFFFF ? Arrays.copyOf(bytes, 0xFFFF) : bytes;
+    }
+
+    /**
+     * The records of one section in file order, kept in a temporary file until they are sorted by tile.
+     */
+    protected static class RecordSpill {
+        private final File file;
+        private final DataOutputStream out;
+        private int[] tiles = new int[1024];
+        private long[] offsets = new long[1024];
+        private int[] lengths = new int[1024];
+        private int count = 0;
+        private long size = 0;
+
+        public RecordSpill(File file) throws IOException {
+            this.file = file;
+            this.out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), 1 << 16));
+        }
+
+        public void add(int tile, CharSequence record) throws IOException {
+            if (count == tiles.length) {
+                tiles = Arrays.copyOf(tiles, count * 2);
+                offsets = Arrays.copyOf(offsets, count * 2);
+                lengths = Arrays.copyOf(lengths, count * 2);
+            }
+            final byte[] bytes = record.toString().getBytes(RAW);
+            out.write(bytes);
+            tiles[count] = tile;
+            offsets[count] = size;
+            lengths[count] = bytes.length;
+            size += bytes.length;
+            count++;
+        }
+
+        public void close() throws IOException {
+            out.close();
+        }
+
+        /**
+         * Writes the tile table and the records ordered by tile, keeping the file order within a tile.
+         */
+        public void writeSorted(DataOutputStream target) throws IOException {
+            final int[] tileStart = new int[NavDataIndex.TILE_COUNT + 1];
+            for (int i = 0; i < count; i++) {
+                tileStart[tiles[i] + 1] += lengths[i];
+            }
+            for (int tile = 0; tile < NavDataIndex.TILE_COUNT; tile++) {
+                if ((long) tileStart[tile + 1] + tileStart[tile] > Integer.MAX_VALUE) {
+                    throw new IOException("Navdata section too large for the index");
+                }
+                tileStart[tile + 1] += tileStart[tile];
+            }
+            for (int start : tileStart) {
+                target.writeInt(start);
+            }
+
+            // counting sort of the records by tile
+            final int[] tileCount = new int[NavDataIndex.TILE_COUNT + 1];
+            for (int i = 0; i < count; i++) {
+                tileCount[tiles[i] + 1]++;
+            }
+            for (int tile = 0; tile < NavDataIndex.TILE_COUNT; tile++) {
+                tileCount[tile + 1] += tileCount[tile];
+            }
+            final int[] order = new int[count];
+            for (int i = 0; i < count; i++) {
+                order[tileCount[tiles[i]]++] = i;
+            }
+
+            final RandomAccessFile spill = new RandomAccessFile(file, "r");
+            try {
+                final ByteBuffer data = spill.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, size);
+                byte[] bytes = new byte[4096];
+                for (int i : order) {
+                    if (lengths[i] > bytes.length) {
+                        bytes = new byte[Math.max(lengths[i], bytes.length * 2)];
+                    }
+                    data.position((int) offsets[i]);
+                    data.get(bytes, 0, lengths[i]);
+                    target.write(bytes, 0, lengths[i]);
+                }
+            } finally {
+                spill.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,210 @@
+/**
+ * Copyright (C) 2016 OpenRadar contributors
+ *
+ * This file is part of OpenRadar.
+ *
+ * OpenRadar is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * OpenRadar is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * OpenRadar. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Diese Datei ist Teil von OpenRadar.
+ *
+ * OpenRadar ist Freie Software: Sie können es unter den Bedingungen der GNU
+ * General Public License, wie von der Free Software Foundation, Version 3 der
+ * Lizenz oder (nach Ihrer Option) jeder späteren veröffentlichten Version,
+ * weiterverbreiten und/oder modifizieren.
+ *
+ * OpenRadar wird in der Hoffnung, dass es nützlich sein wird, aber OHNE JEDE
+ * GEWÄHRLEISTUNG, bereitgestellt; sogar ohne die implizite Gewährleistung der
+ * MARKTFÄHIGKEIT oder EIGNUNG FÜR EINEN BESTIMMTEN ZWECK. Siehe die GNU General
+ * Public License für weitere Details.
+ *
+ * Sie sollten eine Kopie der GNU General Public License zusammen mit diesem
+ * Programm erhalten haben. Wenn nicht, siehe <http://www.gnu.org/licenses/>.
+ */
+package de.knewcleus.fgfs.util;
+
+import java.awt.geom.Rectangle2D;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * A static R-tree bulk loaded by the Sort-Tile-Recursive algorithm.
+ * 
+ * The entries are sorted into tiles once, the nodes are kept in flat arrays level by level,
+ * so the tree cannot be modified after construction. Queries report the entries whose bounds
+ * intersect the query rectangle to an {@link IOutputIterator}.
+ */
+public class PackedRTree<T> {
+	protected final static int NODE_CAPACITY = 16;
+
+	protected final Object[] entries;
+	protected final double[] entryBounds;
+	/**
+	 * The bounds of the nodes, per level from the leaves to the root, four values per node.
+	 * The children of node i at level l are the nodes (or entries for the leaves) i*16 to i*16+15 at level l-1.
+	 */
+	protected final List<double[]> levelBounds = new ArrayList<double[]>();
+
+	/**
+	 * @param items		the entries of the tree
+	 * @param bounds	the bounds of the entries, in the same order
+	 */
+	public PackedRTree(List<T> items, List<? extends Rectangle2D> bounds) {
+		if (items.size() != bounds.size()) {
+			throw new IllegalArgumentException("Got " + items.size() + " entries but " + bounds.size() + " bounds");
+		}
+		final int count = items.size();
+		final Integer[] order = sortTileRecursive(bounds);
+
+		entries = new Object[count];
+		entryBounds = new double[4 * count];
+		for (int i = 0; i < count; i++) {
+			final int index = order[i];
+			final Rectangle2D rectangle = bounds.get(index);
+			entries[i] = items.get(index);
+			entryBounds[4 * i] = rectangle.getMinX();
+			entryBounds[4 * i + 1] = rectangle.getMinY();
+			entryBounds[4 * i + 2] = rectangle.getMaxX();
+			entryBounds[4 * i + 3] = rectangle.getMaxY();
+		}
+
+		/* the nodes of the upper levels are packed sequentially, as consecutive nodes are already spatially close */
+		double[] childBounds = entryBounds;
+		int childCount = count;
+		do {
+			final int nodeCount = (childCount + NODE_CAPACITY - 1) / NODE_CAPACITY;
+			final double[] nodeBounds = new double[4 * nodeCount];
+			for (int node = 0; node < nodeCount; node++) {
+				double minX = Double.POSITIVE_INFINITY, minY = Double.POSITIVE_INFINITY;
+				double maxX = Double.NEGATIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY;
+				final int lastChild = Math.min(childCount, (node + 1) * NODE_CAPACITY);
+				for (int child = node * NODE_CAPACITY; child < lastChild; child++) {
+					minX = Math.min(minX, childBounds[4 * child]);
+					minY = Math.min(minY, childBounds[4 * child + 1]);
+					maxX = Math.max(maxX, childBounds[4 * child + 2]);
+					maxY = Math.max(maxY, childBounds[4 * child + 3]);
+				}
+				nodeBounds[4 * node] = minX;
+				nodeBounds[4 * node + 1] = minY;
+				nodeBounds[4 * node + 2] = maxX;
+				nodeBounds[4 * node + 3] = maxY;
+			}
+			levelBounds.add(nodeBounds);
+			childBounds = nodeBounds;
+			childCount = nodeCount;
+		} while (childCount > 1);
+	}
+
+	/**
+	 * @return the entry indices ordered into vertical slices by x, each slice ordered by y.
+	 */
+	protected static Integer[] sortTileRecursive(final List<? extends Rectangle2D> bounds) {
+		final int count = bounds.size();
+		final Integer[] order = new Integer[count];
+		for (int i = 0; i < count; i++) {
+			order[i] = i;
+		}
+		Arrays.sort(order, new Comparator<Integer>() {
+			@Override
+			public int compare(Integer a, Integer b) {
+				return Double.compare(bounds.get(a).getCenterX(), bounds.get(b).getCenterX());
+			}
+		});
+		final int leafCount = (count + NODE_CAPACITY - 1) / NODE_CAPACITY;
+		final int sliceCount = Math.max(1, (int) Math.ceil(Math.sqrt(leafCount)));
+		final int sliceSize = sliceCount * NODE_CAPACITY;
+		final Comparator<Integer> yComparator = new Comparator<Integer>() {
+			@Override
+			public int compare(Integer a, Integer b) {
+				return Double.compare(bounds.get(a).getCenterY(), bounds.get(b).getCenterY());
+			}
+		};
+		for (int start = 0; start < count; start += sliceSize) {
+			Arrays.sort(order, start, Math.min(count, start + sliceSize), yComparator);
+		}
+		return order;
+	}
+
+	public int size() {
+		return entries.length;
+	}
+
+	/**
+	 * Report all entries whose bounds intersect the given rectangle, until the iterator wants no more.
+	 */
+	public void query(Rectangle2D rectangle, IOutputIterator<T> iterator) {
+		if (entries.length == 0) {
+			return;
+		}
+		query(levelBounds.size() - 1, 0, rectangle.getMinX(), rectangle.getMinY(), rectangle.getMaxX(), rectangle.getMaxY(), iterator);
+	}
+
+	/**
+	 * @return the entries whose bounds intersect the given rectangle.
+	 */
+	public List<T> query(Rectangle2D rectangle) {
+		if (entries.length == 0) {
+			return Collections.emptyList();
+		}
+		final List<T> result = new ArrayList<T>();
+		query(rectangle, new IOutputIterator<T>() {
+			@Override
+			public boolean wantsNext() {
+				return true;
+			}
+
+			@Override
+			public void next(T v) {
+				result.add(v);
+			}
+		});
+		return result;
+	}
+
+	/**
+	 * @return <code>false</code> if the iterator does not want any more entries.
+	 */
+	@SuppressWarnings("unchecked")
+	protected boolean query(int level, int node, double minX, double minY, double maxX, double maxY, IOutputIterator<T> iterator) {
+		final double[] nodeBounds = levelBounds.get(level);
+		if (!intersects(nodeBounds, node, minX, minY, maxX, maxY)) {
+			return true;
+		}
+		final int firstChild = node * NODE_CAPACITY;
+		if (level == 0) {
+			final int lastChild = Math.min(entries.length, firstChild + NODE_CAPACITY);
+			for (int entry = firstChild; entry < lastChild; entry++) {
+				if (intersects(entryBounds, entry, minX, minY, maxX, maxY)) {
+					if (!iterator.wantsNext()) {
+						return false;
+					}
+					iterator.next((T) entries[entry]);
+				}
+			}
+		} else {
+			final int lastChild = Math.min(levelBounds.get(level - 1).length / 4, firstChild + NODE_CAPACITY);
+			for (int child = firstChild; child < lastChild; child++) {
+				if (!query(level - 1, child, minX, minY, maxX, maxY, iterator)) {
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+
+	protected static boolean intersects(double[] bounds, int index, double minX, double minY, double maxX, double maxY) {
+		return bounds[4 * index] <= maxX && bounds[4 * index + 2] >= minX && bounds[4 * index + 1] <= maxY && bounds[4 * index + 3] >= minY;
+	}
+}
@@ -38,6 +38,7 @@ import de.knewcleus.fgfs.Units;
 import de.knewcleus.fgfs.location.GeoUtil;
 import de.knewcleus.fgfs.location.Position;
 import de.knewcleus.fgfs.location.Vector3D;
+import de.knewcleus.fgfs.multiplayer.Player;
 import de.knewcleus.openradar.gui.GuiMasterController;
 import de.knewcleus.openradar.gui.flightplan.FlightPlanData;
 import de.knewcleus.openradar.gui.setup.AircraftCodeConverter;
@@ -269,8 +270,8 @@ public class GuiRadarContact {
     public synchronized String getAltitudeString(GuiMasterController master) {
         if(getElevationFt() > airportData.getTransitionAlt()) {
             // show flight level
-            int flAlt = 0;
-            if(null==getTranspAltitude() || getTranspAltitude()==-9999) {
+            int flAlt = player.getTranspAltitudeValue();
+            if(flAlt==Player.TRANSPONDER_UNAVAILABLE || flAlt==-9999) {
                 // data from MP Protocol => real alt
                 
                 /* This calculation is too simple to be correct. A better implementation would retrieve the metar, used by the contact,
@@ -282,7 +283,6 @@ public class GuiRadarContact {
                 return String.format("FL%03d", (Math.round(flAlt/100.0)));
             } else {
                 // data from transponder => pressure alt
-                flAlt = getTranspAltitude();
                 return String.format("FL%03d", (Math.round(flAlt/100.0)));
             }
         } else {
@@ -396,7 +396,8 @@ public class GuiRadarContact {
 
 
     public synchronized boolean isOnEmergency() {
-        return getTranspSquawkCode() != null && (7700 == getTranspSquawkCode() || 7600 == getTranspSquawkCode() || 7500 == getTranspSquawkCode());
+        int squawk = player.getTranspSquawkCodeValue();
+        return 7700 == squawk || 7600 == squawk || 7500 == squawk;
     }
 
     public synchronized double getAirSpeedD() {
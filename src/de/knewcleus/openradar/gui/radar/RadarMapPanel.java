@@ -28,6 +28,7 @@
  */
 package de.knewcleus.openradar.gui.radar;
 
+import java.awt.Color;
 import java.awt.Graphics;
 import java.awt.Graphics2D;
 import java.awt.Point;
@@ -35,15 +36,20 @@ import java.awt.geom.Point2D;
 import java.awt.geom.Rectangle2D;
 import java.io.File;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.util.Enumeration;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipFile;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
 
 import javax.swing.JComponent;
 import javax.swing.JOptionPane;
+import javax.swing.SwingUtilities;
 import javax.swing.ToolTipManager;
 
+import org.apache.log4j.LogManager;
+import org.apache.log4j.Logger;
+
 import de.knewcleus.fgfs.Units;
 import de.knewcleus.fgfs.geodata.GeodataException;
 import de.knewcleus.fgfs.geodata.shapefile.ZippedShapefileLayer;
@@ -58,6 +64,7 @@ import de.knewcleus.fgfs.navdata.model.INavDatum;
 import de.knewcleus.fgfs.navdata.model.INavPoint;
 import de.knewcleus.fgfs.navdata.xplane.AptDatStream1000;
 import de.knewcleus.fgfs.navdata.xplane.FixDatStream;
+import de.knewcleus.fgfs.navdata.xplane.NavDataIndex;
 import de.knewcleus.fgfs.navdata.xplane.NavDatStream;
 import de.knewcleus.fgfs.util.IOutputIterator;
 import de.knewcleus.openradar.gui.GuiMasterController;
@@ -72,6 +79,8 @@ import de.knewcleus.openradar.rpvd.ScaleMarkerView.Side;
 import de.knewcleus.openradar.view.ComponentCanvas;
 import de.knewcleus.openradar.view.IPickable;
 import de.knewcleus.openradar.view.LayeredRadarContactView;
+import de.knewcleus.openradar.view.CachedLayeredView;
+import de.knewcleus.openradar.view.IndexedLayeredView;
 import de.knewcleus.openradar.view.LayeredView;
 import de.knewcleus.openradar.view.MouseZoomListener;
 import de.knewcleus.openradar.view.SwingUpdateManager;
@@ -116,8 +125,6 @@ public class RadarMapPanel extends JComponent {
 
     private final SwingRadarDataAdapter radarAdapter = new SwingRadarDataAdapter();
 
-    private ZipFile zif = null;
-
     protected final Rectangle2D bounds;                // visible area (lon, lat, lon, lat)
 
     private volatile LayeredView rootView;
@@ -127,7 +134,18 @@ public class RadarMapPanel extends JComponent {
     // this view will contain the Fixes defined inline in the standard routes
     protected LayeredView addNavSymbolView;
 
-//    private static final Logger log = Logger.getLogger(SwingRadarDataAdapter.class);
+    private static final Logger log = LogManager.getLogger(RadarMapPanel.class);
+
+    /** number of threads reading the scenery layers and the groundnet during startup */
+    protected static final int loaderThreads = Integer.getInteger("de.knewcleus.openradar.loaderThreads", 2);
+
+    protected CachedLayeredView backgroundView;
+    // the scenery layers in stacking order, filled as they are loaded
+    private final GeodataView[] sceneryViews = new GeodataView[4];
+    private int pendingSceneryLayers = 0;
+    private boolean warningShapefileNotFound = false;
+    private SetupDialog setupDialog;
+    private volatile int setupProgress = 0;
 
     public RadarMapPanel(GuiMasterController guiInteractionManager) {
         final double width = 6.0 * Units.DEG;    // visible area (deg)
@@ -164,22 +182,21 @@ public class RadarMapPanel extends JComponent {
     public void setup(SetupDialog setupDialog)
             throws GeodataException, IOException, NavDataStreamException {
 
-        try {
-            AirportData data = master.getAirportData();
+        AirportData data = master.getAirportData();
 
-            radarAdapter.registerRecipient(master.getTrackManager());
+        radarAdapter.registerRecipient(master.getTrackManager());
 
-            // register view adapter with radar backend for Zooming per buttons and
-            // visibility check
-            GuiRadarBackend guiRadarBackend = master.getRadarBackend();
-            guiRadarBackend.setViewerAdapter(radarMapViewAdapter);
-            guiRadarBackend.setZoomLevel("SECTOR");
+        // register view adapter with radar backend for Zooming per buttons and
+        // visibility check
+        GuiRadarBackend guiRadarBackend = master.getRadarBackend();
+        guiRadarBackend.setViewerAdapter(radarMapViewAdapter);
+        guiRadarBackend.setZoomLevel("SECTOR");
 
-            this.setBackground(Palette.WATERMASS);
+        this.setBackground(Palette.WATERMASS);
 
-            /* Load the nav data */
-            // check if new or old data files should be used
-            boolean newFormat = new File(data.getAirportDir() + "v0_urban.zip").exists();
+        /* Load the nav data */
+        // check if new or old data files should be used
+        boolean newFormat = new File(data.getAirportDir() + "v0_urban.zip").exists();
 //            if (!newFormat) {
 //                log.warn("*************************************");
 //                log.warn("WARNING: You are using the old, deprecated scenery format for " + data.getAirportCode()
@@ -187,103 +204,63 @@ public class RadarMapPanel extends JComponent {
 //                log.warn("*************************************");
 //            }
 
-            final INavDatumFilter<INavDatum> spatialFilter = new SpatialFilter(bounds);
-            final NavDatumFilterChain<INavDatum> filter = new NavDatumFilterChain<INavDatum>(Kind.CONJUNCT);
-            filter.add(spatialFilter);
+        final INavDatumFilter<INavDatum> spatialFilter = new SpatialFilter(bounds);
+        final NavDatumFilterChain<INavDatum> filter = new NavDatumFilterChain<INavDatum>(Kind.CONJUNCT);
+        filter.add(spatialFilter);
 
-            final INavDataStream<INavPoint> airportStream;
-            airportStream = new FilteredNavDataStream<INavPoint>(openXPlaneAptDat(), filter);
+        final INavDataStream<INavPoint> airportStream;
+        airportStream = new FilteredNavDataStream<INavPoint>(openXPlaneAptDat(), filter);
 
-            final INavDataStream<IIntersection> fixDataStream;
-            fixDataStream = new FilteredNavDataStream<IIntersection>(openXPlaneFixDat(), filter);
+        final INavDataStream<IIntersection> fixDataStream;
+        fixDataStream = new FilteredNavDataStream<IIntersection>(openXPlaneFixDat(), filter);
 
-            final INavDataStream<INavPoint> navDataStream;
-            navDataStream = new FilteredNavDataStream<INavPoint>(openXPlaneNavDat(), filter);
+        final INavDataStream<INavPoint> navDataStream;
+        navDataStream = new FilteredNavDataStream<INavPoint>(openXPlaneNavDat(), filter);
 
-            /* Set up the views */
-            rootView = new LayeredView(radarMapViewAdapter);
-            rootView.setVisible(false);
-            radarMapViewAdapter.getUpdateManager().setRootView(rootView);
+        /* Set up the views */
+        rootView = new LayeredView(radarMapViewAdapter);
+        rootView.setVisible(false);
+        radarMapViewAdapter.getUpdateManager().setRootView(rootView);
 
-            boolean warningShapefileNotFound = false;
+        // the scenery layers are static, they are rasterized into cached tiles which are only blitted on repaints
+        backgroundView = new CachedLayeredView(radarMapViewAdapter);
+        rootView.pushView(backgroundView);
 
-            if (data.isLayerVisible("landmass")) {
-                try {
-                    setupDialog.setStatus(10, "Reading landmass layer...");
-                    ZippedShapefileLayer landmassLayer = new ZippedShapefileLayer(data.getAirportDir(),getDataPath(data.getAirportDir(), "v0_landmass", "v0_landmass"));
-                    final GeodataView landmassView = new GeodataView(master, radarMapViewAdapter, landmassLayer, "LANDMASS", bounds);
-                    landmassLayer.closeZipArchive();
-                    landmassView.setColor(Palette.LANDMASS);
-                    // landmassView.setFill(false);
-                    if (landmassView.hasContent()) {
-                        rootView.pushView(landmassView);
-                    } else {
-                        warningShapefileNotFound = true;
-                    }
-                } catch (Exception e) {
-                    // ignore layer
-                    System.err.println("Could not load landmass layer data. Hiding it...");
-                    // set better background color
-                    setBackground(Palette.LANDMASS);
-                }
-            } else {
-                // set better background color
-                setBackground(Palette.LANDMASS);
+        // the scenery layers do not depend on each other or on the nav data, so they are loaded in the background
+        // and show up one by one while the radar is already usable
+        final ExecutorService loader = Executors.newFixedThreadPool(loaderThreads, new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "OpenRadar - Scenery loader");
+                thread.setDaemon(true);
+                return thread;
             }
+        });
+
+        String airportDir = data.getAirportDir();
+        List<SceneryLayerLoader> sceneryLoaders = new ArrayList<SceneryLayerLoader>();
+        if (data.isLayerVisible("landmass")) {
+            sceneryLoaders.add(new SceneryLayerLoader(0, "landmass", "LANDMASS", getDataPath(airportDir, "v0_landmass", "v0_landmass"), Palette.LANDMASS, true, true));
+        } else {
+            // set better background color
+            setBackground(Palette.LANDMASS);
+        }
+        if (data.isLayerVisible("urban")) {
+            sceneryLoaders.add(new SceneryLayerLoader(1, "urban", "URBAN", getDataPath(airportDir, newFormat ? "v0_urban" : "cs_urban"), Palette.URBAN, true, true));
+        }
+        if (data.isLayerVisible("lake")) {
+            sceneryLoaders.add(new SceneryLayerLoader(2, "lake", "LAKE", getDataPath(airportDir, newFormat ? "v0_lake" : "cs_lake"), Palette.LAKE, true, false));
+        }
+        if (data.isLayerVisible("stream")) {
+            sceneryLoaders.add(new SceneryLayerLoader(3, "stream", "STREAM", getDataPath(airportDir, newFormat ? "osm_river":"v0_stream"), Palette.STREAM, false, true));
+        }
+        pendingSceneryLayers = sceneryLoaders.size();
+        setStatus(setupDialog, 10, "Loading " + pendingSceneryLayers + " scenery layers in background...");
+        for (SceneryLayerLoader sceneryLoader : sceneryLoaders) {
+            loader.execute(sceneryLoader);
+        }
 
-            if (data.isLayerVisible("urban")) {
-                try {
-                    setupDialog.setStatus(20, "Reading urban layer...");
-                    ZippedShapefileLayer urbanLayer = new ZippedShapefileLayer(data.getAirportDir(),getDataPath(data.getAirportDir(), newFormat ? "v0_urban" : "cs_urban"));
-                    final GeodataView urbanView = new GeodataView(master, radarMapViewAdapter, urbanLayer, "URBAN", bounds);
-                    urbanLayer.closeZipArchive();
-                    urbanView.setColor(Palette.URBAN);
-                    // landmassView.setFill(false);
-                    if (urbanView.hasContent()) {
-                        rootView.pushView(urbanView);
-                    } else {
-                        warningShapefileNotFound = true;
-                    }
-                } catch (Exception e) {
-                    // ignore layer
-                    System.err.println("Could not load urban layer data. Hiding it...");
-                }
-            }
-            if (data.isLayerVisible("lake")) {
-                try {
-                    setupDialog.setStatus(30, "Reading lake layer...");
-                    ZippedShapefileLayer lakeLayer = new ZippedShapefileLayer(data.getAirportDir(),getDataPath(data.getAirportDir(), newFormat ? "v0_lake" : "cs_lake"));
-                    final GeodataView lakeView = new GeodataView(master, radarMapViewAdapter, lakeLayer, "LAKE", bounds);
-                    lakeLayer.closeZipArchive();
-                    lakeView.setColor(Palette.LAKE);
-                    lakeView.setFill(true);
-                    if (lakeView.hasContent()) {
-                        rootView.pushView(lakeView);
-                    }
-                } catch (Exception e) {
-                    // ignore layer
-                    System.err.println("Could not load lake layer data. Hiding it...");
-                }
-            }
-            if (data.isLayerVisible("stream")) {
-                try {
-                    setupDialog.setStatus(40, "Reading stream layer...");
-                    ZippedShapefileLayer streamLayer = new ZippedShapefileLayer(data.getAirportDir(),getDataPath(data.getAirportDir(), newFormat ? "osm_river":"v0_stream"));
-                    final GeodataView streamView = new GeodataView(master, radarMapViewAdapter, streamLayer, "STREAM", bounds);
-                    streamLayer.closeZipArchive();
-                    streamView.setColor(Palette.STREAM);
-                    streamView.setFill(false);
-                    if (streamView.hasContent()) {
-                        rootView.pushView(streamView);
-                    } else {
-                        warningShapefileNotFound = true;
-                    }
-                } catch (Exception e) {
-                    // ignore layer
-                    System.err.println("Could not load stream layer data. Hiding it...");
-                }
-            }
-            // disabled because we use apt.dat (xplane) data now.
+        // disabled because we use apt.dat (xplane) data now.
 //            if (data.isLayerVisible("tarmac")) {
 //                setupDialog.setStatus(50, "Reading tarmac layer...");
 //                ZippedShapefileLayer tarmacLayer = new ZippedShapefileLayer(data.getAirportDir(),getDataPath(data.getAirportDir(), "apt_tarmac"));
@@ -305,114 +282,244 @@ public class RadarMapPanel extends JComponent {
 //            runwayView.setColor(Palette.RUNWAY);
 //            runwayView.setFill(true);
 
-            //            if (runwayView.hasContent()) {
+        //            if (runwayView.hasContent()) {
 //                //rootView.pushView(runwayView);
 //            } else {}
 //            
 //                //warningShapefileNotFound = true;
 //                // initiate emergeny runway painter
 ////          }
-                
-            // aiport runway and tarmac data
             
-            final LayeredView airportView = new LayeredView(radarMapViewAdapter);
-            final NavPointProvider navPointProvider = new NavPointProvider(radarMapViewAdapter, airportView, master);
-            navPointProvider.addNavPointListener(master.getAirportData());
-            rootView.pushView(airportView);
-            setupDialog.setStatus(70, "Reading airport data...");
-            navPointProvider.addViews(airportStream);
-
-            // initialize symbol layers
-            
-            if (data.isLayerVisible("groundnet")) {
-            	
-                final LayeredView layeredGroundnetView = new LayeredView(radarMapViewAdapter);
-                GroundnetReader groundnetReader = new GroundnetReader(data.getAirportCode());
-                for (TaxiWaySegment seg : groundnetReader.getTaxiWaySegments()) {
-                    layeredGroundnetView.pushView(new GroundnetView(radarMapViewAdapter, seg, master));
-                }
-                for (TaxiSign sign : groundnetReader.getTaxiSigns()) {
-                    layeredGroundnetView.pushView(new GroundnetView(radarMapViewAdapter, sign, master));
-                }
-                rootView.pushView(layeredGroundnetView);
+        // aiport runway and tarmac data
+        
+        final LayeredView airportView = new IndexedLayeredView(radarMapViewAdapter);
+        final NavPointProvider navPointProvider = new NavPointProvider(radarMapViewAdapter, airportView, master);
+        navPointProvider.addNavPointListener(master.getAirportData());
+        rootView.pushView(airportView);
+        setStatus(setupDialog, 70, "Reading airport data...");
+        long stageStart = System.currentTimeMillis();
+        navPointProvider.addViews(airportStream);
+        setStatus(setupDialog, 75, "Read airport data in " + (System.currentTimeMillis() - stageStart) + " ms.");
+
+        // initialize symbol layers
+        
+        if (data.isLayerVisible("groundnet")) {
+            // the layer takes its place in the stack now and is filled once the groundnet has been read
+            final LayeredView layeredGroundnetView = new IndexedLayeredView(radarMapViewAdapter);
+            rootView.pushView(layeredGroundnetView);
+            loader.execute(new GroundnetLoader(data.getAirportCode(), layeredGroundnetView));
+        }
+        // no more tasks, the loader threads terminate when the queued layers are done
+        loader.shutdown();
+        
+        // route view
+        
+        routeView = new LayeredView(radarMapViewAdapter);
+        rootView.pushView(routeView);
+
+        final ActiveAtcRangeView activeAtcRangeView = new ActiveAtcRangeView(radarMapViewAdapter, master);
+        rootView.pushView(activeAtcRangeView);
+
+        // navaids
+        
+        setStatus(setupDialog, 80, "Reading navaid data...");
+        stageStart = System.currentTimeMillis();
+        final LayeredView navSymbolView = new IndexedLayeredView(radarMapViewAdapter);
+        final NavPointProvider navPointProvider2 = new NavPointProvider(radarMapViewAdapter, navSymbolView, master);
+        navPointProvider2.addNavPointListener(data);
+        rootView.pushView(navSymbolView);
+
+        navPointProvider2.addViews(navDataStream);
+        setStatus(setupDialog, 85, "Read navaid data in " + (System.currentTimeMillis() - stageStart) + " ms.");
+
+        setStatus(setupDialog, 90, "Reading fixes data...");
+        stageStart = System.currentTimeMillis();
+        navPointProvider2.addViews(fixDataStream);
+        setStatus(setupDialog, 95, "Read fixes data in " + (System.currentTimeMillis() - stageStart) + " ms.");
+
+        // this view will contain the Fixes defined inline in the standard routes
+        addNavSymbolView = new IndexedLayeredView(radarMapViewAdapter);
+        rootView.pushView(addNavSymbolView);
+
+        // read here to have navaid data available
+        readStandardRouteData();
+
+        final LayeredView layeredAtcObjectsView = new LayeredView(radarMapViewAdapter);
+        layeredAtcObjectsView.pushView(new AtcObjectsView(radarMapViewAdapter, master));
+        rootView.pushView(layeredAtcObjectsView);
+
+        ScaleMarkerView southMarkerView = new ScaleMarkerView(radarMapViewAdapter, Side.SOUTH, Palette.WINDOW_BLUE);
+        rootView.pushView(southMarkerView);
+        ScaleMarkerView westMarkerView = new ScaleMarkerView(radarMapViewAdapter, Side.WEST, Palette.WINDOW_BLUE);
+        rootView.pushView(westMarkerView);
+
+        final ActiveAtcSymbolView activeAtcView = new ActiveAtcSymbolView(radarMapViewAdapter, master);
+        rootView.pushView(activeAtcView);
+
+        LayeredView targetView = new LayeredRadarContactView(radarMapViewAdapter);
+        // RadarTargetProvider radarTargetProvider = 
+        new RadarTargetProvider(radarMapViewAdapter, targetView, master.getTrackManager(), master);
+        rootView.pushView(targetView);
+
+        LayeredView glassPaneView = new LayeredView(radarMapViewAdapter);
+        glassPaneView.pushView(new StPView(radarMapViewAdapter, master));
+        rootView.pushView(glassPaneView);
+
+        this.addComponentListener(new ViewerCenteringListener(radarMapViewAdapter));
+        this.addMouseWheelListener(new MouseZoomListener(radarMapViewAdapter));
+        final MouseInteractionManager interactionManager = new MouseInteractionManager(rootView);
+        interactionManager.install(this);
+        final IFocusManager focusManager = new FocusManager();
+        final MouseFocusManager mouseFocusManager = new MouseFocusManager(master, focusManager, rootView, radarMapViewAdapter);
+        mouseFocusManager.install(this);
+
+        // check which airports in range have a metar
+        master.getMetarReader().retrieveWeatherStations(data.getNavaidDB().getAerodromes());
+
+        setStatus(setupDialog, 100, "Ready.");
+
+        ToolTipManager toolTipManager = ToolTipManager.sharedInstance();
+        toolTipManager.registerComponent(this);
+
+    }
+
+    private void setStatus(SetupDialog setupDialog, int progress, String message) {
+        this.setupDialog = setupDialog;
+        setupProgress = progress;
+        setupDialog.setStatus(progress, message);
+        log.info(message);
+    }
+
+    /**
+     * Adds a loaded scenery layer to the background, below the layers of higher rank loaded before. Called on the
+     * event dispatch thread.
+     */
+    private void publishSceneryLayer(int rank, GeodataView view) {
+        int index = 0;
+        for (int i = 0; i < rank; i++) {
+            if (sceneryViews[i] != null) {
+                index++;
             }
-            
-            // route view
-            
-            routeView = new LayeredView(radarMapViewAdapter);
-            rootView.pushView(routeView);
+        }
+        sceneryViews[rank] = view;
+        backgroundView.insertView(index, view);
+    }
 
-            final ActiveAtcRangeView activeAtcRangeView = new ActiveAtcRangeView(radarMapViewAdapter, master);
-            rootView.pushView(activeAtcRangeView);
+    /**
+     * Called on the event dispatch thread for each scenery layer, whether it could be loaded or not.
+     */
+    private void sceneryLayerDone(String message, boolean incomplete) {
+        warningShapefileNotFound |= incomplete;
+        setupDialog.setStatus(setupProgress, message);
+        log.info(message);
+
+        pendingSceneryLayers--;
+        if (pendingSceneryLayers == 0 && warningShapefileNotFound) {
+            JOptionPane.showMessageDialog(null,
+                    "At least one scenery file (shapefile) not found. The airport download seem to have failed.\n" +
+            		"You may delete the airport and download the shapefiles again! You may also visit the forum...\n" +
+                    "Anyway, OpenRadar will run without these background elements.",
+                    "Warning: Scenery incomplete", JOptionPane.WARNING_MESSAGE);
+        }
+    }
 
-            // navaids
-            
-            setupDialog.setStatus(80, "Reading navaid data...");
-            final LayeredView navSymbolView = new LayeredView(radarMapViewAdapter);
-            final NavPointProvider navPointProvider2 = new NavPointProvider(radarMapViewAdapter, navSymbolView, master);
-            navPointProvider2.addNavPointListener(data);
-            rootView.pushView(navSymbolView);
-
-            navPointProvider2.addViews(navDataStream);
-
-            setupDialog.setStatus(90, "Reading fixes data...");
-            navPointProvider2.addViews(fixDataStream);
-
-            // this view will contain the Fixes defined inline in the standard routes
-            addNavSymbolView = new LayeredView(radarMapViewAdapter);
-            rootView.pushView(addNavSymbolView);
-
-            // read here to have navaid data available
-            readStandardRouteData();
-
-            final LayeredView layeredAtcObjectsView = new LayeredView(radarMapViewAdapter);
-            layeredAtcObjectsView.pushView(new AtcObjectsView(radarMapViewAdapter, master));
-            rootView.pushView(layeredAtcObjectsView);
-
-            ScaleMarkerView southMarkerView = new ScaleMarkerView(radarMapViewAdapter, Side.SOUTH, Palette.WINDOW_BLUE);
-            rootView.pushView(southMarkerView);
-            ScaleMarkerView westMarkerView = new ScaleMarkerView(radarMapViewAdapter, Side.WEST, Palette.WINDOW_BLUE);
-            rootView.pushView(westMarkerView);
-
-            final ActiveAtcSymbolView activeAtcView = new ActiveAtcSymbolView(radarMapViewAdapter, master);
-            rootView.pushView(activeAtcView);
-
-            LayeredView targetView = new LayeredRadarContactView(radarMapViewAdapter);
-            // RadarTargetProvider radarTargetProvider = 
-            new RadarTargetProvider(radarMapViewAdapter, targetView, master.getTrackManager(), master);
-            rootView.pushView(targetView);
-
-            LayeredView glassPaneView = new LayeredView(radarMapViewAdapter);
-            glassPaneView.pushView(new StPView(radarMapViewAdapter, master));
-            rootView.pushView(glassPaneView);
-
-            this.addComponentListener(new ViewerCenteringListener(radarMapViewAdapter));
-            this.addMouseWheelListener(new MouseZoomListener(radarMapViewAdapter));
-            final MouseInteractionManager interactionManager = new MouseInteractionManager(rootView);
-            interactionManager.install(this);
-            final IFocusManager focusManager = new FocusManager();
-            final MouseFocusManager mouseFocusManager = new MouseFocusManager(master, focusManager, rootView, radarMapViewAdapter);
-            mouseFocusManager.install(this);
-
-            // check which airports in range have a metar
-            master.getMetarReader().retrieveWeatherStations(data.getNavaidDB().getAerodromes());
-
-            setupDialog.setStatus(100, "Ready.");
-
-            ToolTipManager toolTipManager = ToolTipManager.sharedInstance();
-            toolTipManager.registerComponent(this);
-
-            if (warningShapefileNotFound) {
-                JOptionPane.showMessageDialog(null,
-                        "At least one scenery file (shapefile) not found. The airport download seem to have failed.\n" +
-                		"You may delete the airport and download the shapefiles again! You may also visit the forum...\n" +
-                        "Anyway, OpenRadar will run without these background elements.",
-                        "Warning: Scenery incomplete", JOptionPane.WARNING_MESSAGE);
+    /**
+     * Reads one shapefile layer on a loader thread and hands the view over to the event dispatch thread.
+     */
+    private class SceneryLayerLoader implements Runnable {
+        private final int rank;
+        private final String name;
+        private final String layerCode;
+        private final String fileName;
+        private final Color color;
+        private final boolean fill;
+        private final boolean warnIfEmpty;
+
+        public SceneryLayerLoader(int rank, String name, String layerCode, String fileName, Color color, boolean fill, boolean warnIfEmpty) {
+            this.rank = rank;
+            this.name = name;
+            this.layerCode = layerCode;
+            this.fileName = fileName;
+            this.color = color;
+            this.fill = fill;
+            this.warnIfEmpty = warnIfEmpty;
+        }
+
+        @Override
+        public void run() {
+            final long startTime = System.currentTimeMillis();
+            GeodataView view = null;
+            Exception error = null;
+            try {
+                final Rectangle2D filterBounds = new Rectangle2D.Double(bounds.getX() / Units.DEG, bounds.getY() / Units.DEG,
+                        bounds.getWidth() / Units.DEG, bounds.getHeight() / Units.DEG);
+                ZippedShapefileLayer layer = new ZippedShapefileLayer(master.getAirportData().getAirportDir(), fileName, filterBounds);
+                view = new GeodataView(master, radarMapViewAdapter, layer, layerCode, bounds);
+                view.setColor(color);
+                view.setFill(fill);
+            } catch (Exception e) {
+                error = e;
             }
-        } finally {
-            closeFiles();
+            final GeodataView loadedView = view;
+            final Exception loadError = error;
+            final long duration = System.currentTimeMillis() - startTime;
+            SwingUtilities.invokeLater(new Runnable() {
+                @Override
+                public void run() {
+                    if (loadError != null) {
+                        // ignore layer
+                        System.err.println("Could not load " + name + " layer data. Hiding it...");
+                        if (rank == 0) {
+                            // set better background color
+                            setBackground(Palette.LANDMASS);
+                        }
+                        sceneryLayerDone("Failed to read " + name + " layer after " + duration + " ms.", false);
+                    } else if (loadedView.hasContent()) {
+                        // the view follows the map from now on, changes during the loading are applied here
+                        loadedView.install();
+                        publishSceneryLayer(rank, loadedView);
+                        sceneryLayerDone("Read " + name + " layer in " + duration + " ms.", false);
+                    } else {
+                        sceneryLayerDone("No " + name + " data found (" + duration + " ms).", warnIfEmpty);
+                    }
+                }
+            });
+        }
+    }
+
+    /**
+     * Reads the groundnet on a loader thread and fills the already stacked layer on the event dispatch thread.
+     */
+    private class GroundnetLoader implements Runnable {
+        private final String airportCode;
+        private final LayeredView layeredGroundnetView;
+
+        public GroundnetLoader(String airportCode, LayeredView layeredGroundnetView) {
+            this.airportCode = airportCode;
+            this.layeredGroundnetView = layeredGroundnetView;
         }
 
+        @Override
+        public void run() {
+            final long startTime = System.currentTimeMillis();
+            final GroundnetReader groundnetReader = new GroundnetReader(airportCode);
+            final long duration = System.currentTimeMillis() - startTime;
+            SwingUtilities.invokeLater(new Runnable() {
+                @Override
+                public void run() {
+                    // the views register at the map and must not receive its notifications before they are complete
+                    for (TaxiWaySegment seg : groundnetReader.getTaxiWaySegments()) {
+                        layeredGroundnetView.pushView(new GroundnetView(radarMapViewAdapter, seg, master));
+                    }
+                    for (TaxiSign sign : groundnetReader.getTaxiSigns()) {
+                        layeredGroundnetView.pushView(new GroundnetView(radarMapViewAdapter, sign, master));
+                    }
+                    String message = "Read groundnet in " + duration + " ms.";
+                    setupDialog.setStatus(setupProgress, message);
+                    log.info(message);
+                }
+            });
+        }
     }
 
     private String getDataPath(String airportDir, String... filenames ) {
@@ -429,44 +536,17 @@ public class RadarMapPanel extends JComponent {
         master.getRadarProvider().registerRecipient(radarAdapter);
     }
 
+    // the index only returns the records of the tiles touched by the sector, the spatial filter does the rest
     protected INavDataStream<INavPoint> openXPlaneAptDat() throws IOException {
-        final File inputFile = new File("data/AptNav.zip");
-        zif = new ZipFile(inputFile);
-        Enumeration<? extends ZipEntry> entries = zif.entries();
-        while (entries.hasMoreElements()) {
-            ZipEntry zipentry = entries.nextElement();
-            if (zipentry.getName().equals("apt.dat")) {
-                return new AptDatStream1000(master.getAirportData(),new InputStreamReader(zif.getInputStream(zipentry)), bounds);
-            }
-        }
-        throw new IllegalStateException("apt.dat not found in sectors/AtpNav.zip!");
+        return new AptDatStream1000(master.getAirportData(), NavDataIndex.getInstance(new File("data/AptNav.zip")).openAptDat(bounds), bounds);
     }
 
     protected INavDataStream<IIntersection> openXPlaneFixDat() throws IOException {
-        Enumeration<? extends ZipEntry> entries = zif.entries();
-        while (entries.hasMoreElements()) {
-            ZipEntry zipentry = entries.nextElement();
-            if (zipentry.getName().equals("earth_fix.dat")) {
-                return new FixDatStream(new InputStreamReader(zif.getInputStream(zipentry)));
-            }
-        }
-        throw new IllegalStateException("apt.dat not found in sectors/AtpNav.zip!");
+        return new FixDatStream(NavDataIndex.getInstance(new File("data/AptNav.zip")).openFixDat(bounds));
     }
 
     protected INavDataStream<INavPoint> openXPlaneNavDat() throws IOException {
-        Enumeration<? extends ZipEntry> entries = zif.entries();
-        while (entries.hasMoreElements()) {
-            ZipEntry zipentry = entries.nextElement();
-            if (zipentry.getName().equals("earth_nav.dat")) {
-                return new NavDatStream(new InputStreamReader(zif.getInputStream(zipentry)));
-            }
-        }
-        throw new IllegalStateException("apt.dat not found in sectors/AtpNav.zip!");
-    }
-
-    private void closeFiles() throws IOException {
-        if (zif != null)
-            zif.close();
+        return new NavDatStream(NavDataIndex.getInstance(new File("data/AptNav.zip")).openNavDat(bounds));
     }
 
     public void reReadStandardRoutes() {
@@ -33,28 +33,27 @@
 package de.knewcleus.openradar.gui.setup;
 
 import java.awt.geom.Point2D;
-import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
 import java.net.HttpURLConnection;
 import java.net.URL;
 import java.nio.file.FileSystems;
+import java.nio.file.FileVisitResult;
 import java.nio.file.Files;
 import java.nio.file.LinkOption;
 import java.nio.file.Path;
-import java.util.Enumeration;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.util.Properties;
-import java.util.StringTokenizer;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipFile;
 
 import javax.swing.JOptionPane;
 
 import org.apache.log4j.Logger;
 
+import de.knewcleus.fgfs.navdata.xplane.NavDataIndex;
+
 /**
  * This class bundles the code to find an airport location and download
  * airports.
@@ -73,77 +72,13 @@ public abstract class SectorCreator {
     private static final Logger log = Logger.getLogger(SectorCreator.class);
     
     public static Point2D findLocationOf(String searchTerm) {
-        ZipFile zif = null;;
-        BufferedReader ir = null;
-        Point2D position = null;
-        
         try {
-            final File inputFile = new File("data/AptNav.zip");
-            zif = new ZipFile(inputFile);
-            Enumeration<? extends ZipEntry> entries = zif.entries();
-            while (entries.hasMoreElements()) {
-                ZipEntry zipentry = entries.nextElement();
-                if (zipentry.getName().equals("apt.dat")) {
-                    ir = new BufferedReader(new InputStreamReader(zif.getInputStream(zipentry)));
-                    break;
-                }
-            } 
-            if(ir==null) return null;
-            
-            String line = ir.readLine();
-            while(line!=null) {
-                if(line.startsWith("1 ")) {
-                    StringTokenizer st = new StringTokenizer(line," \t");
-                    st.nextElement(); // code "1"
-                    st.nextElement(); //
-                    st.nextElement(); //
-                    st.nextElement(); //
-                    String airportCode = st.nextToken();
-                    StringBuilder name = new StringBuilder();
-                    while(st.hasMoreElements()) {
-                        if(name.length()>0) name.append(" ");
-                        name.append(st.nextToken());
-                    }
-                    if(airportCode.equalsIgnoreCase(searchTerm)) {
-                        
-                        // seach runway
-                        line = ir.readLine();
-                        while(line!=null) {
-                            if(line.startsWith("100 ")) {
-                                position = SetupController.getRunwayPosition(line);
-                                return position;
-                            }
-                            else if(line.startsWith("1 ")) {
-                                // next airport
-                                break;
-                            }
-                            // next line
-                            line = ir.readLine();
-                        }
-                    } else {
-                        // airport name did not match
-                        line = ir.readLine();
-                    }
-                }
-                if(!line.startsWith("1 ")) {
-                    line = ir.readLine();
-                }
-            }
+            NavDataIndex.AirportEntry airport = NavDataIndex.getInstance(new File("data/AptNav.zip")).findAirport(searchTerm);
+            return airport != null ? airport.getPosition() : null;
         } catch (IOException e) {
             log.error("Error while reading xplane aptdat file!",e);
-        } finally {
-            if(zif!=null) {
-                try {
-                    zif.close();
-                } catch (IOException e) { }
-            }
-            if(ir!=null) {
-                try {
-                    ir.close();
-                } catch (IOException e) {}
-            }
+            return null;
         }
-        return position;
     }
 
     public static void downloadData(AirportData data, SetupDialog setupDialog) throws IOException {
@@ -219,13 +154,23 @@ public abstract class SectorCreator {
         try {
             Path dirToDelete = FileSystems.getDefault().getPath("data" + File.separator + selectedSector.getAirportCode());
             if(Files.exists(dirToDelete,LinkOption.NOFOLLOW_LINKS)) {
-                File[] content = dirToDelete.toFile().listFiles();
-                if(content!=null) {
-                    for(File f : content) {
-                        f.delete();
+                // recursive, the airport dir contains the shape cache
+                Files.walkFileTree(dirToDelete, new SimpleFileVisitor<Path>() {
+                    @Override
+                    public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                        Files.delete(file);
+                        return FileVisitResult.CONTINUE;
                     }
-                }
-                Files.deleteIfExists(dirToDelete);
+
+                    @Override
+                    public FileVisitResult postVisitDirectory(Path dir, IOException e) throws IOException {
+                        if (e != null) {
+                            throw e;
+                        }
+                        Files.delete(dir);
+                        return FileVisitResult.CONTINUE;
+                    }
+                });
             }
         } catch(IOException e) {
             log.error("Error while deleting airport dir!", e);
@@ -39,18 +39,14 @@ import java.io.FileNotFoundException;
 import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.IOException;
-import java.io.InputStreamReader;
 import java.io.Reader;
 import java.math.BigDecimal;
-import java.util.Enumeration;
 import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
 import java.util.StringTokenizer;
 import java.util.TreeMap;
 import java.util.TreeSet;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipFile;
 
 import javax.swing.DefaultListModel;
 import javax.swing.JComponent;
@@ -63,6 +59,7 @@ import javax.swing.event.ListSelectionListener;
 import org.apache.log4j.LogManager;
 import org.apache.log4j.Logger;
 
+import de.knewcleus.fgfs.navdata.xplane.NavDataIndex;
 import de.knewcleus.fgfs.navdata.xplane.RawFrequency;
 import de.knewcleus.openradar.gui.GuiMasterController;
 import de.knewcleus.openradar.gui.setup.AirportData.FgComMode;
@@ -86,7 +83,6 @@ public class SetupController {
     private SectorListMouseListener sectorListMouseListener = new SectorListMouseListener();
     private Map<String, SectorBean> mapExistingSectors = new TreeMap<String, SectorBean>();
 
-    private ZipFile zif = null;;
     private static Reader fgcomPositionsFile = null; // new fgcom file
 
     private static Logger log = LogManager.getLogger(SetupController.class);
@@ -218,54 +214,17 @@ public class SetupController {
         }
         
         Map<String, SectorBean> mapFindings = new TreeMap<String, SectorBean>();
-        BufferedReader ir = null;
 
         try {
-            ir = new BufferedReader(openXPlaneAptDat());
-            String line = ir.readLine();
-            while (line != null) {
-                if (line.startsWith("1 ")) {
-                    StringTokenizer st = new StringTokenizer(line, " \t");
-                    st.nextElement(); // code "1"
-                    st.nextElement(); //
-                    st.nextElement(); //
-                    st.nextElement(); //
-                    String airportCode = st.nextToken();
-                    StringBuilder name = new StringBuilder();
-                    while (st.hasMoreElements()) {
-                        if (name.length() > 0)
-                            name.append(" ");
-                        name.append(st.nextToken());
-                    }
-                    if (airportCode.toUpperCase().contains(searchTerm.toUpperCase()) || name.toString().toUpperCase().contains(searchTerm.toUpperCase())) {
-
-                        // seach runway
-                        line = ir.readLine();
-                        while (line != null) {
-                            if (line.startsWith("100 ")) {
-                                Point2D position = getRunwayPosition(line);
-                                if (!mapExistingSectors.containsKey(airportCode)) {
-                                    // the base for a new download
-                                    SectorBean sb = new SectorBean(airportCode, name.toString(), position, mapExistingSectors.containsKey(airportCode));
-                                    mapFindings.put(airportCode, sb);
-                                } else {
-                                    // add the existing
-                                    mapFindings.put(airportCode, mapExistingSectors.get(airportCode));
-                                }
-                            } else if (line.startsWith("1 ")) {
-                                // next airport
-                                break;
-                            }
-                            // next line
-                            line = ir.readLine();
-                        }
-                    } else {
-                        // airport name did not match
-                        line = ir.readLine();
-                    }
-                }
-                if (line!=null && !line.startsWith("1 ")) {
-                    line = ir.readLine();
+            for (NavDataIndex.AirportEntry airport : NavDataIndex.getInstance(new File("data/AptNav.zip")).searchAirports(searchTerm)) {
+                String airportCode = airport.getCode();
+                if (!mapExistingSectors.containsKey(airportCode)) {
+                    // the base for a new download
+                    SectorBean sb = new SectorBean(airportCode, airport.getName(), airport.getPosition(), false);
+                    mapFindings.put(airportCode, sb);
+                } else {
+                    // add the existing
+                    mapFindings.put(airportCode, mapExistingSectors.get(airportCode));
                 }
             }
             searchResultsModel.clear();
@@ -275,60 +234,7 @@ public class SetupController {
 
         } catch (IOException e) {
             log.error("Error while reading xplane aptdat file!", e);
-        } finally {
-            if (zif != null) {
-                try {
-                    zif.close();
-                } catch (IOException e) {
-                }
-            }
-            if (ir != null) {
-                try {
-                    ir.close();
-                } catch (IOException e) {
-                }
-            }
         }
-
-    }
-
-    /**
-     * Parses the line and extracts the position
-     * 
-     * @param line
-     * @return
-     */
-    public static Point2D getRunwayPosition(String line) {
-        Point2D result;
-
-        StringTokenizer st = new StringTokenizer(line, " \t");
-        st.nextElement(); // 1 code "100"
-        st.nextElement(); // 2
-        st.nextElement(); // 3
-        st.nextElement(); // 4
-        st.nextElement(); // 5
-        st.nextElement(); // 6
-        st.nextElement(); // 7
-        st.nextElement(); // 8
-        st.nextElement(); // 9
-        float lon1 = Float.parseFloat(st.nextToken());
-        float lat1 = Float.parseFloat(st.nextToken());
-        try {
-            st.nextElement(); // 1
-            st.nextElement(); // 2
-            st.nextElement(); // 3
-            st.nextElement(); // 4
-            st.nextElement(); // 5
-            st.nextElement(); // 6
-            st.nextElement(); // 7
-            float lon2 = Float.parseFloat(st.nextToken());
-            float lat2 = Float.parseFloat(st.nextToken());
-            result = new Point2D.Float((lat1 + lat2) / 2, (lon1 + lon2) / 2);
-        } catch (Exception e) {
-            // one way runway
-            result = new Point2D.Float(lat1, lon1);
-        }
-        return result;
     }
 
     private void checkSettings() {
@@ -372,19 +278,6 @@ public class SetupController {
     	//log.info("startApplication: end");
     }
 
-    protected InputStreamReader openXPlaneAptDat() throws IOException {
-        final File inputFile = new File("data/AptNav.zip");
-        zif = new ZipFile(inputFile);
-        Enumeration<? extends ZipEntry> entries = zif.entries();
-        while (entries.hasMoreElements()) {
-            ZipEntry zipentry = entries.nextElement();
-            if (zipentry.getName().equals("apt.dat")) {
-                return new InputStreamReader(zif.getInputStream(zipentry));
-            }
-        }
-        throw new IllegalStateException("apt.dat not found in sectors/AtpNav.zip!");
-    }
-
     public static Properties loadSectorProperties(String airportCode) {
         Properties p = null;
         File propertyFile = new File("data" + File.separator + airportCode + File.separator + "sector.properties");
@@ -73,7 +73,6 @@ import org.apache.log4j.Logger;
 import de.knewcleus.openradar.gui.Palette;
 import de.knewcleus.openradar.gui.setup.AirportData.FgComMode;
 import de.knewcleus.openradar.rpvd.contact.ADatablockLayout;
-import de.knewcleus.openradar.view.map.GeometryToShapeProjector;
 
 /**
  * The setup dialog...
@@ -137,7 +136,6 @@ public class SetupDialog extends JFrame {
     private StatusMessageComboboxModel cbStatusModel;
 
     private JComboBox<ADatablockLayout> cbDataboxLayout;
-    private JCheckBox cbNiceShapes;
 
     private JCheckBox cbEnableAltRadioText;
     private JCheckBox cbEnableChatAliases;
@@ -967,17 +965,6 @@ public class SetupDialog extends JFrame {
         gridBagConstraints.insets = new java.awt.Insets(4, 4, 0, 4);
         jPnlDataBlockLayout.add(cbDataboxLayout, gridBagConstraints);
 
-        cbNiceShapes = new JCheckBox();
-        cbNiceShapes.setText("Enable detailed background shapes (Slower initial loading)");
-        gridBagConstraints = new java.awt.GridBagConstraints();
-        gridBagConstraints.gridx = 0;
-        gridBagConstraints.gridy = 1;
-        gridBagConstraints.gridwidth = 1;
-        gridBagConstraints.weightx = 1;
-        gridBagConstraints.anchor = GridBagConstraints.WEST;
-        gridBagConstraints.insets = new java.awt.Insets(4, 4, 0, 4);
-        jPnlTweaks.add(cbNiceShapes, gridBagConstraints);
-
         JPanel jPnlLayerInput = new JPanel();
         jPnlLayerInput.setLayout(new GridBagLayout());
         jPnlLayerInput.setBorder(new TitledBorder("Visible background layers"));
@@ -1492,7 +1479,6 @@ public class SetupDialog extends JFrame {
             data.setChatAliasPrefix(alias);
         }
 
-        data.setToggle(GeometryToShapeProjector.TOGGLE_STATE, cbNiceShapes.isSelected());
         Map<String, Boolean> visibleLayerMap = new HashMap<String, Boolean>();
         visibleLayerMap.put("landmass", cbLandmass.isSelected());
         visibleLayerMap.put("urban", cbUrban.isSelected());
@@ -1715,8 +1701,6 @@ public class SetupDialog extends JFrame {
                         cbDataboxLayout.setSelectedItem(setupManager.getDatablockLayoutManager().getActiveLayout());
                     }
                 }
-                cbNiceShapes.setSelected(!"false".equals(p.getProperty(GeometryToShapeProjector.TOGGLE_STATE)));
-
                 cbLandmass.setSelected(!"false".equals(p.getProperty("layer.landmass")));
                 cbUrban.setSelected(!"false".equals(p.getProperty("layer.urban")));
                 cbLake.setSelected(!"false".equals(p.getProperty("layer.lake")));
@@ -1772,8 +1756,6 @@ public class SetupDialog extends JFrame {
 
         p.put("radar.datablockLayout", ((ADatablockLayout) cbDataboxLayout.getSelectedItem()).getName());
 
-        p.put(GeometryToShapeProjector.TOGGLE_STATE, "" + cbNiceShapes.isSelected());
-
         p.put("layer.landmass", "" + cbLandmass.isSelected());
         p.put("layer.urban", "" + cbUrban.isSelected());
         p.put("layer.lake", "" + cbLake.isSelected());
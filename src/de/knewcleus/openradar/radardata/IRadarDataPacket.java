@@ -35,9 +35,6 @@ package de.knewcleus.openradar.radardata;
 
 import java.awt.geom.Point2D;
 
-import de.knewcleus.openradar.rpvd.contact.ContactShape;
-
-
 /**
  * Radar packets contain data about a target detected by surveillance radar.
  * 
@@ -69,6 +66,11 @@ public interface IRadarDataPacket {
 	 */
 	public abstract Point2D getPosition();
 	
+	/**
+	 * @return the altitude of the radar target as provided by the data source.
+	 */
+	public float getAltitude();
+	
 	/**
 	 * @return the tracking identifier.
 	 */
@@ -88,11 +90,6 @@ public interface IRadarDataPacket {
 	 * @return the calculated true course.
 	 */
 	public float getCalculatedTrueCourse();
-	
-	/**
-	 * Returns the contact shape for this radar echo
-	 */
-	public ContactShape getContactShape();
 
 	 
 }
@@ -62,5 +62,13 @@ public abstract class RadarDataProvider implements IRadarDataProvider {
 			recipient.acceptRadarData(this, data);
 		}
 	}
+	
+	protected void publishEndOfBatch() {
+		for (IRadarDataRecipient recipient: recipients) {
+			if (recipient instanceof IRadarDataBatchRecipient) {
+				((IRadarDataBatchRecipient)recipient).acceptEndOfBatch(this);
+			}
+		}
+	}
 
 }
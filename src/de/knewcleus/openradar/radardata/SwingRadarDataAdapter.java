@@ -37,23 +37,36 @@ import java.util.Queue;
 
 import javax.swing.SwingUtilities;
 
-public class SwingRadarDataAdapter extends RadarDataProvider implements IRadarDataRecipient, Runnable {
+public class SwingRadarDataAdapter extends RadarDataProvider implements IRadarDataBatchRecipient, Runnable {
 	protected final Queue<IRadarDataPacket> packetQueue = new LinkedList<IRadarDataPacket>();
+	protected boolean endOfBatch = false;
 
 	@Override
 	public synchronized void acceptRadarData(IRadarDataProvider provider, IRadarDataPacket radarData) {
-		if (packetQueue.isEmpty()) {
+		if (packetQueue.isEmpty() && !endOfBatch) {
 			SwingUtilities.invokeLater(this);
 		}
 		packetQueue.add(radarData);
 	}
 	
+	@Override
+	public synchronized void acceptEndOfBatch(IRadarDataProvider provider) {
+		if (packetQueue.isEmpty() && !endOfBatch) {
+			SwingUtilities.invokeLater(this);
+		}
+		endOfBatch = true;
+	}
+	
 	@Override
 	public synchronized void run() {
 		while (!packetQueue.isEmpty()) {
 			final IRadarDataPacket packet = packetQueue.poll();
 			publishRadarDataPacket(packet);
 		}
+		if (endOfBatch) {
+			endOfBatch = false;
+			publishEndOfBatch();
+		}
 	}
 
 }
@@ -37,7 +37,6 @@ import java.awt.geom.Point2D;
 
 import de.knewcleus.openradar.radardata.IRadarDataPacket;
 import de.knewcleus.openradar.radardata.ISSRData;
-import de.knewcleus.openradar.rpvd.contact.ContactShape;
 
 public class RadarDataPacket implements IRadarDataPacket {
 	protected final Object trackingIdentifier;
@@ -76,6 +75,11 @@ public class RadarDataPacket implements IRadarDataPacket {
 		return position;
 	}
 
+	@Override
+	public float getAltitude() {
+		return packet.getEncoderAltitude();
+	}
+
 	@Override
 	public ISSRData getSSRData() {
 		if (!packet.isSSRActive() && !packet.isEncoderActive()) {
@@ -94,9 +98,4 @@ public class RadarDataPacket implements IRadarDataPacket {
 		return groundspeed;
 	}
 
-	@Override
-	public ContactShape getContactShape() {
-		throw new IllegalStateException("not implemented");
-	}
-
 }
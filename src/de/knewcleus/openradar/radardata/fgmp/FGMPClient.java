@@ -34,12 +34,15 @@
 package de.knewcleus.openradar.radardata.fgmp;
 
 import java.io.IOException;
-import java.util.HashSet;
 import java.util.Set;
+import java.util.concurrent.CopyOnWriteArraySet;
 
+import de.knewcleus.fgfs.location.Ellipsoid;
+import de.knewcleus.fgfs.location.GeodToCartTransformation;
 import de.knewcleus.fgfs.location.Position;
 import de.knewcleus.fgfs.multiplayer.IPlayerRegistry;
 import de.knewcleus.fgfs.multiplayer.MultiplayerClient;
+import de.knewcleus.openradar.radardata.IRadarDataBatchRecipient;
 import de.knewcleus.openradar.radardata.IRadarDataPacket;
 import de.knewcleus.openradar.radardata.IRadarDataProvider;
 import de.knewcleus.openradar.radardata.IRadarDataRecipient;
@@ -50,7 +53,7 @@ public class FGMPClient<T extends TargetStatus> extends MultiplayerClient<T> imp
 	protected volatile String callsign=null;
 	protected final String model;
 	protected final Position position;
-	protected long lastAntennaRotationTime;
+	protected final RadarSweepScheduler radarSweep;
 	
 	/**
 	 * Time for a single antenna rotation in milliseconds.
@@ -65,7 +68,7 @@ public class FGMPClient<T extends TargetStatus> extends MultiplayerClient<T> imp
 	protected final int staleTargetTimeoutMsecs= 10 * antennaRotationTimeMsecs;
 
 	
-	protected final Set<IRadarDataRecipient> recipients=new HashSet<IRadarDataRecipient>();
+	protected final Set<IRadarDataRecipient> recipients=new CopyOnWriteArraySet<IRadarDataRecipient>();
 
 	public FGMPClient(IPlayerRegistry<T> playerRegistry, String callsign, String model, Position position, String mpServer, int mpServerPort, int mpLocalPort, int antennaRotationTimeMsecs,
 	                  boolean packetForward1, String packetForwardHost1, int packetForwardPort1,boolean packetForward2, String packetForwardHost2, int packetForwardPort2) throws IOException {
@@ -74,15 +77,20 @@ public class FGMPClient<T extends TargetStatus> extends MultiplayerClient<T> imp
 		this.position=position;
 		this.model=model;
 		this.antennaRotationTimeMsecs = antennaRotationTimeMsecs;
-		lastAntennaRotationTime=0;//System.currentTimeMillis();
+		radarSweep=new RadarSweepScheduler(this, new GeodToCartTransformation(Ellipsoid.WGS84).backward(position));
 		// must be last to be sure, everything is initialized!
 		startSending();
+		radarSweep.start();
 	}
 	
 	public synchronized void setAntennaRotationTime(int timeInMs) {
 	    this.antennaRotationTimeMsecs = timeInMs;
 	}
 	
+	public int getAntennaRotationTime() {
+	    return antennaRotationTimeMsecs;
+	}
+	
 //	@Override
 //	protected int getUpdateMillis() {
 //		return antennaRotationTimeMsecs;
@@ -93,12 +101,6 @@ public class FGMPClient<T extends TargetStatus> extends MultiplayerClient<T> imp
 		return 1*60*1000; // staleTargetTimeoutMsecs;
 	}
 	
-	@Override
-	protected void update() {
-		super.update();
-		sendRadarPackets();
-	}
-
 	@Override
 	public synchronized String getCallsign() {
 		return callsign;
@@ -130,19 +132,26 @@ public class FGMPClient<T extends TargetStatus> extends MultiplayerClient<T> imp
 		return position;
 	}
 	
-	protected synchronized void sendRadarPackets() {
-		if (lastAntennaRotationTime+antennaRotationTimeMsecs>System.currentTimeMillis()) {
-			return;
+	/**
+	 * Reports a target to the recipients, called by the {@link RadarSweepScheduler}
+	 * when the antenna passes the target.
+	 */
+	protected void sendRadarPacket(TargetStatus targetStatus) {
+		final IRadarDataPacket packet=targetStatus.getRadarDataPacket();
+		for (IRadarDataRecipient recipient: recipients) {
+			recipient.acceptRadarData(this, packet);
 		}
-		synchronized (getPlayerRegistry()) {
-			for (TargetStatus targetStatus: getPlayerRegistry().getPlayers()) {
-				final IRadarDataPacket packet=targetStatus.getRadarDataPacket();
-				for (IRadarDataRecipient recipient: recipients) {
-					recipient.acceptRadarData(this, packet);
-				}
+	}
+	
+	/**
+	 * Tells the batch recipients that a step of the antenna sweep has been reported completely.
+	 */
+	protected void sendEndOfSweep() {
+		for (IRadarDataRecipient recipient: recipients) {
+			if (recipient instanceof IRadarDataBatchRecipient) {
+				((IRadarDataBatchRecipient)recipient).acceptEndOfBatch(this);
 			}
 		}
-		lastAntennaRotationTime=System.currentTimeMillis();
 	}
 	
 	@Override
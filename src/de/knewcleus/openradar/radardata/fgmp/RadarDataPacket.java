@@ -38,21 +38,21 @@ import java.awt.geom.Point2D;
 import de.knewcleus.fgfs.location.Position;
 import de.knewcleus.openradar.radardata.IRadarDataPacket;
 import de.knewcleus.openradar.radardata.ISSRData;
-import de.knewcleus.openradar.rpvd.contact.ContactShape;
 
 public class RadarDataPacket implements IRadarDataPacket {
 	protected final TargetStatus targetStatus;
 	protected float timestamp;
 	protected final Point2D position;
+	protected final float altitude;
 	protected final float trueCourse;
 	protected final float groundSpeed;
-	protected ContactShape contactShape = new ContactShape();;
 
 	public RadarDataPacket(TargetStatus targetStatus) {
 		this.targetStatus=targetStatus;
 		this.timestamp=(float)targetStatus.getPositionTime();
 		final Position geodeticPosition=targetStatus.getGeodeticPosition();
 		position=new Point2D.Double(geodeticPosition.getX(), geodeticPosition.getY());
+		altitude=(float)geodeticPosition.getZ();
 		groundSpeed=(float)targetStatus.getLinearVelocity().getLength();
 		trueCourse=(float)targetStatus.getTrueCourse();
 	}
@@ -76,6 +76,11 @@ public class RadarDataPacket implements IRadarDataPacket {
 		return position;
 	}
 
+	@Override
+	public float getAltitude() {
+		return altitude;
+	}
+
 	@Override
 	public boolean wasSeenOnLastScan() {
 		/* We only send packets on targets we have seen */
@@ -97,8 +102,4 @@ public class RadarDataPacket implements IRadarDataPacket {
 	public float getCalculatedVelocity() {
 		return groundSpeed;
 	}
-	@Override
-	public synchronized ContactShape getContactShape() {
-	    return contactShape;
-	}
 }
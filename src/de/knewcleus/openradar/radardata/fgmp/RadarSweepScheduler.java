@@ -0,0 +1,167 @@
+/**
+ * Copyright (C) 2016 OpenRadar contributors
+ *
+ * This file is part of OpenRadar.
+ *
+ * OpenRadar is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * OpenRadar is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * OpenRadar. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Diese Datei ist Teil von OpenRadar.
+ *
+ * OpenRadar ist Freie Software: Sie können es unter den Bedingungen der GNU
+ * General Public License, wie von der Free Software Foundation, Version 3 der
+ * Lizenz oder (nach Ihrer Option) jeder späteren veröffentlichten Version,
+ * weiterverbreiten und/oder modifizieren.
+ *
+ * OpenRadar wird in der Hoffnung, dass es nützlich sein wird, aber OHNE JEDE
+ * GEWÄHRLEISTUNG, bereitgestellt; sogar ohne die implizite Gewährleistung der
+ * MARKTFÄHIGKEIT oder EIGNUNG FÜR EINEN BESTIMMTEN ZWECK. Siehe die GNU General
+ * Public License für weitere Details.
+ *
+ * Sie sollten eine Kopie der GNU General Public License zusammen mit diesem
+ * Programm erhalten haben. Wenn nicht, siehe <http://www.gnu.org/licenses/>.
+ */
+package de.knewcleus.openradar.radardata.fgmp;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+import org.apache.log4j.LogManager;
+import org.apache.log4j.Logger;
+
+import de.knewcleus.fgfs.location.GeoUtil;
+import de.knewcleus.fgfs.location.Position;
+
+/**
+ * Models the rotating antenna of the radar.
+ * 
+ * At the start of every rotation the targets are sorted by their bearing from the
+ * station. The beam then advances in small steps and every target is reported when
+ * the beam passes its bearing, so the radar packets of a rotation are spread evenly
+ * over {@link FGMPClient#getAntennaRotationTime()} instead of arriving in one burst.
+ * The sweep runs on its own thread, independent of the rate of incoming packets.
+ */
+public class RadarSweepScheduler extends Thread {
+	private static final Logger log = LogManager.getLogger(RadarSweepScheduler.class);
+	protected static final int STEPS_PER_ROTATION=32;
+	protected static final int MIN_STEP_MSECS=10;
+
+	protected final FGMPClient<? extends TargetStatus> client;
+	protected final double stationLon;
+	protected final double stationLat;
+
+	protected final List<SweepTarget> targetPool=new ArrayList<SweepTarget>();
+	protected SweepTarget[] targets=new SweepTarget[0];
+	protected int targetCount=0;
+	protected int nextTarget=0;
+
+	protected static final Comparator<SweepTarget> byBearing=new Comparator<SweepTarget>() {
+		@Override
+		public int compare(SweepTarget o1, SweepTarget o2) {
+			return Double.compare(o1.bearing, o2.bearing);
+		}
+	};
+
+	public RadarSweepScheduler(FGMPClient<? extends TargetStatus> client, Position stationGeodeticPosition) {
+		super("OpenRadar - RadarSweep");
+		setDaemon(true);
+		this.client=client;
+		this.stationLon=stationGeodeticPosition.getX();
+		this.stationLat=stationGeodeticPosition.getY();
+	}
+
+	@Override
+	public void run() {
+		long rotationStart=System.currentTimeMillis();
+		startRotation();
+		while (true) {
+			final int rotationTime=Math.max(1, client.getAntennaRotationTime());
+			try {
+				sleep(Math.max(MIN_STEP_MSECS, rotationTime/STEPS_PER_ROTATION));
+			} catch (InterruptedException e) {
+				log.warn("OpenRadar - RadarSweep was interrupted");
+			}
+			try {
+				long now=System.currentTimeMillis();
+				if (now-rotationStart>=rotationTime) {
+					// complete the rotation and start the next one
+					sweepTo(360.0);
+					rotationStart+=rotationTime;
+					if (now-rotationStart>=rotationTime) {
+						// we fell behind more than a full rotation, resynchronize
+						rotationStart=now;
+					}
+					startRotation();
+				}
+				sweepTo(360.0*(now-rotationStart)/rotationTime);
+			} catch (RuntimeException e) {
+				log.error("Error in radar sweep!",e);
+			}
+		}
+	}
+
+	/**
+	 * Takes a snapshot of the positioned targets, sorted by bearing.
+	 */
+	protected void startRotation() {
+		targetCount=0;
+		nextTarget=0;
+		for (TargetStatus targetStatus: client.getPlayerRegistry().getPlayers()) {
+			if (!targetStatus.hasPosition()) {
+				// registered, but the first position update has not been applied yet
+				continue;
+			}
+			if (targetCount==targetPool.size()) {
+				targetPool.add(new SweepTarget());
+			}
+			final SweepTarget target=targetPool.get(targetCount++);
+			final Position pos=targetStatus.getGeodeticPosition();
+			target.targetStatus=targetStatus;
+			target.bearing=GeoUtil.getInitialAngle(stationLon, stationLat, pos.getX(), pos.getY());
+		}
+		if (targets.length<targetCount) {
+			targets=new SweepTarget[targetPool.size()];
+		}
+		for (int i=0;i<targetCount;i++) {
+			targets[i]=targetPool.get(i);
+		}
+		Arrays.sort(targets, 0, targetCount, byBearing);
+	}
+
+	/**
+	 * Reports all targets the beam has passed up to the given azimuth.
+	 */
+	protected void sweepTo(double beamAngle) {
+		boolean reported=false;
+		while (nextTarget<targetCount && targets[nextTarget].bearing<=beamAngle) {
+			final SweepTarget target=targets[nextTarget++];
+			final TargetStatus targetStatus=target.targetStatus;
+			target.targetStatus=null;
+			if (client.getPlayerRegistry().getPlayer(targetStatus.getCallsign())!=targetStatus) {
+				// expired during this rotation
+				continue;
+			}
+			client.sendRadarPacket(targetStatus);
+			reported=true;
+		}
+		if (reported) {
+			client.sendEndOfSweep();
+		}
+	}
+
+	protected static class SweepTarget {
+		protected TargetStatus targetStatus;
+		protected double bearing;
+	}
+}
@@ -33,8 +33,13 @@
  */
 package de.knewcleus.openradar.rpvd;
 
+import java.awt.geom.Point2D;
+import java.awt.geom.Rectangle2D;
+import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import org.apache.log4j.LogManager;
@@ -46,8 +51,12 @@ import de.knewcleus.openradar.notify.INotification;
 import de.knewcleus.openradar.notify.INotificationListener;
 import de.knewcleus.openradar.radardata.fgmp.RadarDataPacket;
 import de.knewcleus.openradar.radardata.fgmp.TargetStatus;
+import de.knewcleus.openradar.rpvd.contact.DatablockDeclutterer;
+import de.knewcleus.openradar.rpvd.contact.DatablockLayoutManager;
+import de.knewcleus.openradar.rpvd.contact.RadarContactTextPainter;
 import de.knewcleus.openradar.tracks.ITrack;
 import de.knewcleus.openradar.tracks.ITrackManager;
+import de.knewcleus.openradar.tracks.SweepCompleteNotification;
 import de.knewcleus.openradar.tracks.TrackLifetimeNotification;
 import de.knewcleus.openradar.view.LayeredView;
 
@@ -58,6 +67,7 @@ public class RadarTargetProvider implements INotificationListener {
     protected final GuiMasterController master;
 
     protected final Map<ITrack, RadarTargetView> viewMap = Collections.synchronizedMap(new HashMap<ITrack, RadarTargetView>());
+    protected final DatablockDeclutterer declutterer = new DatablockDeclutterer();
     
     private final static Logger log = LogManager.getLogger(RadarTargetProvider.class);
 
@@ -107,6 +117,47 @@ public class RadarTargetProvider implements INotificationListener {
         		log.warn("vieweMap: "+viewMap.size());
                 break;
             }
+        } else if (notification instanceof SweepCompleteNotification) {
+            placeDatablocks();
+        }
+    }
+
+    /**
+     * Moves the data blocks of the visible targets apart, if the active layout wants it, or all data blocks back to
+     * their automatic placement otherwise.
+     */
+    protected void placeDatablocks() {
+        final List<RadarTargetView> views;
+        synchronized (viewMap) {
+            views = new ArrayList<RadarTargetView>(viewMap.values());
+        }
+
+        final DatablockLayoutManager layoutManager = master.getAirportData().getDatablockLayoutManager();
+        if (layoutManager.isDecluttering()) {
+            /* targets off the screen must not push the visible data blocks away */
+            final Rectangle2D viewerExtents = radarMapViewAdapter.getViewerExtents();
+            final List<RadarTargetView> visibleViews = new ArrayList<RadarTargetView>(views.size());
+            final List<RadarContactTextPainter> painters = new ArrayList<RadarContactTextPainter>(views.size());
+            for (RadarTargetView view : views) {
+                final RadarContactTextPainter painter = view.getContactTextPainter();
+                final Point2D position = painter.getDevicePosition();
+                if (view.isVisible() && position != null && (viewerExtents == null || viewerExtents.contains(position))) {
+                    visibleViews.add(view);
+                    painters.add(painter);
+                }
+            }
+            final BitSet changed = declutterer.declutter(painters);
+            for (int i = changed.nextSetBit(0); i >= 0; i = changed.nextSetBit(i + 1)) {
+                visibleViews.get(i).datablockPlacementChanged();
+            }
+        } else {
+            for (RadarTargetView view : views) {
+                final RadarContactTextPainter painter = view.getContactTextPainter();
+                if (painter.getPlacement() != RadarContactTextPainter.PLACEMENT_AUTOMATIC) {
+                    painter.setPlacement(RadarContactTextPainter.PLACEMENT_AUTOMATIC);
+                    view.datablockPlacementChanged();
+                }
+            }
         }
     }
 
@@ -38,7 +38,6 @@ import java.awt.geom.AffineTransform;
 import java.awt.geom.Line2D;
 import java.awt.geom.Point2D;
 import java.awt.geom.Rectangle2D;
-import java.util.List;
 
 import de.knewcleus.fgfs.location.Ellipsoid;
 import de.knewcleus.fgfs.location.GeodesicUtils;
@@ -49,6 +48,7 @@ import de.knewcleus.openradar.notify.INotificationListener;
 import de.knewcleus.openradar.radardata.IRadarDataPacket;
 import de.knewcleus.openradar.rpvd.contact.ContactShape;
 import de.knewcleus.openradar.rpvd.contact.RadarContactTextPainter;
+import de.knewcleus.openradar.tracks.TrackHistory;
 import de.knewcleus.openradar.tracks.TrackUpdateNotification;
 import de.knewcleus.openradar.view.Converter2D;
 import de.knewcleus.openradar.view.CoordinateSystemNotification;
@@ -75,6 +75,8 @@ public class RadarTargetView implements IBoundedView, INotificationListener, IFo
 
     protected static final double headingLineVicinity = 3.0;
 
+    protected static final int maxTailDots = 50;
+
     protected GuiMasterController master;
     protected IRadarMapViewerAdapter radarMapViewAdapter;
     protected TrackDisplayState trackDisplayState;
@@ -89,6 +91,12 @@ public class RadarTargetView implements IBoundedView, INotificationListener, IFo
     protected volatile Rectangle2D displayExtents = new Rectangle2D.Double();
 
     protected RadarContactTextPainter contactTextPainter;
+
+    /* shapes are only kept for the dots painted, the positions are taken from the track history */
+    protected final ContactShape currentShape = new ContactShape();
+    protected final ContactShape[] tailShapes = new ContactShape[maxTailDots];
+    protected int paintedTailDots = 0;
+    protected final Point2D.Double scratchPoint = new Point2D.Double();
     
     private int distance = 10;
 
@@ -101,7 +109,7 @@ public class RadarTargetView implements IBoundedView, INotificationListener, IFo
         contactTextPainter = new RadarContactTextPainter(master, trackDisplayState);
         radarMapViewAdapter.registerListener(this);
         trackDisplayState.registerListener(this);
-        master.getTrackManager().registerListener(this); // listen for updated or lost tracks
+        trackDisplayState.getTrack().registerListener(this); // listen for updates of our track only
         updateGeographicPositions();
     }
 
@@ -109,7 +117,7 @@ public class RadarTargetView implements IBoundedView, INotificationListener, IFo
         // unregister listeners
         radarMapViewAdapter.unregisterListener(this);
         trackDisplayState.unregisterListener(this);
-        master.getTrackManager().unregisterListener(this); 
+        trackDisplayState.getTrack().unregisterListener(this);
         
         master=null;
         radarMapViewAdapter=null;
@@ -118,9 +126,11 @@ public class RadarTargetView implements IBoundedView, INotificationListener, IFo
 
 	@Override
     public synchronized boolean contains(Point2D devicePoint) {
-        List<IRadarDataPacket> history = trackDisplayState.getTrack().getCopyOfHistory();
-        for (IRadarDataPacket p : history) {
-            if (p.getContactShape().contains(devicePoint)) {
+        if (currentShape.contains(devicePoint)) {
+            return true;
+        }
+        for (int i = 0; i < paintedTailDots; i++) {
+            if (tailShapes[i].contains(devicePoint)) {
                 return true;
             }
         }
@@ -202,30 +212,32 @@ public class RadarTargetView implements IBoundedView, INotificationListener, IFo
             
             // the original shape
 
-            List<IRadarDataPacket> history = trackDisplayState.getTrack().getCopyOfHistory();
+            final TrackHistory history = trackDisplayState.getTrack().getHistory();
 
             g2d.setColor(baseColor);
-            ContactShape displayDotShape = history.get(0).getContactShape();
-            displayDotShape.paintShape(g2d);
+            currentShape.paintShape(g2d);
 
             // the tail 
             
-            int tailLength = 0;
-            if(maxTailLength>0) {
+            final int tailDots = getTailDotCount(history, tailOffset, maxTailLength);
+            if(tailDots>0) {
+                final AffineTransform logical2device = radarMapViewAdapter.getLogicalToDeviceTransform();
                 Color color = baseColor;
-                for (int i=0; i<50; i++) {
-                    if(tailOffset+distance*i > history.size()-1 || tailLength>maxTailLength) {
-                        break;
-                    }
-                    displayDotShape = history.get(tailOffset+distance*i).getContactShape();
-                    if (i == 0 || displayDotShape.isTailVisible()) {
-                        color = new Color(color.getRed(), color.getGreen(), color.getBlue(), 150 * (maxTailLength-tailLength) / maxTailLength);
-                        g2d.setColor(color);
-                        displayDotShape.paintShape(g2d);
-                    }
-                    tailLength++;
+                for (int tailLength=0; tailLength<tailDots; tailLength++) {
+                    final int age = tailOffset+distance*tailLength;
+                    final ContactShape displayDotShape = getTailShape(tailLength);
+                    displayDotShape.modify(history.getSymbol(age)!=null ? history.getSymbol(age) : currentShape.getType(), 
+                                           trackDisplayState.getGuiContact(), 
+                                           history.getSymbol(age)!=null ? history.getSymbolSize(age) : currentShape.getSize());
+                    // device positions are computed lazily, only for the dots painted
+                    scratchPoint.setLocation(history.getLogicalX(age), history.getLogicalY(age));
+                    logical2device.transform(scratchPoint, displayDotShape.getDisplayPosition());
+                    color = new Color(color.getRed(), color.getGreen(), color.getBlue(), 150 * (maxTailLength-tailLength) / maxTailLength);
+                    g2d.setColor(color);
+                    displayDotShape.paintShape(g2d);
                 }
             }
+            paintedTailDots = tailDots;
             g2d.setColor(baseColor);
             // heading line
             if (!contactTextPainter.isTextEmpty() && trackDisplayState.guiContact.isActive()) {
@@ -234,6 +246,32 @@ public class RadarTargetView implements IBoundedView, INotificationListener, IFo
             //log.warn("Painted "+trackDisplayState.guiContact.getCallSign()+" ,history: "+history.size()+" ,tail length: "+tailLength);
     }
 
+    /**
+     * @return the number of tail dots painted, the dot with index i showing the history point of age <code>tailOffset+distance*i</code>.
+     */
+    protected int getTailDotCount(TrackHistory history, int tailOffset, int maxTailLength) {
+        if (maxTailLength<=0) {
+            return 0;
+        }
+        int count = 0;
+        while (count<maxTailDots && count<=maxTailLength && tailOffset+distance*count <= history.size()-1) {
+            count++;
+        }
+        return count;
+    }
+
+    protected void addDotExtents(double x, double y, double dotSize) {
+        displayExtents.add(x-dotSize/2, y-dotSize/2);
+        displayExtents.add(x+dotSize/2, y+dotSize/2);
+    }
+
+    protected ContactShape getTailShape(int index) {
+        if (tailShapes[index] == null) {
+            tailShapes[index] = new ContactShape();
+        }
+        return tailShapes[index];
+    }
+
     protected synchronized void repaint() {
         radarMapViewAdapter.getUpdateManager().markRegionDirty(displayExtents);
     }
@@ -263,21 +301,33 @@ public class RadarTargetView implements IBoundedView, INotificationListener, IFo
                 currentStatus.getCalculatedTrueCourse(), currentStatus.getCalculatedVelocity() * radarMapViewAdapter.getHeadingVectorTime());
         futureGeoPosition = new Point2D.Double(geodInfo.getEndLon(), geodInfo.getEndLat());
 
-        updateLogicalPositions();
+        updateLogicalPositions(false);
     }
 
     protected synchronized void updateLogicalPositions() {
+        updateLogicalPositions(true);
+    }
+
+    /**
+     * Project the current position and the history into logical coordinates.
+     * 
+     * @param reprojectHistory  <code>true</code> if the projection changed, otherwise only the
+     *                          history points added since the last update are projected.
+     */
+    protected synchronized void updateLogicalPositions(boolean reprojectHistory) {
         final IProjection projection = radarMapViewAdapter.getProjection();
 
         currentLogicalPosition = projection.toLogical(currentGeoPosition);
         futureLogicalPosition = projection.toLogical(futureGeoPosition);
 
-        List<IRadarDataPacket> history = trackDisplayState.getTrack().getCopyOfHistory();
+        final TrackHistory history = trackDisplayState.getTrack().getHistory();
         for (int i = 0; i<history.size(); ++i) {
-            final IRadarDataPacket radarDataPacket = history.get(i);
-            final Point2D geographicalPosition = radarDataPacket.getPosition();
-            final Point2D logicalPosition = projection.toLogical(geographicalPosition);
-            radarDataPacket.getContactShape().setLogicalPosition(logicalPosition);
+            if (!reprojectHistory && !Double.isNaN(history.getLogicalX(i))) {
+                // the remaining (older) points have already been projected
+                break;
+            }
+            scratchPoint.setLocation(history.getLongitude(i), history.getLatitude(i));
+            history.setLogicalPosition(i, projection.toLogical(scratchPoint, scratchPoint));
         }
         
         updateDisplayPositions();
@@ -304,28 +354,43 @@ public class RadarTargetView implements IBoundedView, INotificationListener, IFo
         // update data
 
         // the dots
-        List<IRadarDataPacket> history = trackDisplayState.getTrack().getCopyOfHistory();
+        final TrackHistory history = trackDisplayState.getTrack().getHistory();
         
-        ContactShape currentShape = history.get(0).getContactShape(); 
         master.getAirportData().getDatablockLayoutManager().getActiveLayout().modify(currentShape, trackDisplayState.getGuiContact());
+        history.setSymbol(0, currentShape.getType(), currentShape.getSize());
+        currentShape.setDisplayPosition(logical2device.transform(currentLogicalPosition, null));
+        addDotExtents(currentDevicePosition.getX(), currentDevicePosition.getY(), currentShape.getSize());
 
-        
-        for (int i = 0; i<history.size(); ++i) {
-            final IRadarDataPacket radarDataPacket = history.get(i);
-            final Point2D displayPosition = logical2device.transform(radarDataPacket.getContactShape().getLogicalPosition(), null);
-            
-            radarDataPacket.getContactShape().setDisplayPosition(displayPosition);
-            Rectangle2D.union(radarDataPacket.getContactShape().getBounds2D(), displayExtents, displayExtents);
-            
+        if(trackDisplayState.getTrack().getTailOffset()>=distance)  trackDisplayState.getTrack().resetTailOffset();
+
+        // device positions are only needed for the dots which get painted as tail
+        final int tailOffset = trackDisplayState.getTrack().getTailOffset();
+        final int tailDots = getTailDotCount(history, tailOffset, radarMapViewAdapter.getMaxTailLength());
+        for (int i = 0; i<tailDots; ++i) {
+            final int age = tailOffset+distance*i;
+            scratchPoint.setLocation(history.getLogicalX(age), history.getLogicalY(age));
+            logical2device.transform(scratchPoint, scratchPoint);
+            addDotExtents(scratchPoint.getX(), scratchPoint.getY(), history.getSymbol(age)!=null ? history.getSymbolSize(age) : currentShape.getSize());
         }
         // compose description field for contact
         Rectangle2D.union(contactTextPainter.getDisplayExtents(currentDevicePosition), displayExtents, displayExtents);
 
-        if(trackDisplayState.getTrack().getTailOffset()>=distance)  trackDisplayState.getTrack().resetTailOffset();
-
         repaint();
     }
 
+    public RadarContactTextPainter getContactTextPainter() {
+        return contactTextPainter;
+    }
+
+    /**
+     * Called after the placement of the data block has been changed, to move it and repaint the old and new place.
+     */
+    public synchronized void datablockPlacementChanged() {
+        if(trackDisplayState!=null) {
+            updateDisplayPositions();
+        }
+    }
+
     @Override
     public synchronized Point2D getCenterViewCoordinates() {
         return currentDevicePosition;
@@ -180,4 +180,12 @@ public abstract class ADatablockLayout {
 
 	public abstract boolean displayVSpeedArrow(GuiRadarContact c);
 
+	/**
+	 * Returns true if the data blocks should be moved apart after each radar sweep, instead of always
+	 * placing them depending on the course of the contact.
+	 */
+	public boolean isDecluttering() {
+		return false;
+	}
+
 }
@@ -56,6 +56,14 @@ public class ContactShape {
         this.size=size;
     }
 
+    public synchronized Symbol getType() {
+        return type;
+    }
+
+    public synchronized double getSize() {
+        return size;
+    }
+
     public Point2D getLogicalPosition() {
 		return logicalPosition;
 	}
@@ -0,0 +1,279 @@
+/**
+ * Copyright (C) 2016 OpenRadar contributors
+ *
+ * This file is part of OpenRadar.
+ *
+ * OpenRadar is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * OpenRadar is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * OpenRadar. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Diese Datei ist Teil von OpenRadar.
+ *
+ * OpenRadar ist Freie Software: Sie können es unter den Bedingungen der GNU
+ * General Public License, wie von der Free Software Foundation, Version 3 der
+ * Lizenz oder (nach Ihrer Option) jeder späteren veröffentlichten Version,
+ * weiterverbreiten und/oder modifizieren.
+ *
+ * OpenRadar wird in der Hoffnung, dass es nützlich sein wird, aber OHNE JEDE
+ * GEWÄHRLEISTUNG, bereitgestellt; sogar ohne die implizite Gewährleistung der
+ * MARKTFÄHIGKEIT oder EIGNUNG FÜR EINEN BESTIMMTEN ZWECK. Siehe die GNU General
+ * Public License für weitere Details.
+ *
+ * Sie sollten eine Kopie der GNU General Public License zusammen mit diesem
+ * Programm erhalten haben. Wenn nicht, siehe <http://www.gnu.org/licenses/>.
+ */
+package de.knewcleus.openradar.rpvd.contact;
+
+import java.awt.geom.Point2D;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Chooses the places of the data blocks so that they overlap each other and the contact symbols as little as possible.
+ *
+ * Each data block can be put at one of the placements offered by RadarContactTextPainter. The current placements
+ * are the starting point, a data block is only moved if it overlaps something and goes back to its automatic
+ * placement as soon as there is room. Overlaps are looked up in a uniform grid of device space cells, containing the
+ * symbols and the current places of the data blocks. A moved data block is registered again at its new place, the old
+ * entries are skipped by comparing against the current place.
+ *
+ * A run rates a limited number of placements, so a crowded scene without previous placements, as after startup or a
+ * zoom, is sorted out over a few sweeps. The next run continues with the data block where the last one stopped.
+ *
+ * Instances are not thread safe, they keep their arrays between the runs.
+ */
+public class DatablockDeclutterer {
+
+    private final static double CELL_SIZE = 64d;
+    private final static int BUCKET_COUNT = 1024; // power of two
+    private final static int MAX_PASSES = 4;
+    /** placements rated per run, the refinement goes on in the next run when they are used up */
+    private final static int MAX_EVALUATIONS = Integer.getInteger("de.knewcleus.openradar.declutterEvaluations", 600);
+    private final static int P = RadarContactTextPainter.PLACEMENT_COUNT;
+
+    /** half the size of the area around a contact symbol, which should not be covered */
+    private final static double SYMBOL_EXTENT = 6d;
+    /** covering a symbol is worse than covering a part of another data block */
+    private final static double SYMBOL_WEIGHT = 4d;
+
+    private int count;
+    private boolean[] valid = new boolean[0];
+    private int[] placement = new int[0];
+    private double[] symbolX = new double[0];
+    private double[] symbolY = new double[0];
+    private double[] bounds = new double[0]; // per block and placement: minX, minY, maxX, maxY
+    private int[] stamp = new int[0];
+    private int currentStamp = 0;
+
+    private final int[] bucketHead = new int[BUCKET_COUNT];
+    private int[] entryBlock = new int[256];
+    private int[] entryNext = new int[256];
+    private int entryCount;
+
+    private int evaluations;
+    /** the data block to continue with in the next run */
+    private int cursor = 0;
+
+    /**
+     * Places the data blocks of the given painters.
+     *
+     * @return the indices of the painters whose placement has been changed
+     */
+    public BitSet declutter(List<RadarContactTextPainter> painters) {
+        final BitSet changed = new BitSet();
+        collect(painters);
+        buildGrid();
+
+        /* round robin, until a whole round has moved nothing, the passes or the evaluations are used up */
+        evaluations = 0;
+        int i = count>0 ? cursor%count : 0;
+        int unmoved = 0;
+        for(int visits=0; visits<MAX_PASSES*count && unmoved<count && evaluations<MAX_EVALUATIONS; visits++) {
+            if(valid[i] && improvePlacement(i)) {
+                unmoved = 0;
+            } else {
+                unmoved++;
+            }
+            i = (i+1)%count;
+        }
+        cursor = i;
+
+        for(i=0; i<count; i++) {
+            final RadarContactTextPainter painter = painters.get(i);
+            if(valid[i] && painter.getPlacement()!=placement[i]) {
+                painter.setPlacement(placement[i]);
+                changed.set(i);
+            }
+        }
+        return changed;
+    }
+
+    private void collect(List<RadarContactTextPainter> painters) {
+        count = painters.size();
+        if(valid.length<count) {
+            final int capacity = Math.max(count, 2*valid.length);
+            valid = new boolean[capacity];
+            placement = new int[capacity];
+            symbolX = new double[capacity];
+            symbolY = new double[capacity];
+            bounds = new double[capacity*P*4];
+            stamp = new int[capacity];
+        }
+        for(int i=0; i<count; i++) {
+            final RadarContactTextPainter painter = painters.get(i);
+            final Point2D position = painter.getDevicePosition();
+            placement[i] = painter.getPlacement();
+            valid[i] = position!=null && painter.getPlacementBounds(bounds, i*P*4);
+            if(position!=null) {
+                symbolX[i] = position.getX();
+                symbolY[i] = position.getY();
+            } else {
+                symbolX[i] = Double.NaN;
+                symbolY[i] = Double.NaN;
+            }
+        }
+    }
+
+    /*
+     * Registers each contact in the cells covered by its symbol and its current data block.
+     */
+    private void buildGrid() {
+        Arrays.fill(bucketHead, -1);
+        entryCount = 0;
+        for(int i=0; i<count; i++) {
+            if(Double.isNaN(symbolX[i])) {
+                continue;
+            }
+            addEntries(i, symbolX[i]-SYMBOL_EXTENT, symbolY[i]-SYMBOL_EXTENT, symbolX[i]+SYMBOL_EXTENT, symbolY[i]+SYMBOL_EXTENT);
+            if(valid[i]) {
+                addDatablockEntries(i);
+            }
+        }
+    }
+
+    private void addDatablockEntries(int i) {
+        final int b = (i*P+placement[i])*4;
+        addEntries(i, bounds[b], bounds[b+1], bounds[b+2], bounds[b+3]);
+    }
+
+    private void addEntries(int block, double minX, double minY, double maxX, double maxY) {
+        final int minCellX = cell(minX), maxCellX = cell(maxX);
+        final int minCellY = cell(minY), maxCellY = cell(maxY);
+        for(int cx=minCellX; cx<=maxCellX; cx++) {
+            for(int cy=minCellY; cy<=maxCellY; cy++) {
+                addEntry(bucket(cx, cy), block);
+            }
+        }
+    }
+
+    private void addEntry(int bucket, int block) {
+        if(entryCount==entryBlock.length) {
+            entryBlock = Arrays.copyOf(entryBlock, 2*entryCount);
+            entryNext = Arrays.copyOf(entryNext, 2*entryCount);
+        }
+        entryBlock[entryCount] = block;
+        entryNext[entryCount] = bucketHead[bucket];
+        bucketHead[bucket] = entryCount++;
+    }
+
+    private static int cell(double coordinate) {
+        return (int)Math.floor(coordinate/CELL_SIZE);
+    }
+
+    private static int bucket(int cellX, int cellY) {
+        return (cellX*73856093 ^ cellY*19349663) & (BUCKET_COUNT-1);
+    }
+
+    /*
+     * Moves the data block to a better place, if its current place overlaps anything.
+     * Returns true if the placement has been changed.
+     */
+    private boolean improvePlacement(int i) {
+        final int current = placement[i];
+        final double currentCost = getCost(i, current, Double.MAX_VALUE);
+        int best = current;
+        double bestCost = currentCost;
+        if(current!=RadarContactTextPainter.PLACEMENT_AUTOMATIC
+                && getCost(i, RadarContactTextPainter.PLACEMENT_AUTOMATIC, currentCost)<=currentCost) {
+            // back to the natural place
+            best = RadarContactTextPainter.PLACEMENT_AUTOMATIC;
+        } else {
+            for(int p=0; p<P && bestCost>0d; p++) {
+                if(p==current) {
+                    continue;
+                }
+                final double cost = getCost(i, p, bestCost);
+                if(cost<bestCost) {
+                    best = p;
+                    bestCost = cost;
+                }
+            }
+        }
+        if(best==current) {
+            return false;
+        }
+        placement[i] = best;
+        addDatablockEntries(i);
+        return true;
+    }
+
+    /*
+     * Sums up the areas of the other data blocks and symbols covered by the given placement of a data block.
+     * Stops as soon as the sum exceeds the limit.
+     */
+    private double getCost(int i, int p, double limit) {
+        final int b = (i*P+p)*4;
+        final double minX = bounds[b], minY = bounds[b+1], maxX = bounds[b+2], maxY = bounds[b+3];
+        evaluations++;
+
+        if(++currentStamp==Integer.MAX_VALUE) {
+            Arrays.fill(stamp, 0);
+            currentStamp = 1;
+        }
+        stamp[i] = currentStamp;
+
+        double cost = 0d;
+        final int minCellX = cell(minX), maxCellX = cell(maxX);
+        final int minCellY = cell(minY), maxCellY = cell(maxY);
+        for(int cx=minCellX; cx<=maxCellX; cx++) {
+            for(int cy=minCellY; cy<=maxCellY; cy++) {
+                for(int e=bucketHead[bucket(cx, cy)]; e!=-1; e=entryNext[e]) {
+                    final int j = entryBlock[e];
+                    if(stamp[j]==currentStamp) {
+                        continue;
+                    }
+                    stamp[j] = currentStamp;
+                    cost += SYMBOL_WEIGHT * getOverlap(minX, minY, maxX, maxY,
+                            symbolX[j]-SYMBOL_EXTENT, symbolY[j]-SYMBOL_EXTENT, symbolX[j]+SYMBOL_EXTENT, symbolY[j]+SYMBOL_EXTENT);
+                    if(valid[j]) {
+                        final int o = (j*P+placement[j])*4;
+                        cost += getOverlap(minX, minY, maxX, maxY, bounds[o], bounds[o+1], bounds[o+2], bounds[o+3]);
+                    }
+                    if(cost>limit) {
+                        return cost;
+                    }
+                }
+            }
+        }
+        return cost;
+    }
+
+    private static double getOverlap(double minX1, double minY1, double maxX1, double maxY1,
+                                     double minX2, double minY2, double maxX2, double maxY2) {
+        final double width = Math.min(maxX1, maxX2) - Math.max(minX1, minX2);
+        if(width<=0d) {
+            return 0d;
+        }
+        final double height = Math.min(maxY1, maxY2) - Math.max(minY1, minY2);
+        return height>0d ? width*height : 0d;
+    }
+}
@@ -119,6 +119,11 @@ public class DatablockLayoutManager {
         return activeLayout;
     }
 
+    /** Returns true if the active layout wants its data blocks to be moved apart */
+    public synchronized boolean isDecluttering() {
+        return activeLayout.isDecluttering();
+    }
+
     public synchronized void setActiveLayout(GuiMasterController master, ADatablockLayout activeLayout) {
         if(this.activeLayout!=activeLayout) {
             this.activeLayout = activeLayout;
@@ -175,4 +175,9 @@ public class PureSimulationLayout extends ADatablockLayout {
     public boolean displayVSpeedArrow(GuiRadarContact c) {
         return Math.abs(c.getVerticalSpeedD())>100;
     }
+
+    @Override
+    public boolean isDecluttering() {
+        return true;
+    }
 }
@@ -60,6 +60,14 @@ public class RadarContactTextPainter {
 
     private enum Case { TOP_LEFT, TOP_RIGHT, BOTTOM_RIGHT, BOTTOM_LEFT }
 
+    /** The data block is placed depending on the course of the contact */
+    public final static int PLACEMENT_AUTOMATIC = 0;
+    /** Automatic placement, followed by the four corners (in the order of Case) with a normal and a long leader line */
+    public final static int PLACEMENT_COUNT = 9;
+
+    // headings of the anchor for the corners in the order of Case
+    private final static double[] CORNER_HEADINGS = { 135d, 225d, 315d, 45d };
+
     private TrackDisplayState trackDisplayState;
     private final RadarDataBlockHelper textHelper;
     private Point2D currentDevicePosition;
@@ -68,9 +76,18 @@ public class RadarContactTextPainter {
     private volatile Rectangle2D displayExtents;
 
     private final static double LENGTH = 70d;
+    private final static double LONG_LENGTH = 110d;
+    // offsets of the anchor from the contact for the placements other than automatic
+    private final static Point2D[] PLACEMENT_OFFSETS = new Point2D[PLACEMENT_COUNT];
+    static {
+        for(int p=1;p<PLACEMENT_COUNT;p++) {
+            PLACEMENT_OFFSETS[p] = Converter2D.getMapDisplayPoint(new Point2D.Double(), CORNER_HEADINGS[(p-1)%4], p<=4 ? LENGTH : LONG_LENGTH);
+        }
+    }
     private final static double SPACE = 2d;
     private double symbolSpace = 0d;
 
+    private volatile int placement = PLACEMENT_AUTOMATIC;
     private volatile Point2D anchor = null;
     private volatile double newX ;
     private volatile double newY ;
@@ -157,10 +174,7 @@ public class RadarContactTextPainter {
                 g2d.setColor(Palette.BLACK);
             }
             
-            for(int i=0;i<textHelper.getLineCount(g2d);i++) {
-                g2d.drawString(textHelper.getLine(i),(float)(newX+SPACE),(float)(newY+textHelper.getLineYOffset(g2d, i)));
-
-            }
+            textHelper.drawLines(g2d, (float)(newX+SPACE), (float)newY);
 
             // the symbols
             if(textHelper.getAltSpeedLineIndex()>-1 && textHelper.displayVSpeedArrow()) {
@@ -175,36 +189,94 @@ public class RadarContactTextPainter {
     }
 
     private void constructBackgroundShapes(Point2D currentDevicePosition) {
+        // first text line will start at (newX, newY)
+        anchor = getAnchor(currentDevicePosition, placement);
+        Point2D textStart = getTextStart(anchor, getCase(placement));
+        newX = textStart.getX();
+        newY = textStart.getY();
 
-        double trueCourse = trackDisplayState.getGuiContact().getGroundSpeedD()>1 ? trackDisplayState.getGuiContact().getTrueCourseD() : 0d;
-        Case layout = getCase(trueCourse);
+        background = new RoundRectangle2D.Double(newX-SPACE,newY-SPACE, boundsText.getWidth()+2*SPACE+symbolSpace, boundsText.getHeight()+2*SPACE,10d,10d);
+    }
 
+    private double getTrueCourse() {
+        return trackDisplayState.getGuiContact().getGroundSpeedD()>1 ? trackDisplayState.getGuiContact().getTrueCourseD() : 0d;
+    }
 
-        // first text line will start at (dx, dy)
-        anchor = Converter2D.getMapDisplayPoint(currentDevicePosition, trueCourse + 135, LENGTH);
-        newX = -1;
-        newY = -1;
+    private Point2D getAnchor(Point2D currentDevicePosition, int placement) {
+        if(placement == PLACEMENT_AUTOMATIC) {
+            return Converter2D.getMapDisplayPoint(currentDevicePosition, getTrueCourse() + 135, LENGTH);
+        }
+        return new Point2D.Double(currentDevicePosition.getX()+PLACEMENT_OFFSETS[placement].getX(), currentDevicePosition.getY()+PLACEMENT_OFFSETS[placement].getY());
+    }
+
+    private Case getCase(int placement) {
+        if(placement == PLACEMENT_AUTOMATIC) {
+            return getCase(getTrueCourse());
+        }
+        return Case.values()[(placement-1)%4];
+    }
+
+    private Point2D getTextStart(Point2D anchor, Case layout) {
+        double x = -1;
+        double y = -1;
 
         switch(layout) {
         case TOP_LEFT:
-            newX = anchor.getX()+SPACE;
-            newY = anchor.getY()+SPACE;
+            x = anchor.getX()+SPACE;
+            y = anchor.getY()+SPACE;
             break;
         case TOP_RIGHT:
-            newX = anchor.getX()-boundsText.getWidth()-symbolSpace-SPACE;
-            newY = anchor.getY()+SPACE;
+            x = anchor.getX()-boundsText.getWidth()-symbolSpace-SPACE;
+            y = anchor.getY()+SPACE;
             break;
         case BOTTOM_RIGHT:
-            newX = anchor.getX()-boundsText.getWidth()-symbolSpace+SPACE;
-            newY = anchor.getY()-boundsText.getHeight()-2*SPACE;
+            x = anchor.getX()-boundsText.getWidth()-symbolSpace+SPACE;
+            y = anchor.getY()-boundsText.getHeight()-2*SPACE;
             break;
         case BOTTOM_LEFT:
-            newX = anchor.getX()+SPACE;
-            newY = anchor.getY()-boundsText.getHeight()-2*SPACE;
+            x = anchor.getX()+SPACE;
+            y = anchor.getY()-boundsText.getHeight()-2*SPACE;
             break;
         }
+        return new Point2D.Double(x, y);
+    }
 
-        background = new RoundRectangle2D.Double(newX-SPACE,newY-SPACE, boundsText.getWidth()+2*SPACE+symbolSpace, boundsText.getHeight()+2*SPACE,10d,10d);
+    public synchronized int getPlacement() {
+        return placement;
+    }
+
+    /**
+     * Selects where the data block is displayed, one of PLACEMENT_AUTOMATIC to PLACEMENT_COUNT-1.
+     * The new place takes effect with the next call of getDisplayExtents.
+     */
+    public synchronized void setPlacement(int placement) {
+        this.placement = placement;
+    }
+
+    public synchronized Point2D getDevicePosition() {
+        return currentDevicePosition;
+    }
+
+    /**
+     * Stores the background bounds of all placements as (minX, minY, maxX, maxY) into the array,
+     * starting at the given offset.
+     *
+     * @return <code>false</code> if the data block has not been painted yet or is empty
+     */
+    public synchronized boolean getPlacementBounds(double[] result, int offset) {
+        if(boundsText==null || currentDevicePosition==null || textHelper.isTextEmpty()) {
+            return false;
+        }
+        final double width = boundsText.getWidth()+2*SPACE+symbolSpace;
+        final double height = boundsText.getHeight()+2*SPACE;
+        for(int p=0;p<PLACEMENT_COUNT;p++) {
+            Point2D textStart = getTextStart(getAnchor(currentDevicePosition, p), getCase(p));
+            result[offset++] = textStart.getX()-SPACE;
+            result[offset++] = textStart.getY()-SPACE;
+            result[offset++] = textStart.getX()-SPACE+width;
+            result[offset++] = textStart.getY()-SPACE+height;
+        }
+        return true;
     }
 
     private Case getCase(double trueCourseD) {
@@ -35,6 +35,8 @@ package de.knewcleus.openradar.rpvd.contact;
 import java.awt.Color;
 import java.awt.Font;
 import java.awt.Graphics2D;
+import java.awt.font.FontRenderContext;
+import java.awt.font.GlyphVector;
 import java.awt.geom.Rectangle2D;
 import java.util.ArrayList;
 import java.util.Iterator;
@@ -49,6 +51,10 @@ import de.knewcleus.openradar.rpvd.TrackDisplayState;
  * It takes its content from GuiRadarContact, splits it into lines
  * and determines the measures...
  *
+ * The lines are shaped into glyph vectors once and reused as long as the text, the layout,
+ * the font and the font render context stay the same, which is most of the time between
+ * two radar sweeps.
+ *
  * @author Wolfram Wagner
  *
  */
@@ -61,10 +67,19 @@ public class RadarDataBlockHelper {
     private List<String> lineList = new ArrayList<String>();
     private List<Double> lineYOffsetList = new ArrayList<Double>();
     private List<Double> lineWidthList = new ArrayList<Double>();
+    private List<GlyphVector> glyphLineList = new ArrayList<GlyphVector>();
 
     private volatile Rectangle2D bounds = null;
     private volatile Double lineHeight = null;
 
+    // the key of the current layout
+    private ADatablockLayout layout;
+    private Font layoutFont;
+    private FontRenderContext layoutFrc;
+
+    private String altitudeText;
+    private double altitudeTextWidth;
+
     private final double SPACE;
     /**
      * This class implements a layout that does trying to get closer to the reality. There is no current heading
@@ -83,18 +98,42 @@ public class RadarDataBlockHelper {
 
     /*
      * Called as first method before displaying a text. Retrieves the text and determines the base values.
+     * The previous layout is kept, if neither the text nor the datablock layout have changed.
      */
     public void initializeDisplay() {
-        text = datablockLayoutManager.getActiveLayout().getDataBlockText(master, trackDisplayState.getGuiContact());
+        ADatablockLayout activeLayout = datablockLayoutManager.getActiveLayout();
+        String newText = activeLayout.getDataBlockText(master, trackDisplayState.getGuiContact());
+        if(newText.equals(text) && activeLayout == layout) {
+            return;
+        }
+        text = newText;
+        layout = activeLayout;
         lineList.clear();
         StringTokenizer st = new StringTokenizer(text,"\n");
         while(st.hasMoreElements()) {
             lineList.add(st.nextToken().trim());
         }
+        invalidateBounds();
+    }
+
+    private void invalidateBounds() {
         lineYOffsetList.clear();
         lineWidthList.clear();
+        glyphLineList.clear();
         bounds = null;
         lineHeight = null;
+        altitudeText = null;
+    }
+
+    /*
+     * Recalculates the measures, if the font or the font render context have changed since they have been calculated.
+     */
+    private void validateBounds(Graphics2D g2d) {
+        if(bounds != null && g2d.getFont().equals(layoutFont) && g2d.getFontRenderContext().equals(layoutFrc)) {
+            return;
+        }
+        invalidateBounds();
+        calculateBounds(g2d);
     }
 
     public boolean isTextEmpty() {
@@ -102,9 +141,7 @@ public class RadarDataBlockHelper {
     }
 
     public int getLineCount(Graphics2D g2d) {
-        if(bounds == null) {
-            calculateBounds(g2d);
-        }
+        validateBounds(g2d);
         return lineList.size();
     }
 
@@ -113,41 +150,45 @@ public class RadarDataBlockHelper {
     }
 
     public double getLineYOffset(Graphics2D g2d,int index) {
-        if(bounds == null) {
-            calculateBounds(g2d);
-        }
+        validateBounds(g2d);
         return lineYOffsetList.get(index);
     }
 
     public double getLineHeight(Graphics2D g2d) {
-        if(bounds == null) {
-            calculateBounds(g2d);
-        }
+        validateBounds(g2d);
         return lineHeight;
     }
 
     public double getLineWidth(Graphics2D g2d,int index) {
-        if(bounds == null) {
-            calculateBounds(g2d);
-        }
+        validateBounds(g2d);
         return lineWidthList.get(index);
     }
 
+    /** Draws the lines, x and y are the upper left corner of the text block */
+    public void drawLines(Graphics2D g2d, float x, float y) {
+        validateBounds(g2d);
+        for(int i=0;i<glyphLineList.size();i++) {
+            g2d.drawGlyphVector(glyphLineList.get(i), x, (float)(y+lineYOffsetList.get(i)));
+        }
+    }
+
     public Iterator<String> getLineIterator() {
         return lineList.iterator();
     }
 
     public Rectangle2D getBounds(Graphics2D g2d) {
-        if(bounds == null) {
-            calculateBounds(g2d);
-        }
+        validateBounds(g2d);
         return bounds;
     }
 
     private void calculateBounds(Graphics2D g2d) {
+        layoutFont = g2d.getFont();
+        layoutFrc = g2d.getFontRenderContext();
         // internal vertical zero is directly above first line
         for(String line : lineList) {
-            Rectangle2D lb = g2d.getFontMetrics().getStringBounds(line,g2d);
+            GlyphVector glyphLine = layoutFont.createGlyphVector(layoutFrc, line);
+            glyphLineList.add(glyphLine);
+            Rectangle2D lb = glyphLine.getLogicalBounds();
             if(bounds==null) {
                 // first line
                 bounds = new Rectangle2D.Double(0,
@@ -193,8 +234,14 @@ public class RadarDataBlockHelper {
     }
     
     public double getAltitudeTextWidth(Graphics2D g2d, GuiRadarContact guiContact) {
+        validateBounds(g2d);
         boolean bContainsAsterix = getLine(getAltSpeedLineIndex()).contains("*");
-        return g2d.getFontMetrics().getStringBounds(guiContact.getAltitudeString(master)+(bContainsAsterix?"*":""),g2d).getWidth();
+        String newAltitudeText = guiContact.getAltitudeString(master)+(bContainsAsterix?"*":"");
+        if(!newAltitudeText.equals(altitudeText)) {
+            altitudeTextWidth = layoutFont.getStringBounds(newAltitudeText,layoutFrc).getWidth();
+            altitudeText = newAltitudeText;
+        }
+        return altitudeTextWidth;
     }
 
     public boolean displayVSpeedArrow() {
@@ -249,5 +249,9 @@ public class SimulationLayout extends ADatablockLayout {
     public boolean displayVSpeedArrow(GuiRadarContact c) {
         return Math.abs(c.getVerticalSpeedD())>100;
     }
-    
+
+    @Override
+    public boolean isDecluttering() {
+        return true;
+    }
 }
@@ -33,19 +33,21 @@
  */
 package de.knewcleus.openradar.tracks;
 
-import java.util.List;
-
+import de.knewcleus.openradar.notify.INotifier;
 import de.knewcleus.openradar.radardata.IRadarDataPacket;
 
 /**
  * A track represents the state history of a radar target.
+ * 
+ * Tracks notify their listeners about updates and changes of their loss status,
+ * so that displays only need to listen to the tracks they show.
  *  
  * @author Ralf Gerlich
  * 
  * @see ITrackManager
  *
  */
-public interface ITrack {
+public interface ITrack extends INotifier {
 	/**
 	 * @return the number of states available.
 	 */
@@ -56,25 +58,12 @@ public interface ITrack {
 	 */
 	public boolean isLost();
 	
-	/**
-	 * Return the state with the given index.
-	 * 
-	 * The index must be in the range <code>[0;size())</code>
-	 * 
-	 * The current state has index 0, with indices increasing towards older states.
-	 * 
-	 * @param index		The index of the desired stat.
-	 * @return the state with the given index.
-	 * @throws IndexOutOfBoundsException	The given index is out of bounds.
-	 */
-	public IRadarDataPacket getState(int index);
-	
 	/**
 	 * Return the current state of the track.
-	 * This is equivalent to getState(0)
+	 * 
+	 * Older states are only retained in the {@link #getHistory() history}.
 	 * 
 	 * @return the current state of the track.
-	 * @see #getState(int)
 	 */
 	public IRadarDataPacket getCurrentState();
 	
@@ -82,5 +71,11 @@ public interface ITrack {
 
     public void resetTailOffset();
 
-    public List<IRadarDataPacket> getCopyOfHistory();
+    /**
+     * Return the state history of the track, the current state having age 0.
+     * 
+     * The history is backed by the track and does not copy any data. It must only be
+     * accessed on the thread delivering radar data to the track manager (the Swing thread).
+     */
+    public TrackHistory getHistory();
 }
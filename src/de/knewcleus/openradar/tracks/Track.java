@@ -33,18 +33,15 @@
  */
 package de.knewcleus.openradar.tracks;
 
-import java.util.ArrayList;
-import java.util.List;
-
+import de.knewcleus.openradar.notify.Notifier;
 import de.knewcleus.openradar.radardata.IRadarDataPacket;
 import de.knewcleus.openradar.radardata.fgmp.TargetStatus;
 
-public class Track implements ITrack {
+public class Track extends Notifier implements ITrack {
     private final TargetStatus identifier;
 	protected final static int historySize = 500;
-	protected final ArrayList<IRadarDataPacket> history = new ArrayList<IRadarDataPacket>(historySize);
-	protected int headIndex = historySize-1;
-	protected int size = 0;
+	protected final TrackHistory history = new TrackHistory(historySize);
+	protected IRadarDataPacket currentState = null;
 	protected long lastUpdateTimestamp = 0;
 	protected boolean lost = false;
 	
@@ -57,6 +54,7 @@ public class Track implements ITrack {
     
     public synchronized void destroy() {
     	history.clear();
+    	currentState = null;
     }
     
     public TargetStatus getIdentifier() {
@@ -65,16 +63,7 @@ public class Track implements ITrack {
     
 	@Override
 	public synchronized IRadarDataPacket getCurrentState() {
-		assert(size>0);
-		return history.get(0);
-	}
-
-	@Override
-	public synchronized IRadarDataPacket getState(int index) {
-		if (index>=history.size()) {
-			throw new IndexOutOfBoundsException();
-		}
-		return history.get(index);
+		return currentState;
 	}
 
 	@Override
@@ -97,10 +86,8 @@ public class Track implements ITrack {
 	public synchronized void addState(IRadarDataPacket state) {
 		assert(state!=null);
 
-		history.add(0, state);
-		if(history.size()>historySize) {
-		    history.remove(historySize-1);
-		}
+		history.add(state);
+		currentState = state;
 		++age;
         tailOffset++;
 	}
@@ -122,7 +109,8 @@ public class Track implements ITrack {
         
     }
     
-    public synchronized List<IRadarDataPacket> getCopyOfHistory() {
-        return new ArrayList<IRadarDataPacket>(history);
+    @Override
+    public TrackHistory getHistory() {
+        return history;
     }
 }
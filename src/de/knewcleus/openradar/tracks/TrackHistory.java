@@ -0,0 +1,186 @@
+/**
+ * Copyright (C) 2016 OpenRadar contributors
+ *
+ * This file is part of OpenRadar.
+ *
+ * OpenRadar is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * OpenRadar is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * OpenRadar. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Diese Datei ist Teil von OpenRadar.
+ *
+ * OpenRadar ist Freie Software: Sie können es unter den Bedingungen der GNU
+ * General Public License, wie von der Free Software Foundation, Version 3 der
+ * Lizenz oder (nach Ihrer Option) jeder späteren veröffentlichten Version,
+ * weiterverbreiten und/oder modifizieren.
+ *
+ * OpenRadar wird in der Hoffnung, dass es nützlich sein wird, aber OHNE JEDE
+ * GEWÄHRLEISTUNG, bereitgestellt; sogar ohne die implizite Gewährleistung der
+ * MARKTFÄHIGKEIT oder EIGNUNG FÜR EINEN BESTIMMTEN ZWECK. Siehe die GNU General
+ * Public License für weitere Details.
+ *
+ * Sie sollten eine Kopie der GNU General Public License zusammen mit diesem
+ * Programm erhalten haben. Wenn nicht, siehe <http://www.gnu.org/licenses/>.
+ */
+package de.knewcleus.openradar.tracks;
+
+import java.awt.geom.Point2D;
+
+import de.knewcleus.openradar.radardata.IRadarDataPacket;
+import de.knewcleus.openradar.rpvd.contact.ContactShape.Symbol;
+
+/**
+ * The state history of a track, kept in primitive columns of a fixed capacity ring.
+ * 
+ * Only the values needed for trails are retained, so the radar data packets themselves
+ * can be discarded once they have been added. Besides the radar data, each entry carries
+ * the logical position and the symbol assigned by the display, so that shapes need only
+ * be created for the dots which are actually painted.
+ * 
+ * Entries are addressed by their age: 0 is the newest entry, <code>size()-1</code> the oldest.
+ * 
+ * The history is not synchronized, it must only be accessed by the thread delivering radar data.
+ */
+public class TrackHistory {
+	protected final static Symbol[] symbols = Symbol.values();
+	
+	protected final float[] timestamp;
+	protected final double[] longitude;
+	protected final double[] latitude;
+	protected final float[] altitude;
+	protected final float[] velocity;
+	protected final float[] trueCourse;
+	
+	protected final double[] logicalX;
+	protected final double[] logicalY;
+	protected final byte[] symbol;
+	protected final float[] symbolSize;
+	
+	protected int newest = -1;
+	protected int size = 0;
+	
+	public TrackHistory(int capacity) {
+		timestamp = new float[capacity];
+		longitude = new double[capacity];
+		latitude = new double[capacity];
+		altitude = new float[capacity];
+		velocity = new float[capacity];
+		trueCourse = new float[capacity];
+		logicalX = new double[capacity];
+		logicalY = new double[capacity];
+		symbol = new byte[capacity];
+		symbolSize = new float[capacity];
+	}
+	
+	public int getCapacity() {
+		return timestamp.length;
+	}
+	
+	public int size() {
+		return size;
+	}
+	
+	/**
+	 * Add the given state as the newest entry, overwriting the oldest one if the history is full.
+	 */
+	public void add(IRadarDataPacket state) {
+		newest = (newest + 1) % timestamp.length;
+		if (size < timestamp.length) {
+			size++;
+		}
+		final Point2D position = state.getPosition();
+		timestamp[newest] = state.getTimestamp();
+		longitude[newest] = position.getX();
+		latitude[newest] = position.getY();
+		altitude[newest] = state.getAltitude();
+		velocity[newest] = state.getCalculatedVelocity();
+		trueCourse[newest] = state.getCalculatedTrueCourse();
+		logicalX[newest] = Double.NaN;
+		logicalY[newest] = Double.NaN;
+		symbol[newest] = 0;
+		symbolSize[newest] = 0f;
+	}
+	
+	public void clear() {
+		newest = -1;
+		size = 0;
+	}
+	
+	protected int slot(int age) {
+		if (age < 0 || age >= size) {
+			throw new IndexOutOfBoundsException("age " + age + ", size " + size);
+		}
+		final int slot = newest - age;
+		return (slot < 0 ? slot + timestamp.length : slot);
+	}
+	
+	public float getTimestamp(int age) {
+		return timestamp[slot(age)];
+	}
+	
+	public double getLongitude(int age) {
+		return longitude[slot(age)];
+	}
+	
+	public double getLatitude(int age) {
+		return latitude[slot(age)];
+	}
+	
+	public float getAltitude(int age) {
+		return altitude[slot(age)];
+	}
+	
+	public float getCalculatedVelocity(int age) {
+		return velocity[slot(age)];
+	}
+	
+	public float getCalculatedTrueCourse(int age) {
+		return trueCourse[slot(age)];
+	}
+	
+	/**
+	 * @return the logical x coordinate, or <code>NaN</code> if it was not yet set.
+	 */
+	public double getLogicalX(int age) {
+		return logicalX[slot(age)];
+	}
+	
+	/**
+	 * @return the logical y coordinate, or <code>NaN</code> if it was not yet set.
+	 */
+	public double getLogicalY(int age) {
+		return logicalY[slot(age)];
+	}
+	
+	public void setLogicalPosition(int age, Point2D logicalPosition) {
+		final int slot = slot(age);
+		logicalX[slot] = logicalPosition.getX();
+		logicalY[slot] = logicalPosition.getY();
+	}
+	
+	/**
+	 * @return the symbol the entry was displayed with while it was current, or <code>null</code>.
+	 */
+	public Symbol getSymbol(int age) {
+		final int ordinal = symbol[slot(age)];
+		return (ordinal == 0 ? null : symbols[ordinal - 1]);
+	}
+	
+	public float getSymbolSize(int age) {
+		return symbolSize[slot(age)];
+	}
+	
+	public void setSymbol(int age, Symbol type, double size) {
+		final int slot = slot(age);
+		symbol[slot] = (byte) (type == null ? 0 : type.ordinal() + 1);
+		symbolSize[slot] = (float) size;
+	}
+}
@@ -49,4 +49,8 @@ public class TrackLossStatusNotification implements INotification {
 	public TrackLossStatusNotification(ITrack track) {
 		this.track = track;
 	}
+
+	public ITrack getTrack() {
+		return track;
+	}
 }
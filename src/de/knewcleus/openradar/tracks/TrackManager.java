@@ -37,19 +37,26 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import de.knewcleus.openradar.notify.Notifier;
+import de.knewcleus.openradar.radardata.IRadarDataBatchRecipient;
 import de.knewcleus.openradar.radardata.IRadarDataPacket;
 import de.knewcleus.openradar.radardata.IRadarDataProvider;
-import de.knewcleus.openradar.radardata.IRadarDataRecipient;
 import de.knewcleus.openradar.radardata.fgmp.RadarDataPacket;
 import de.knewcleus.openradar.radardata.fgmp.TargetStatus;
 import de.knewcleus.openradar.tracks.TrackLifetimeNotification.LifetimeState;
 
-public class TrackManager extends Notifier implements ITrackManager, IRadarDataRecipient {
+public class TrackManager extends Notifier implements ITrackManager, IRadarDataBatchRecipient {
 	
 	protected final Map<TargetStatus, Track> trackMap=Collections.synchronizedMap(new HashMap<TargetStatus, Track>());
+	/**
+	 * The tracks updated since the last end of a radar data batch.
+	 */
+	protected final Set<ITrack> updatedTracks = new LinkedHashSet<ITrack>();
 	/**
 	 * The length of the time in milliseconds to wait between the last signal and
 	 * the assumption of loss of target.
@@ -75,12 +82,13 @@ public class TrackManager extends Notifier implements ITrackManager, IRadarDataR
 		}
 
 		track.addState(radarData);
-		notify(new TrackUpdateNotification()); // tell listeners about new track
+		track.notify(new TrackUpdateNotification(track)); // tell the track's listeners about the new state
+		updatedTracks.add(track);
 		
 		if (track.isLost() && radarData.wasSeenOnLastScan()) {
 		    // track came back
 			track.setLost(false);
-			notify(new TrackLossStatusNotification(track)); // tell listeners about re-appeared track
+			track.notify(new TrackLossStatusNotification(track)); // tell listeners about re-appeared track
 		}
 		track.setLastUpdateTimestamp(System.currentTimeMillis());
 		
@@ -89,6 +97,16 @@ public class TrackManager extends Notifier implements ITrackManager, IRadarDataR
 		}
 	}
 	
+	@Override
+	public synchronized void acceptEndOfBatch(IRadarDataProvider provider) {
+		if (updatedTracks.isEmpty()) {
+			return;
+		}
+		final List<ITrack> batch = new ArrayList<ITrack>(updatedTracks);
+		updatedTracks.clear();
+		notify(new SweepCompleteNotification(this, batch));
+	}
+	
 	/**
 	 * Check for target loss or track retirement.
 	 * 
@@ -105,6 +123,7 @@ public class TrackManager extends Notifier implements ITrackManager, IRadarDataR
 				/* retire track */
 				track.destroy();
                 trackMap.remove(track.getIdentifier());
+                updatedTracks.remove(track);
 				notify(new TrackLifetimeNotification(this, track, LifetimeState.RETIRED));
 			} else if (trackAge > lossOfTrackTimeoutMsecs) {
 				/* consider track lost*/
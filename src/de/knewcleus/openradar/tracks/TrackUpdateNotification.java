@@ -39,7 +39,19 @@ import de.knewcleus.openradar.notify.INotification;
  * A TrackUpdateNotification is issued by a track when the track is updated
  * with new state information.
  * 
+ * It is only delivered to the listeners of that track.
+ * 
  * @author Ralf Gerlich
  *
  */
-public class TrackUpdateNotification implements INotification {}
+public class TrackUpdateNotification implements INotification {
+	protected final ITrack track;
+
+	public TrackUpdateNotification(ITrack track) {
+		this.track = track;
+	}
+
+	public ITrack getTrack() {
+		return track;
+	}
+}
@@ -0,0 +1,400 @@
+/**
+ * Copyright (C) 2016 OpenRadar contributors
+ *
+ * This file is part of OpenRadar.
+ *
+ * OpenRadar is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * OpenRadar is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * OpenRadar. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Diese Datei ist Teil von OpenRadar.
+ *
+ * OpenRadar ist Freie Software: Sie können es unter den Bedingungen der GNU
+ * General Public License, wie von der Free Software Foundation, Version 3 der
+ * Lizenz oder (nach Ihrer Option) jeder späteren veröffentlichten Version,
+ * weiterverbreiten und/oder modifizieren.
+ *
+ * OpenRadar wird in der Hoffnung, dass es nützlich sein wird, aber OHNE JEDE
+ * GEWÄHRLEISTUNG, bereitgestellt; sogar ohne die implizite Gewährleistung der
+ * MARKTFÄHIGKEIT oder EIGNUNG FÜR EINEN BESTIMMTEN ZWECK. Siehe die GNU General
+ * Public License für weitere Details.
+ *
+ * Sie sollten eine Kopie der GNU General Public License zusammen mit diesem
+ * Programm erhalten haben. Wenn nicht, siehe <http://www.gnu.org/licenses/>.
+ */
+package de.knewcleus.openradar.view;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.Rectangle;
+import java.awt.RenderingHints;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Point2D;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.LinkedBlockingDeque;
+
+import javax.swing.SwingUtilities;
+
+import org.apache.log4j.LogManager;
+import org.apache.log4j.Logger;
+
+import de.knewcleus.openradar.notify.INotification;
+import de.knewcleus.openradar.notify.INotificationListener;
+import de.knewcleus.openradar.view.map.ProjectionNotification;
+
+/**
+ * A layered view for static content which is rasterized into cached tiles and then only blitted.
+ * 
+ * The tiles form a pyramid: each logical scale (zoom level) has its own grid of tiles of
+ * {@value #TILE_SIZE} pixels, aligned in logical coordinates so that panning reuses them.
+ * Missing tiles are rendered lazily by a background thread and shown once they are ready.
+ * The tiles are kept in an LRU cache limited by <code>de.knewcleus.openradar.tileCacheMB</code>.
+ * 
+ * Only views implementing {@link ITileRenderable} are rasterized, other views are painted on top
+ * of the tiles on every repaint. The cache is cleared when the projection changes, views are added
+ * or removed, or the visibility of a layer changes. Picking, tooltips and all other visitors
+ * traverse the contained views as usual.
+ * 
+ * The tiles are opaque and filled with the background color, so this view must be the lowest layer.
+ */
+public class CachedLayeredView extends LayeredView implements INotificationListener {
+    public static final int TILE_SIZE = 256;
+
+    protected static final long cacheBudgetBytes = Integer.getInteger("de.knewcleus.openradar.tileCacheMB", 96) * 1024L * 1024L;
+
+    private static final Logger log = LogManager.getLogger(CachedLayeredView.class);
+
+    /* all accesses to the tile cache and the pending tiles are synchronized on the tile cache */
+    protected final LinkedHashMap<TileKey, BufferedImage> tileCache = new LinkedHashMap<TileKey, BufferedImage>(64, 0.75f, true);
+    protected final Set<TileKey> pendingTiles = new HashSet<TileKey>();
+    protected long cachedBytes = 0;
+    protected long hitCount = 0, missCount = 0, evictionCount = 0, renderCount = 0;
+
+    protected final LinkedBlockingDeque<TileRequest> renderQueue = new LinkedBlockingDeque<TileRequest>();
+    protected Thread tileRenderer = null;
+    protected volatile int generation = 0;
+
+    /* the state the cached tiles were rendered for */
+    protected Color cachedBackground = null;
+    protected long cachedVisibility = 0;
+
+    public CachedLayeredView(IViewerAdapter mapViewAdapter) {
+        super(mapViewAdapter);
+        mapViewAdapter.registerListener(this);
+    }
+
+    /**
+     * Discard all cached tiles.
+     */
+    public void invalidateCache() {
+        synchronized (tileCache) {
+            generation++;
+            renderQueue.clear();
+            pendingTiles.clear();
+            tileCache.clear();
+            cachedBytes = 0;
+            if (log.isDebugEnabled()) {
+                log.debug("Tile cache cleared, " + getStatistics());
+            }
+        }
+    }
+
+    public String getStatistics() {
+        synchronized (tileCache) {
+            return "tiles: " + tileCache.size() + " (" + (cachedBytes / 1024) + " kB), hits: " + hitCount + ", misses: " + missCount
+                    + ", rendered: " + renderCount + ", evicted: " + evictionCount;
+        }
+    }
+
+    public long getHitCount() {
+        synchronized (tileCache) {
+            return hitCount;
+        }
+    }
+
+    public long getMissCount() {
+        synchronized (tileCache) {
+            return missCount;
+        }
+    }
+
+    public long getEvictionCount() {
+        synchronized (tileCache) {
+            return evictionCount;
+        }
+    }
+
+    @Override
+    public synchronized void pushView(IView view) {
+        invalidateCache();
+        super.pushView(view);
+    }
+
+    @Override
+    public synchronized void insertView(int index, IView view) {
+        invalidateCache();
+        super.insertView(index, view);
+    }
+
+    @Override
+    public synchronized void removeView(IView view) {
+        invalidateCache();
+        super.removeView(view);
+    }
+
+    @Override
+    public void acceptNotification(INotification notification) {
+        if (notification instanceof ProjectionNotification) {
+            invalidateCache();
+        }
+        /* panning and zooming only select other tiles */
+    }
+
+    @Override
+    public synchronized void accept(IViewVisitor visitor) {
+        if (visitor instanceof ViewPaintVisitor) {
+            /* paint the cached tiles instead of the contained views */
+            visitor.visitView(this);
+        } else {
+            super.accept(visitor);
+        }
+    }
+
+    @Override
+    public synchronized void paint(Graphics2D g2d) {
+        final long visibility = getVisibilityMask();
+        if (!g2d.getBackground().equals(cachedBackground) || visibility != cachedVisibility) {
+            invalidateCache();
+            cachedBackground = g2d.getBackground();
+            cachedVisibility = visibility;
+        }
+
+        final double scale = viewAdapter.getLogicalScale();
+        final double tileExtent = TILE_SIZE * scale;
+        final AffineTransform logicalToDevice = viewAdapter.getLogicalToDeviceTransform();
+        final Rectangle clip = g2d.getClipBounds();
+        final Rectangle2D logicalClip = viewAdapter.getDeviceToLogicalTransform().createTransformedShape(clip).getBounds2D();
+        final int minX = (int) Math.floor(logicalClip.getMinX() / tileExtent);
+        final int maxX = (int) Math.floor(logicalClip.getMaxX() / tileExtent);
+        final int minY = (int) Math.floor(logicalClip.getMinY() / tileExtent);
+        final int maxY = (int) Math.floor(logicalClip.getMaxY() / tileExtent);
+
+        final Point2D corner = new Point2D.Double();
+        for (int ty = minY; ty <= maxY; ty++) {
+            for (int tx = minX; tx <= maxX; tx++) {
+                final TileKey key = new TileKey(scale, tx, ty);
+                final BufferedImage tile = getTile(key, g2d);
+                if (tile != null) {
+                    /* the upper left corner of the tile, logical y points upwards */
+                    corner.setLocation(tx * tileExtent, (ty + 1) * tileExtent);
+                    logicalToDevice.transform(corner, corner);
+                    g2d.drawImage(tile, (int) Math.round(corner.getX()), (int) Math.round(corner.getY()), null);
+                }
+            }
+        }
+
+        final ViewPaintVisitor paintVisitor = new ViewPaintVisitor(g2d);
+        for (IView view : getViewSnapshot()) {
+            if (!(view instanceof ITileRenderable)) {
+                view.accept(paintVisitor);
+            }
+        }
+    }
+
+    /**
+     * Layers may be switched on and off without notifying this view, so their visibility is part of the cache state.
+     */
+    protected long getVisibilityMask() {
+        long mask = 0;
+        synchronized (views) {
+            for (int i = 0; i < views.size() && i < 64; i++) {
+                if (views.get(i).isVisible()) {
+                    mask |= 1L << i;
+                }
+            }
+        }
+        return mask;
+    }
+
+    protected List<IView> getViewSnapshot() {
+        synchronized (views) {
+            return new ArrayList<IView>(views);
+        }
+    }
+
+    /**
+     * @return the cached tile, or <code>null</code> if it still needs to be rendered, in which case it is requested.
+     */
+    protected BufferedImage getTile(TileKey key, Graphics2D g2d) {
+        synchronized (tileCache) {
+            final BufferedImage tile = tileCache.get(key);
+            if (tile != null) {
+                hitCount++;
+                return tile;
+            }
+            missCount++;
+            if (pendingTiles.add(key)) {
+                /* the latest requests are the most relevant ones */
+                renderQueue.addFirst(new TileRequest(key, generation, cachedBackground, g2d.getDeviceConfiguration(), g2d.getRenderingHints()));
+                startTileRenderer();
+            }
+            return null;
+        }
+    }
+
+    protected void startTileRenderer() {
+        if (tileRenderer != null) {
+            return;
+        }
+        tileRenderer = new Thread("OpenRadar - TileRenderer") {
+            @Override
+            public void run() {
+                while (true) {
+                    try {
+                        renderTile(renderQueue.takeFirst());
+                    } catch (InterruptedException e) {
+                        return;
+                    } catch (RuntimeException e) {
+                        log.error("Error while rendering map tile!", e);
+                    }
+                }
+            }
+        };
+        tileRenderer.setDaemon(true);
+        tileRenderer.start();
+    }
+
+    protected void renderTile(TileRequest request) {
+        final TileKey key = request.key;
+        try {
+            if (request.generation != generation || key.scale != viewAdapter.getLogicalScale()) {
+                /* outdated or zoomed away in the meantime */
+                return;
+            }
+            final BufferedImage tile = (request.graphicsConfiguration != null ? request.graphicsConfiguration.createCompatibleImage(TILE_SIZE, TILE_SIZE)
+                    : new BufferedImage(TILE_SIZE, TILE_SIZE, BufferedImage.TYPE_INT_RGB));
+            final Graphics2D g2d = tile.createGraphics();
+            try {
+                g2d.setRenderingHints(request.renderingHints);
+                g2d.setBackground(request.background);
+                g2d.clearRect(0, 0, TILE_SIZE, TILE_SIZE);
+                g2d.setClip(0, 0, TILE_SIZE, TILE_SIZE);
+                /* maps the logical area of the tile onto the tile, flipping the y axis */
+                final double tileExtent = TILE_SIZE * key.scale;
+                final AffineTransform logicalToTile = new AffineTransform(1.0 / key.scale, 0, 0, -1.0 / key.scale,
+                        -key.x * tileExtent / key.scale, (key.y + 1) * tileExtent / key.scale);
+                for (IView view : getViewSnapshot()) {
+                    if (view instanceof ITileRenderable && view.isVisible()) {
+                        ((ITileRenderable) view).paint(g2d, logicalToTile);
+                    }
+                }
+            } finally {
+                g2d.dispose();
+            }
+
+            synchronized (tileCache) {
+                if (request.generation != generation) {
+                    return;
+                }
+                tileCache.put(key, tile);
+                cachedBytes += getTileBytes(tile);
+                renderCount++;
+                final Iterator<Map.Entry<TileKey, BufferedImage>> lruIterator = tileCache.entrySet().iterator();
+                while (cachedBytes > cacheBudgetBytes && lruIterator.hasNext()) {
+                    final Map.Entry<TileKey, BufferedImage> eldest = lruIterator.next();
+                    cachedBytes -= getTileBytes(eldest.getValue());
+                    lruIterator.remove();
+                    evictionCount++;
+                }
+            }
+        } finally {
+            /* also if painting failed, otherwise the tile would never be requested again */
+            synchronized (tileCache) {
+                if (request.generation == generation) {
+                    /* an invalidation has already cleared the pending tiles of older generations */
+                    pendingTiles.remove(key);
+                }
+            }
+        }
+
+        SwingUtilities.invokeLater(new Runnable() {
+            @Override
+            public void run() {
+                repaintTile(key);
+            }
+        });
+    }
+
+    protected void repaintTile(TileKey key) {
+        if (key.scale != viewAdapter.getLogicalScale()) {
+            return;
+        }
+        final double tileExtent = TILE_SIZE * key.scale;
+        final Rectangle2D logicalBounds = new Rectangle2D.Double(key.x * tileExtent, key.y * tileExtent, tileExtent, tileExtent);
+        final Rectangle2D deviceBounds = viewAdapter.getLogicalToDeviceTransform().createTransformedShape(logicalBounds).getBounds2D();
+        viewAdapter.getUpdateManager().markRegionDirty(deviceBounds);
+    }
+
+    protected static long getTileBytes(BufferedImage tile) {
+        return 4L * tile.getWidth() * tile.getHeight();
+    }
+
+    protected static class TileKey {
+        protected final double scale;
+        protected final int x, y;
+
+        public TileKey(double scale, int x, int y) {
+            this.scale = scale;
+            this.x = x;
+            this.y = y;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof TileKey)) {
+                return false;
+            }
+            final TileKey other = (TileKey) obj;
+            return other.x == x && other.y == y && Double.doubleToLongBits(other.scale) == Double.doubleToLongBits(scale);
+        }
+
+        @Override
+        public int hashCode() {
+            final long scaleBits = Double.doubleToLongBits(scale);
+            return ((int) (scaleBits ^ (scaleBits >>> 32)) * 31 + x) * 31 + y;
+        }
+    }
+
+    protected static class TileRequest {
+        protected final TileKey key;
+        protected final int generation;
+        protected final Color background;
+        protected final GraphicsConfiguration graphicsConfiguration;
+        protected final RenderingHints renderingHints;
+
+        public TileRequest(TileKey key, int generation, Color background, GraphicsConfiguration graphicsConfiguration, RenderingHints renderingHints) {
+            this.key = key;
+            this.generation = generation;
+            this.background = background;
+            this.graphicsConfiguration = graphicsConfiguration;
+            this.renderingHints = renderingHints;
+        }
+    }
+}
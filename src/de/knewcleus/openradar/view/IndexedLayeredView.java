@@ -0,0 +1,234 @@
+/**
+ * Copyright (C) 2016 OpenRadar contributors
+ *
+ * This file is part of OpenRadar.
+ *
+ * OpenRadar is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * OpenRadar is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * OpenRadar. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Diese Datei ist Teil von OpenRadar.
+ *
+ * OpenRadar ist Freie Software: Sie können es unter den Bedingungen der GNU
+ * General Public License, wie von der Free Software Foundation, Version 3 der
+ * Lizenz oder (nach Ihrer Option) jeder späteren veröffentlichten Version,
+ * weiterverbreiten und/oder modifizieren.
+ *
+ * OpenRadar wird in der Hoffnung, dass es nützlich sein wird, aber OHNE JEDE
+ * GEWÄHRLEISTUNG, bereitgestellt; sogar ohne die implizite Gewährleistung der
+ * MARKTFÄHIGKEIT oder EIGNUNG FÜR EINEN BESTIMMTEN ZWECK. Siehe die GNU General
+ * Public License für weitere Details.
+ *
+ * Sie sollten eine Kopie der GNU General Public License zusammen mit diesem
+ * Programm erhalten haben. Wenn nicht, siehe <http://www.gnu.org/licenses/>.
+ */
+package de.knewcleus.openradar.view;
+
+import java.awt.Point;
+import java.awt.geom.Point2D;
+import java.awt.geom.Rectangle2D;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+import de.knewcleus.openradar.notify.INotification;
+import de.knewcleus.openradar.notify.INotificationListener;
+import de.knewcleus.openradar.view.groundnet.ISelectable;
+import de.knewcleus.openradar.view.map.ProjectionNotification;
+
+/**
+ * A layered view for many small, static views like navaids, which answers tooltip requests and picks through a
+ * uniform grid of the display extents instead of asking every contained view.
+ * 
+ * The grid covers the viewer extents with cells of {@value #CELL_SIZE} pixels and holds the views intersecting
+ * them. It is built with the first request after the coordinate system or the projection changed or views have been
+ * added or removed, so panning and zooming do not pay for it. Views without extents and views covering more than
+ * {@value #MAX_CELLS} cells are asked for every request. The contained views are asked in the same order as by the
+ * {@link LayeredView}, so the results do not change.
+ * 
+ * The display extents of the contained views must only change with the coordinate system or the projection, moving
+ * views like radar targets belong into a {@link LayeredView}.
+ */
+public class IndexedLayeredView extends LayeredView implements INotificationListener {
+    public static final int CELL_SIZE = 32;
+    public static final int MAX_CELLS = 256;
+
+    /* the index is rebuilt when the generation has changed since it was built, it is accessed synchronized on the view */
+    protected volatile int generation = 0;
+    protected int indexGeneration = -1;
+    protected IView[] indexedViews = new IView[0];
+    protected Rectangle2D indexExtents = null;
+    protected int columns;
+    protected int rows;
+    protected int[] cellHead = new int[0];
+    protected int[] entryView = new int[256];
+    protected int[] entryNext = new int[256];
+    protected int entryCount;
+    protected int[] unboundedViews = new int[16];
+    protected int unboundedCount;
+
+    public IndexedLayeredView(IViewerAdapter mapViewAdapter) {
+        super(mapViewAdapter);
+        mapViewAdapter.registerListener(this);
+    }
+
+    @Override
+    public synchronized void pushView(IView view) {
+        generation++;
+        super.pushView(view);
+    }
+
+    @Override
+    public synchronized void insertView(int index, IView view) {
+        generation++;
+        super.insertView(index, view);
+    }
+
+    @Override
+    public synchronized void removeView(IView view) {
+        generation++;
+        super.removeView(view);
+    }
+
+    @Override
+    public void acceptNotification(INotification notification) {
+        if (notification instanceof CoordinateSystemNotification || notification instanceof ProjectionNotification) {
+            generation++;
+        }
+    }
+
+    @Override
+    public synchronized void traverse(IViewVisitor visitor) {
+        if (!(visitor instanceof PickVisitor)) {
+            super.traverse(visitor);
+            return;
+        }
+        final List<IView> candidates = getCandidates(((PickVisitor) visitor).getPoint());
+        if (candidates == null) {
+            super.traverse(visitor);
+            return;
+        }
+        List<IView> selectedViews = new ArrayList<IView>();
+        for (IView view : candidates) {
+            if (view instanceof ISelectable && ((ISelectable) view).isSelected()) {
+                selectedViews.add(view);
+            } else {
+                view.accept(visitor);
+            }
+        }
+        for (IView view : selectedViews) {
+            view.accept(visitor);
+        }
+    }
+
+    @Override
+    public String getTooltipText(Point p) {
+        final List<IView> candidates;
+        synchronized (this) {
+            candidates = getCandidates(p);
+        }
+        if (candidates == null) {
+            return super.getTooltipText(p);
+        }
+        for (IView view : candidates) {
+            String text = view.getTooltipText(p);
+            if (text != null)
+                return text;
+        }
+        return null;
+    }
+
+    /**
+     * Returns the views which may contain the given device point in the order of the layer stack, or null if the
+     * point is outside of the index.
+     */
+    protected List<IView> getCandidates(Point2D p) {
+        if (indexGeneration != generation) {
+            buildIndex();
+        }
+        final int column = (int) Math.floor((p.getX() - indexExtents.getMinX()) / CELL_SIZE);
+        final int row = (int) Math.floor((p.getY() - indexExtents.getMinY()) / CELL_SIZE);
+        if (column < 0 || column >= columns || row < 0 || row >= rows) {
+            return null;
+        }
+        final BitSet found = new BitSet(indexedViews.length);
+        for (int e = cellHead[row * columns + column]; e >= 0; e = entryNext[e]) {
+            found.set(entryView[e]);
+        }
+        for (int i = 0; i < unboundedCount; i++) {
+            found.set(unboundedViews[i]);
+        }
+        final List<IView> candidates = new ArrayList<IView>(found.cardinality());
+        for (int i = found.nextSetBit(0); i >= 0; i = found.nextSetBit(i + 1)) {
+            candidates.add(indexedViews[i]);
+        }
+        return candidates;
+    }
+
+    protected void buildIndex() {
+        indexGeneration = generation;
+        synchronized (views) {
+            indexedViews = views.toArray(new IView[views.size()]);
+        }
+        indexExtents = viewAdapter.getViewerExtents();
+        columns = Math.max(1, (int) Math.ceil(indexExtents.getWidth() / CELL_SIZE));
+        rows = Math.max(1, (int) Math.ceil(indexExtents.getHeight() / CELL_SIZE));
+        if (cellHead.length < columns * rows) {
+            cellHead = new int[columns * rows];
+        }
+        Arrays.fill(cellHead, -1);
+        entryCount = 0;
+        unboundedCount = 0;
+
+        for (int i = 0; i < indexedViews.length; i++) {
+            final Rectangle2D extents = indexedViews[i] instanceof IBoundedView ? ((IBoundedView) indexedViews[i]).getDisplayExtents() : null;
+            if (extents == null || extents.isEmpty()) {
+                addUnbounded(i);
+                continue;
+            }
+            if (!extents.intersects(indexExtents)) {
+                continue;
+            }
+            // one pixel more to be safe against rounding in the views
+            final int minColumn = Math.max(0, (int) Math.floor((extents.getMinX() - 1 - indexExtents.getMinX()) / CELL_SIZE));
+            final int maxColumn = Math.min(columns - 1, (int) Math.floor((extents.getMaxX() + 1 - indexExtents.getMinX()) / CELL_SIZE));
+            final int minRow = Math.max(0, (int) Math.floor((extents.getMinY() - 1 - indexExtents.getMinY()) / CELL_SIZE));
+            final int maxRow = Math.min(rows - 1, (int) Math.floor((extents.getMaxY() + 1 - indexExtents.getMinY()) / CELL_SIZE));
+            if ((maxColumn - minColumn + 1) * (maxRow - minRow + 1) > MAX_CELLS) {
+                addUnbounded(i);
+                continue;
+            }
+            for (int row = minRow; row <= maxRow; row++) {
+                for (int column = minColumn; column <= maxColumn; column++) {
+                    addEntry(row * columns + column, i);
+                }
+            }
+        }
+    }
+
+    private void addEntry(int cell, int view) {
+        if (entryCount == entryView.length) {
+            entryView = Arrays.copyOf(entryView, entryCount * 2);
+            entryNext = Arrays.copyOf(entryNext, entryCount * 2);
+        }
+        entryView[entryCount] = view;
+        entryNext[entryCount] = cellHead[cell];
+        cellHead[cell] = entryCount++;
+    }
+
+    private void addUnbounded(int view) {
+        if (unboundedCount == unboundedViews.length) {
+            unboundedViews = Arrays.copyOf(unboundedViews, unboundedCount * 2);
+        }
+        unboundedViews[unboundedCount++] = view;
+    }
+}
@@ -62,6 +62,18 @@ public class LayeredView implements IContainer {
         }
     }
 
+    /**
+     * Inserts the view at the given position of the layer stack, index 0 being painted first.
+     */
+    public synchronized void insertView(int index, IView view) {
+        views.add(index, view);
+        if (view instanceof IBoundedView) {
+            viewAdapter.getUpdateManager().markRegionDirty(((IBoundedView) view).getDisplayExtents());
+        } else {
+            viewAdapter.getUpdateManager().markViewportDirty();
+        }
+    }
+
     public synchronized void removeView(IView view) {
         if (view instanceof IBoundedView) {
             viewAdapter.getUpdateManager().markRegionDirty(((IBoundedView) view).getDisplayExtents());
@@ -47,6 +47,10 @@ public class PickVisitor implements IViewVisitor {
 		this.outputIterator = outputIterator;
 	}
 
+	public Point2D getPoint() {
+		return point;
+	}
+
 	@Override
 	public void visitContainer(IContainer container) {
 		if (mayBeInside(container)) {
@@ -33,6 +33,7 @@
 package de.knewcleus.openradar.view;
 
 import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
 import java.awt.Rectangle;
 import java.awt.geom.Rectangle2D;
 import java.awt.image.BufferedImage;
@@ -42,6 +43,10 @@ import javax.swing.JComponent;
 public class SwingUpdateManager extends AbstractUpdateManager {
 	protected final JComponent managedComponent;
 	protected boolean buffering = true;
+	/**
+	 * The offscreen buffer is kept across repaints and only reallocated when a larger region is repainted.
+	 */
+	protected BufferedImage bufferImage = null;
 
 	public SwingUpdateManager(JComponent managedComponent) {
 		this.managedComponent = managedComponent;
@@ -77,9 +82,7 @@ public class SwingUpdateManager extends AbstractUpdateManager {
 		}
 		final Rectangle clipBounds = g2d.getClipBounds();
 		try {
-			final BufferedImage bufferImage = new BufferedImage(
-					clipBounds.width, clipBounds.height,
-					BufferedImage.TYPE_INT_ARGB);
+			final BufferedImage bufferImage = getBufferImage(clipBounds.width, clipBounds.height);
 			
 			final Graphics2D bufferedGraphics = bufferImage.createGraphics();
 			try {
@@ -95,13 +98,32 @@ public class SwingUpdateManager extends AbstractUpdateManager {
 				bufferedGraphics.setStroke(g2d.getStroke());
 				
 				super.paint(bufferedGraphics);
-				g2d.drawImage(bufferImage, null, clipBounds.x, clipBounds.y);
+				g2d.drawImage(bufferImage,
+						clipBounds.x, clipBounds.y, clipBounds.x + clipBounds.width, clipBounds.y + clipBounds.height,
+						0, 0, clipBounds.width, clipBounds.height, null);
 			} finally {
 				bufferedGraphics.dispose();
 			}
 		} catch (OutOfMemoryError e) {
 			/* We could not construct the buffer image, so we do an unbuffered repaint */
+			bufferImage = null;
 			super.paint(g2d);
 		}
 	}
+	
+	protected BufferedImage getBufferImage(int width, int height) {
+		if (bufferImage == null || bufferImage.getWidth() < width || bufferImage.getHeight() < height) {
+			final int bufferWidth = Math.max(width, bufferImage == null ? 0 : bufferImage.getWidth());
+			final int bufferHeight = Math.max(height, bufferImage == null ? 0 : bufferImage.getHeight());
+			bufferImage = null;
+			/* the buffer is cleared with the opaque background color, so it need not be translucent */
+			final GraphicsConfiguration graphicsConfiguration = managedComponent.getGraphicsConfiguration();
+			if (graphicsConfiguration != null) {
+				bufferImage = graphicsConfiguration.createCompatibleImage(bufferWidth, bufferHeight);
+			} else {
+				bufferImage = new BufferedImage(bufferWidth, bufferHeight, BufferedImage.TYPE_INT_RGB);
+			}
+		}
+		return bufferImage;
+	}
 }
@@ -41,6 +41,7 @@ import java.awt.event.MouseEvent;
 import java.awt.geom.AffineTransform;
 import java.awt.geom.Rectangle2D;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 import org.apache.log4j.LogManager;
@@ -50,15 +51,18 @@ import de.knewcleus.fgfs.geodata.Feature;
 import de.knewcleus.fgfs.geodata.GeodataException;
 import de.knewcleus.fgfs.geodata.IGeodataLayer;
 import de.knewcleus.fgfs.geodata.geometry.Geometry;
+import de.knewcleus.fgfs.util.IOutputIterator;
+import de.knewcleus.fgfs.util.PackedRTree;
 import de.knewcleus.openradar.gui.GuiMasterController;
 import de.knewcleus.openradar.gui.Palette;
 import de.knewcleus.openradar.notify.INotification;
 import de.knewcleus.openradar.notify.INotificationListener;
 import de.knewcleus.openradar.view.CoordinateSystemNotification;
 import de.knewcleus.openradar.view.IBoundedView;
+import de.knewcleus.openradar.view.ITileRenderable;
 import de.knewcleus.openradar.view.IViewVisitor;
 
-public class GeodataView implements IBoundedView, INotificationListener {
+public class GeodataView implements IBoundedView, ITileRenderable, INotificationListener {
 	protected final IMapViewerAdapter mapViewAdapter;
 	protected final List<Geometry> geometries = new ArrayList<Geometry>();
 	protected final String layerCode;
@@ -70,7 +74,20 @@ public class GeodataView implements IBoundedView, INotificationListener {
 
 	protected Rectangle2D displayExtents = null;
 	protected Rectangle2D logicalBounds = null;
-	protected List<Shape> logicalShapes = null;
+	/**
+	 * The logical shapes and their index, replaced as a whole as they are painted by the tile renderer.
+	 */
+	protected volatile ShapeLevels shapeLevels = ShapeLevels.EMPTY;
+	
+	/**
+	 * The simplification tolerances of the levels of detail in logical units (meters).
+	 * A level is used as soon as its tolerance is below half a device pixel.
+	 */
+	protected final static double[] lodTolerances = {0.0, 10.0, 40.0, 160.0, 640.0};
+	/**
+	 * The projection the logical shapes have been created with.
+	 */
+	protected IProjection shapeProjection = null;
 
 	private final static Logger log = LogManager.getLogger(GeodataView.class);
 	
@@ -78,7 +95,6 @@ public class GeodataView implements IBoundedView, INotificationListener {
 	    this.master=master;
 	    this.mapViewAdapter = mapViewAdapter;
 		this.layerCode = layerCode;
-		mapViewAdapter.registerListener(this);
 		Feature feature;
 		while (geodataLayer.hasNext()) {
 		    try  {
@@ -91,8 +107,22 @@ public class GeodataView implements IBoundedView, INotificationListener {
 		updateLogicalShapes();
 	}
 
-	public synchronized boolean hasContent() {
-	    return logicalShapes.size()>0;
+	/**
+	 * Starts following the projection and the coordinate system of the map. The layer may be read and projected on a
+	 * loader thread, this method is called on the event dispatch thread when the view is published. Changes of the
+	 * map while the layer was loaded are applied here.
+	 */
+	public void install() {
+		mapViewAdapter.registerListener(this);
+		if (mapViewAdapter.getProjection() != shapeProjection) {
+			updateLogicalShapes();
+		} else {
+			updateDisplayExtents();
+		}
+	}
+
+	public boolean hasContent() {
+	    return !shapeLevels.getShapes(0).isEmpty();
 	}
 	
 	public synchronized Color getColor() {
@@ -150,27 +180,67 @@ public class GeodataView implements IBoundedView, INotificationListener {
 
 	@Override
 	public void paint(Graphics2D g2d) {
-		g2d.setColor(color);
+		paint(g2d, mapViewAdapter.getLogicalToDeviceTransform());
+	}
+
+	@Override
+	public void paint(final Graphics2D g2d, AffineTransform logicalToDevice) {
+		g2d.setColor(getColor());
 		final AffineTransform oldTransform = g2d.getTransform();
-		final AffineTransform logicalToDevice = mapViewAdapter.getLogicalToDeviceTransform();
 		g2d.transform(logicalToDevice);
-		final List<Shape> shapes = logicalShapes;
-		if (isFill()) {
+		final double logicalScale = 1.0 / Math.abs(logicalToDevice.getScaleX());
+		final ShapeLevels levels = shapeLevels;
+		final List<Shape> shapes = levels.getShapesForScale(logicalScale);
+		final PackedRTree<Integer> index = levels.index;
+		final Rectangle2D logicalClip = getLogicalClip(g2d, logicalScale);
+		if (index == null || logicalClip == null) {
 			for (Shape shape: shapes) {
-				g2d.fill(shape);
+				paintShape(g2d, shape);
 			}
 		} else {
-			for (Shape shape: shapes) {
-				g2d.draw(shape);
-			}
+			/* only paint the shapes intersecting the clip */
+			index.query(logicalClip, new IOutputIterator<Integer>() {
+				@Override
+				public boolean wantsNext() {
+					return true;
+				}
+
+				@Override
+				public void next(Integer v) {
+					paintShape(g2d, shapes.get(v));
+				}
+			});
 		}
 		g2d.setTransform(oldTransform);
 	}
 
+	protected void paintShape(Graphics2D g2d, Shape shape) {
+		if (isFill()) {
+			g2d.fill(shape);
+		} else {
+			g2d.draw(shape);
+		}
+	}
+
+	/**
+	 * @return the clip of the logical graphics context, widened by two pixels for the stroke, or <code>null</code> if there is no clip.
+	 */
+	protected Rectangle2D getLogicalClip(Graphics2D g2d, double logicalScale) {
+		final Shape clip = g2d.getClip();
+		if (clip == null) {
+			return null;
+		}
+		final Rectangle2D logicalClip = clip.getBounds2D();
+		logicalClip.setRect(logicalClip.getX() - 2 * logicalScale, logicalClip.getY() - 2 * logicalScale,
+				logicalClip.getWidth() + 4 * logicalScale, logicalClip.getHeight() + 4 * logicalScale);
+		return logicalClip;
+	}
+
 	protected void updateLogicalShapes() {
 		final IProjection projection = mapViewAdapter.getProjection();
+		shapeProjection = projection;
 		final GeometryToShapeProjector shapeProjector;
-		shapeProjector = new GeometryToShapeProjector(master.getAirportData(), projection);
+		shapeProjector = new GeometryToShapeProjector(projection, lodTolerances);
 		for (Geometry geometry: geometries) {
 			try {
 				geometry.accept(shapeProjector);
@@ -178,16 +248,27 @@ public class GeodataView implements IBoundedView, INotificationListener {
 			    log.error("Error while adding shapes!",e);
 			}
 		}
-		logicalShapes = shapeProjector.getShapes();
-		updateLogicalBounds();
+		final List<List<Shape>> levels = new ArrayList<List<Shape>>();
+		for (int level = 0; level < shapeProjector.getLevelCount(); level++) {
+			levels.add(shapeProjector.getShapes(level));
+		}
+		updateLogicalBounds(levels);
 	}
 
-	protected void updateLogicalBounds() {
-		logicalBounds = new Rectangle2D.Double();
+	protected void updateLogicalBounds(List<List<Shape>> levels) {
+		final List<Shape> logicalShapes = levels.get(0);
+		final Rectangle2D bounds = new Rectangle2D.Double();
+		final List<Integer> shapeIndices = new ArrayList<Integer>(logicalShapes.size());
+		final List<Rectangle2D> shapeBounds = new ArrayList<Rectangle2D>(logicalShapes.size());
 		for (Shape shape: logicalShapes) {
-			final Rectangle2D bounds = shape.getBounds2D();
-			Rectangle2D.union(logicalBounds, bounds, logicalBounds);
+			final Rectangle2D shapeBound = shape.getBounds2D();
+			Rectangle2D.union(bounds, shapeBound, bounds);
+			shapeIndices.add(shapeIndices.size());
+			shapeBounds.add(shapeBound);
 		}
+		/* simplified shapes only keep vertices of the full shape, so their bounds are covered as well */
+		shapeLevels = new ShapeLevels(levels, new PackedRTree<Integer>(shapeIndices, shapeBounds));
+		logicalBounds = bounds;
 		updateDisplayExtents();
 	}
 
@@ -204,7 +285,7 @@ public class GeodataView implements IBoundedView, INotificationListener {
 	@Override
 	public void validate() {
 		logicalBounds = null;
-		logicalShapes = null;
+		shapeLevels = ShapeLevels.EMPTY;
 		displayExtents = null;
 		repaint();
 	}
@@ -220,4 +301,36 @@ public class GeodataView implements IBoundedView, INotificationListener {
 
     @Override
     public void mouseClicked(MouseEvent p) {  }
+
+	/**
+	 * The shapes simplified for the levels of detail given by {@link #lodTolerances}, level 0 holding the full shapes,
+	 * and the index of the shapes by their logical bounds. The entries of the index are the shape indices, which are
+	 * the same for all levels of detail.
+	 */
+	protected static class ShapeLevels {
+		protected final static ShapeLevels EMPTY = new ShapeLevels(Collections.singletonList(Collections.<Shape>emptyList()), null);
+
+		protected final List<List<Shape>> levels;
+		protected final PackedRTree<Integer> index;
+
+		public ShapeLevels(List<List<Shape>> levels, PackedRTree<Integer> index) {
+			this.levels = Collections.unmodifiableList(levels);
+			this.index = index;
+		}
+
+		public List<Shape> getShapes(int level) {
+			return levels.get(level);
+		}
+
+		/**
+		 * @return the shapes with the coarsest level of detail not visibly differing at the given scale.
+		 */
+		public List<Shape> getShapesForScale(double logicalScale) {
+			int level = 0;
+			while (level + 1 < levels.size() && lodTolerances[level + 1] <= logicalScale / 2.0) {
+				level++;
+			}
+			return levels.get(level);
+		}
+	}
 }
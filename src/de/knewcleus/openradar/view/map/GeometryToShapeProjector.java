@@ -33,10 +33,10 @@
 package de.knewcleus.openradar.view.map;
 
 import java.awt.Shape;
-import java.awt.geom.Area;
 import java.awt.geom.Path2D;
 import java.awt.geom.Point2D;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
 
@@ -52,64 +52,94 @@ import de.knewcleus.fgfs.geodata.geometry.NullShape;
 import de.knewcleus.fgfs.geodata.geometry.Point;
 import de.knewcleus.fgfs.geodata.geometry.Polygon;
 import de.knewcleus.fgfs.geodata.geometry.Ring;
-import de.knewcleus.openradar.gui.setup.AirportData;
 
+/**
+ * Projects geometries into logical shapes.
+ * 
+ * The shapes can be produced at several levels of detail at once: each level is simplified
+ * by the Douglas-Peucker algorithm with its own tolerance (in logical units), while every vertex
+ * is projected only once. Level 0 with tolerance 0 keeps all vertices.
+ * 
+ * Polygons are built as a single path with the even-odd winding rule, so that the inner
+ * rings are rendered as holes without constructing areas.
+ */
 public class GeometryToShapeProjector implements IGeometryVisitor {
 	protected final IProjection projection;
-	protected final AirportData data;
-	public final static String TOGGLE_STATE="projection.nice";
-	protected final List<Shape> shapes=new ArrayList<Shape>();
+	protected final double[] tolerances;
+	protected final List<List<Shape>> levelShapes=new ArrayList<List<Shape>>();
+	
+	/* reused buffers for the projected vertices of a linestring */
+	protected double[] xs=new double[256], ys=new double[256];
+	protected boolean[] keep=new boolean[256];
+	protected int[] segmentStack=new int[512];
 	
-	public GeometryToShapeProjector(AirportData data, IProjection projection) {
+	public GeometryToShapeProjector(IProjection projection) {
+		this(projection, new double[] {0.0});
+	}
+	
+	public GeometryToShapeProjector(IProjection projection, double[] tolerances) {
 		this.projection = projection;
-		this.data = data;
+		this.tolerances = tolerances;
+		for (int i=0;i<tolerances.length;i++) {
+			levelShapes.add(new ArrayList<Shape>());
+		}
 	}
 	
+	/**
+	 * @return the shapes with all vertices.
+	 */
 	public List<Shape> getShapes() {
-		return shapes;
+		return levelShapes.get(0);
+	}
+	
+	public List<Shape> getShapes(int level) {
+		return levelShapes.get(level);
+	}
+	
+	public int getLevelCount() {
+		return tolerances.length;
 	}
 	
 	@Override
 	public void visit(Polygon polygon) throws GeodataException {
 		final GeometryToShapeProjector ringProjector;
-		ringProjector = new GeometryToShapeProjector(data, projection);
+		ringProjector = new GeometryToShapeProjector(projection, tolerances);
 		polygon.traverse(ringProjector);
 		
-		final Iterator<Shape> shapeIterator = ringProjector.getShapes().iterator();
-		
-		if (!shapeIterator.hasNext()) {
-			throw new InvalidGeometryException("Empty polygon encountered");
-		}
-		
-		final Shape outerShape = shapeIterator.next();
-		
-		if(data.getToggleState(TOGGLE_STATE, true)) {
-		    // performance issue: This loop is looping over all existing shapes => gets slower with growing shape count
-    		final Area polygonArea = new Area(outerShape);
-    
+		for (int level=0;level<tolerances.length;level++) {
+    		final Iterator<Shape> shapeIterator = ringProjector.getShapes(level).iterator();
+    		
+    		if (!shapeIterator.hasNext()) {
+    			throw new InvalidGeometryException("Empty polygon encountered");
+    		}
+    		
+    		// the outer ring and the inner rings (holes) form one even-odd path
+    		final Path2D polygonPath = new Path2D.Double(Path2D.WIND_EVEN_ODD);
     		while (shapeIterator.hasNext()) {
-    			final Shape innerShape = shapeIterator.next();
-    			polygonArea.subtract(new Area(innerShape));
+    			polygonPath.append(shapeIterator.next(), false);
     		}
     		
-    		shapes.add(polygonArea);
-		} else {		
-		    // this quick solution does not display islands in a layer
-		    shapes.add(outerShape);
+    		levelShapes.get(level).add(polygonPath);
 		}
 	}
 	
 	@Override
 	public void visit(Ring ring) throws GeodataException {
-		Path2D path = convertLinestring(ring);
-		path.closePath();
-		
-		shapes.add(path);
+		final int count = projectLinestring(ring);
+		for (int level=0;level<tolerances.length;level++) {
+			Path2D path = convertLinestring(count, tolerances[level]);
+			path.closePath();
+			
+			levelShapes.get(level).add(path);
+		}
 	}
 	
 	@Override
 	public void visit(LineString linestring) throws GeodataException {
-		shapes.add(convertLinestring(linestring));
+		final int count = projectLinestring(linestring);
+		for (int level=0;level<tolerances.length;level++) {
+			levelShapes.get(level).add(convertLinestring(count, tolerances[level]));
+		}
 	}
 	
 	@Override
@@ -137,31 +167,118 @@ public class GeometryToShapeProjector implements IGeometryVisitor {
 		/* Nothing to do here */
 	}
 	
-	protected Path2D convertLinestring(LineString linestring) throws GeodataException {
-		Path2D path = new Path2D.Double();
-		
+	/**
+	 * Project the vertices of the linestring into the vertex buffers.
+	 * 
+	 * @return the number of vertices.
+	 */
+	protected int projectLinestring(LineString linestring) throws GeodataException {
 		Iterator<Point> posIterator=linestring.iterator();
 		
 		if (!posIterator.hasNext()) {
 			throw new InvalidGeometryException("Empty linestring encountered");
 		}
 		
-		Point point=posIterator.next();
-		Point2D projectedPoint = project(point);
+		final Point2D projectedPoint = new Point2D.Double();
+		int count=0;
+		while (posIterator.hasNext()) {
+			final Point point=posIterator.next();
+			if (count==xs.length) {
+				xs=Arrays.copyOf(xs, count*2);
+				ys=Arrays.copyOf(ys, count*2);
+			}
+			projectedPoint.setLocation(point.getX(), point.getY());
+			projection.toLogical(projectedPoint, projectedPoint);
+			xs[count]=projectedPoint.getX();
+			ys[count]=projectedPoint.getY();
+			count++;
+		}
+		return count;
+	}
+	
+	/**
+	 * Build a path from the projected vertices, omitting the ones within the given tolerance.
+	 */
+	protected Path2D convertLinestring(int count, double tolerance) {
+		Path2D path = new Path2D.Double(Path2D.WIND_NON_ZERO, count);
+		
+		if (tolerance>0.0 && count>2) {
+			simplify(count, tolerance);
+		}
 		
-		path.moveTo(projectedPoint.getX(), projectedPoint.getY());
+		path.moveTo(xs[0], ys[0]);
 		
-		while (posIterator.hasNext()) {
-			point=posIterator.next();
-			projectedPoint = project(point);
-			path.lineTo(projectedPoint.getX(), projectedPoint.getY());
+		for (int i=1;i<count;i++) {
+			if (tolerance<=0.0 || count<=2 || keep[i]) {
+				path.lineTo(xs[i], ys[i]);
+			}
 		}
 		
 		return path;
 	}
 	
-	protected Point2D project(Point point) {
-		Point2D in = new Point2D.Double(point.getX(), point.getY());
-		return projection.toLogical(in);
+	/**
+	 * Mark the vertices to keep according to the Douglas-Peucker algorithm.
+	 */
+	protected void simplify(int count, double tolerance) {
+		if (keep.length<count) {
+			keep=new boolean[xs.length];
+		}
+		Arrays.fill(keep, 0, count, false);
+		keep[0]=true;
+		keep[count-1]=true;
+		final double squaredTolerance=tolerance*tolerance;
+		
+		int stackSize=0;
+		segmentStack=push(segmentStack, stackSize, 0, count-1);
+		stackSize+=2;
+		while (stackSize>0) {
+			final int last=segmentStack[--stackSize];
+			final int first=segmentStack[--stackSize];
+			
+			double maxDistance=-1.0;
+			int farthest=-1;
+			for (int i=first+1;i<last;i++) {
+				final double distance=getSquaredSegmentDistance(i, first, last);
+				if (distance>maxDistance) {
+					maxDistance=distance;
+					farthest=i;
+				}
+			}
+			
+			if (farthest>=0 && maxDistance>squaredTolerance) {
+				keep[farthest]=true;
+				segmentStack=push(segmentStack, stackSize, first, farthest);
+				stackSize+=2;
+				segmentStack=push(segmentStack, stackSize, farthest, last);
+				stackSize+=2;
+			}
+		}
+	}
+	
+	protected static int[] push(int[] stack, int size, int first, int last) {
+		if (size+2>stack.length) {
+			stack=Arrays.copyOf(stack, stack.length*2);
+		}
+		stack[size]=first;
+		stack[size+1]=last;
+		return stack;
+	}
+	
+	/**
+	 * @return the squared distance of the vertex from the segment between the first and the last vertex.
+	 */
+	protected double getSquaredSegmentDistance(int vertex, int first, int last) {
+		final double dx=xs[last]-xs[first];
+		final double dy=ys[last]-ys[first];
+		double px=xs[vertex]-xs[first];
+		double py=ys[vertex]-ys[first];
+		final double squaredLength=dx*dx+dy*dy;
+		if (squaredLength>0.0) {
+			final double t=Math.max(0.0, Math.min(1.0, (px*dx+py*dy)/squaredLength));
+			px-=t*dx;
+			py-=t*dy;
+		}
+		return px*px+py*py;
 	}
 }
@@ -46,5 +46,12 @@ import java.awt.geom.Point2D;
  */
 public interface IProjection {
 	public Point2D toLogical(Point2D geographical);
+	/**
+	 * Transform the geographical point into the given logical point, avoiding an allocation.
+	 * 
+	 * @param logical	the point receiving the result, a new point is allocated if <code>null</code>.
+	 * @return the logical point.
+	 */
+	public Point2D toLogical(Point2D geographical, Point2D logical);
 	public Point2D toGeographical(Point2D logical);
 }
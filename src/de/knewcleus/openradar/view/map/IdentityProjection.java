@@ -47,4 +47,13 @@ public class IdentityProjection implements IProjection {
 		return geographical;
 	}
 
+	@Override
+	public Point2D toLogical(Point2D geographical, Point2D logical) {
+		if (logical == null) {
+			return geographical;
+		}
+		logical.setLocation(geographical);
+		return logical;
+	}
+
 }
@@ -65,4 +65,13 @@ public class LocalSphericalProjection implements IProjection {
 		return new Point2D.Double(x, y);
 	}
 
+	@Override
+	public Point2D toLogical(Point2D geographical, Point2D logical) {
+		if (logical == null) {
+			return toLogical(geographical);
+		}
+		logical.setLocation((geographical.getX() - center.getX()) * lonwidth, (geographical.getY() - center.getY()) * latwidth);
+		return logical;
+	}
+
 }
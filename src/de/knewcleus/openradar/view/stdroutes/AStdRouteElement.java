@@ -34,7 +34,9 @@ package de.knewcleus.openradar.view.stdroutes;
 
 import java.awt.Graphics2D;
 import java.awt.Point;
+import java.awt.Shape;
 import java.awt.event.MouseEvent;
+import java.awt.geom.AffineTransform;
 import java.awt.geom.Line2D;
 import java.awt.geom.Path2D;
 import java.awt.geom.Point2D;
@@ -52,6 +54,15 @@ public abstract class AStdRouteElement {
     protected final String arrows;
     protected final int arrowSize;
     protected final StdRouteAttributes attributes;
+
+    // space for line width and arrows around the painted extents
+    private final static double STROKE_MARGIN = 4d;
+
+    /* device geometry of the last paint, valid as long as the logical to device transform is only translated */
+    private StdRouteGeometry geometry = null;
+    private StdRouteGeometry recording = null;
+    private AffineTransform geometryTransform = null;
+    private Rectangle2D displayBounds = null;
     
     public AStdRouteElement(AirportData data, IMapViewerAdapter mapViewAdapter, Point2D geoReferencePoint, String arrows, StdRouteAttributes attributes) {
         this.mapViewerAdapter = mapViewAdapter;
@@ -81,11 +92,90 @@ public abstract class AStdRouteElement {
 
     public abstract Rectangle2D paint(Graphics2D g2d, IMapViewerAdapter mapViewAdapter);
 
+    /**
+     * Paints the element. The geometry is calculated only if the map has been zoomed or the element has not been
+     * painted before, a panned map paints the recorded geometry of the last paint at its new position.
+     */
     public Rectangle2D doPaint(Graphics2D g2d, IMapViewerAdapter mapViewAdapter, Boolean selected) {
         attributes.applyAttributes(g2d, selected);
-        Rectangle2D extent = paint(g2d, mapViewAdapter);
+        AffineTransform logicalToDevice = mapViewAdapter.getLogicalToDeviceTransform();
+        if(geometry!=null && isTranslation(geometryTransform, logicalToDevice)) {
+            geometry.paint(g2d, logicalToDevice.getTranslateX()-geometryTransform.getTranslateX(),
+                                logicalToDevice.getTranslateY()-geometryTransform.getTranslateY());
+        } else {
+            recording = new StdRouteGeometry(g2d);
+            Rectangle2D extent = paint(g2d, mapViewAdapter);
+            geometry = isGeoReferenced() ? recording : null;
+            geometryTransform = new AffineTransform(logicalToDevice);
+            recording = null;
+            if(extent!=null) {
+                double margin = (arrows!=null ? arrowSize : 0) + STROKE_MARGIN;
+                displayBounds = new Rectangle2D.Double(extent.getX()-margin, extent.getY()-margin, extent.getWidth()+2*margin, extent.getHeight()+2*margin);
+            } else {
+                displayBounds = null;
+            }
+        }
         attributes.restoreAttributes(g2d);
-        return extent;
+        return getDisplayBounds();
+    }
+
+    /**
+     * Returns the device area covered by the element or null if it has not been painted since the last zoom or change
+     * of the projection.
+     */
+    public Rectangle2D getDisplayBounds() {
+        if(displayBounds==null || !isGeoReferenced()) {
+            return displayBounds;
+        }
+        AffineTransform logicalToDevice = mapViewerAdapter.getLogicalToDeviceTransform();
+        if(!isTranslation(geometryTransform, logicalToDevice)) {
+            return null;
+        }
+        return new Rectangle2D.Double(displayBounds.getX()+logicalToDevice.getTranslateX()-geometryTransform.getTranslateX(),
+                                      displayBounds.getY()+logicalToDevice.getTranslateY()-geometryTransform.getTranslateY(),
+                                      displayBounds.getWidth(), displayBounds.getHeight());
+    }
+
+    /**
+     * Called when the projection has changed.
+     */
+    public void invalidateDisplayGeometry() {
+        geometry = null;
+        displayBounds = null;
+    }
+
+    /**
+     * Called when the coordinate system has changed.
+     */
+    public void coordinateSystemChanged() {
+        if(!isGeoReferenced()) {
+            displayBounds = null;
+        }
+    }
+
+    /**
+     * Elements placed on the screen instead of the map return false, so they are not moved with the map.
+     */
+    protected boolean isGeoReferenced() {
+        return true;
+    }
+
+    private static boolean isTranslation(AffineTransform t1, AffineTransform t2) {
+        return t1!=null && t1.getScaleX()==t2.getScaleX() && t1.getScaleY()==t2.getScaleY()
+                && t1.getShearX()==t2.getShearX() && t1.getShearY()==t2.getShearY();
+    }
+
+    /**
+     * Moves a device point into the device space of the last geometry calculation, where the bounds kept by the
+     * elements for clicks are located.
+     */
+    protected Point2D toGeometryPoint(Point p) {
+        AffineTransform logicalToDevice = mapViewerAdapter.getLogicalToDeviceTransform();
+        if(!isGeoReferenced() || !isTranslation(geometryTransform, logicalToDevice)) {
+            return p;
+        }
+        return new Point2D.Double(p.getX()-logicalToDevice.getTranslateX()+geometryTransform.getTranslateX(),
+                                  p.getY()-logicalToDevice.getTranslateY()+geometryTransform.getTranslateY());
     }
 
     public Point2D getDisplayPoint(Point2D geoPoint) {
@@ -93,6 +183,51 @@ public abstract class AStdRouteElement {
         return mapViewerAdapter.getLogicalToDeviceTransform().transform(logicalPoint, null);
     }
 
+    /*
+     * The painting methods used by the elements, they record the geometry for later paints
+     */
+
+    protected void draw(Graphics2D g2d, Shape shape) {
+        if(recording!=null) {
+            recording.draw(g2d, shape);
+        } else {
+            g2d.draw(shape);
+        }
+    }
+
+    protected void drawLine(Graphics2D g2d, int x1, int y1, int x2, int y2) {
+        if(recording!=null) {
+            recording.drawLine(g2d, x1, y1, x2, y2);
+        } else {
+            g2d.drawLine(x1, y1, x2, y2);
+        }
+    }
+
+    protected void fill(Graphics2D g2d, Shape shape) {
+        if(recording!=null) {
+            recording.fill(g2d, shape);
+        } else {
+            g2d.fill(shape);
+        }
+    }
+
+    protected void drawString(Graphics2D g2d, String text, float x, float y) {
+        if(recording!=null) {
+            recording.drawString(g2d, text, x, y);
+        } else {
+            g2d.drawString(text, x, y);
+        }
+    }
+
+    /**
+     * Adds the bounds of a text drawn at the given base line position to the extents.
+     */
+    protected static void addTextBounds(Rectangle2D extents, Graphics2D g2d, String text, double x, double y) {
+        Rectangle2D textBounds = g2d.getFontMetrics().getStringBounds(text, g2d);
+        textBounds.setRect(x+textBounds.getX(), y+textBounds.getY(), textBounds.getWidth(), textBounds.getHeight());
+        Rectangle2D.union(extents, textBounds, extents);
+    }
+
     public abstract Point2D getEndPoint();
 
     protected void paintArrow(Graphics2D g2d, Point2D tipPoint, double heading, int size, boolean tip) {
@@ -114,7 +249,7 @@ public abstract class AStdRouteElement {
         path.append(new Line2D.Double(point1, point2),true);
         path.closePath();
 
-        g2d.fill(path);
+        fill(g2d, path);
 
     }
 
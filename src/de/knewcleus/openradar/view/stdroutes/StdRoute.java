@@ -67,6 +67,16 @@ public class StdRoute {
     private final float zoomMax;
 
     private Boolean visibleRoute = false;
+
+    /* inputs and result of the last visibility check */
+    private final Object visibilityLock = new Object();
+    private GuiRadarContact lastSelectedContact = null;
+    private String lastAssignedRunway = null;
+    private String lastAssignedRoute = null;
+    private double lastScale = Double.NaN;
+    private boolean lastMainswitch = false;
+    private boolean lastActiveRunways = false;
+    private Boolean lastVisibility = null;
     
     private HashSet<String> activeLandingRunways = new HashSet<>();
     private HashSet<String> activeStartingRunways = new HashSet<>();
@@ -193,6 +203,27 @@ public class StdRoute {
 //        }
 
 
+        if( displayMode.equals(DisplayMode.always) ) {
+        	return true;
+         }
+
+        // the inputs are read once and handed through the parent routes
+        String assignedRunway = null;
+        String assignedRoute = null;
+        if(selectedContact!=null) {
+        	synchronized(selectedContact) {
+        		assignedRunway = selectedContact.getFlightPlan().getAssignedRunway();
+	            assignedRoute = selectedContact.getFlightPlan().getAssignedRoute();
+        	}
+        }
+        double currentScale = mapViewerAdapter.getLogicalScale();
+        boolean mainswitch = data.getRadarObjectFilterState("STARSID");
+
+        return isVisible(selectedContact, assignedRunway, assignedRoute, currentScale, mainswitch);
+    }
+
+    private boolean isVisible(GuiRadarContact selectedContact, String assignedRunway, String assignedRoute, double currentScale, boolean mainswitch) {
+
         if( displayMode.equals(DisplayMode.always) ) {
         	return true;
          }
@@ -201,7 +232,7 @@ public class StdRoute {
         
     	// PARENT ROUTE => dynamic
         if(thisRouteIsIncluded) {
-        	if( isParentRouteVisible(master,selectedContact) ) {
+        	if( isParentRouteVisible(selectedContact, assignedRunway, assignedRoute, currentScale, mainswitch) ) {
             // this means, this route is included into another route which is visible.
         		return true;
         	} else {
@@ -210,29 +241,50 @@ public class StdRoute {
         }
         
         // only non included routes are left
-        
+
+        boolean activeRunways;
+    	synchronized (visibleRoute) {
+    		activeRunways = visibleRoute;
+    	}
+
+        synchronized(visibilityLock) {
+        	// the result stays valid until the selection, its route, the zoom, the main switch or the runways change
+        	if(lastVisibility!=null && lastSelectedContact==selectedContact && lastScale==currentScale
+        	   && lastMainswitch==mainswitch && lastActiveRunways==activeRunways
+        	   && equals(lastAssignedRunway, assignedRunway) && equals(lastAssignedRoute, assignedRoute)) {
+        		return lastVisibility;
+        	}
+        }
+
+        boolean visible = isVisible(assignedRunway, assignedRoute, currentScale, mainswitch, activeRunways);
+
+        synchronized(visibilityLock) {
+        	lastSelectedContact = selectedContact;
+        	lastAssignedRunway = assignedRunway;
+        	lastAssignedRoute = assignedRoute;
+        	lastScale = currentScale;
+        	lastMainswitch = mainswitch;
+        	lastActiveRunways = activeRunways;
+        	lastVisibility = visible;
+        }
+        return visible;
+    }
+
+    private boolean isVisible(String assignedRunway, String assignedRoute, double currentScale, boolean mainswitch, boolean activeRunways) {
+
         // SCALE interval => dynamic
-        double currentScale = mapViewerAdapter.getLogicalScale(); 
         if (currentScale < zoomMin || currentScale > zoomMax) {
             return false;
         }
 
         // SELECTED CONTACT => dynamic
-        if(selectedContact!=null) {
-        	synchronized(selectedContact) {
-        		String assignedRunway = selectedContact.getFlightPlan().getAssignedRunway();
-	            String assignedRoute = selectedContact.getFlightPlan().getAssignedRoute();
-	            if(assignedRoute!=null) {
-	                if( (activeLandingRunways.contains(assignedRunway)||activeStartingRunways.contains(assignedRoute)) 
-	                	&& getName().equals(assignedRoute)) {
-	                    return true;
-	                }
-	            }
-        	}
+        if(assignedRoute!=null) {
+            if( (activeLandingRunways.contains(assignedRunway)||activeStartingRunways.contains(assignedRoute)) 
+            	&& getName().equals(assignedRoute)) {
+                return true;
+            }
         }
         
-        boolean mainswitch = data.getRadarObjectFilterState("STARSID");
-        
         // MAIN SWITCH
         if(mainswitch==false) {
             return false;
@@ -246,16 +298,18 @@ public class StdRoute {
         }
 
         // ACTIVE RUNWAY
-    	synchronized (visibleRoute) {
-    		if(!visibleRoute) {
-    			return false;
-    		}
-    	}
+		if(!activeRunways) {
+			return false;
+		}
 
         // no runways defined + main switch is on
         return true;
     }
 
+    private static boolean equals(String s1, String s2) {
+        return s1 == null ? s2 == null : s1.equals(s2);
+    }
+
     public void refeshRouteVisibility() {
     	synchronized (visibleRoute) {
     		visibleRoute=false;
@@ -271,9 +325,9 @@ public class StdRoute {
     	}
     }
     
-    private boolean isParentRouteVisible(GuiMasterController master,GuiRadarContact selectedContact) {
+    private boolean isParentRouteVisible(GuiRadarContact selectedContact, String assignedRunway, String assignedRoute, double currentScale, boolean mainswitch) {
         for (StdRoute parentRoute : parentRoutes) {
-            if (parentRoute.isVisible(master,selectedContact)) {
+            if (parentRoute.isVisible(selectedContact, assignedRunway, assignedRoute, currentScale, mainswitch)) {
                 return true;
             }
         }
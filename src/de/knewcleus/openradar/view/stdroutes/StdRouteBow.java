@@ -73,6 +73,7 @@ public class StdRouteBow extends AStdRouteElement {
         endPoint = mapViewAdapter.getProjection().toGeographical(mapViewAdapter.getDeviceToLogicalTransform().transform(Converter2D.getMapDisplayPoint(center, startAngle+extentAngle, radiusDots),null));
 
         Path2D path = new Path2D.Double();
+        Point2D textBase = null;
         if(text==null) {
             path.append(new Arc2D.Double(center.getX()-radiusDots, center.getY()-radiusDots,radiusDots*2,radiusDots*2,startAngle,extentAngle,Arc2D.OPEN), false);
         } else {
@@ -86,14 +87,15 @@ public class StdRouteBow extends AStdRouteElement {
                 path.append(new Arc2D.Double(center.getX()-radiusDots, center.getY()-radiusDots,radiusDots*2,radiusDots*2,startAngle,extent,Arc2D.OPEN), false);
                 path.append(new Arc2D.Double(center.getX()-radiusDots, center.getY()-radiusDots,radiusDots*2,radiusDots*2,startAngle+extentAngle,-1*extent,Arc2D.OPEN), false);
                 Point2D textPos = Converter2D.getMapDisplayPoint(center, 90 - (startAngle + extentAngle/2), radiusDots);
-                g2d.drawString(text, (int)(textPos.getX()-bounds.getWidth()/2), (int)(textPos.getY()+bounds.getHeight()/2-2));
+                textBase = new Point2D.Double((int)(textPos.getX()-bounds.getWidth()/2), (int)(textPos.getY()+bounds.getHeight()/2-2));
+                drawString(g2d, text, (int)textBase.getX(), (int)textBase.getY());
             } else {
                 // skipt text, no space
                 path.append(new Arc2D.Double(center.getX()-radiusDots, center.getY()-radiusDots,radiusDots*2,radiusDots*2,startAngle,extentAngle,Arc2D.OPEN), false);
             }
         }
 
-        g2d.draw(path);
+        draw(g2d, path);
 
         if("both".equalsIgnoreCase(arrows) || "start".equalsIgnoreCase(arrows)) {
             double heading = 90 - startAngle + 90 * Math.signum(extentAngle);
@@ -104,7 +106,11 @@ public class StdRouteBow extends AStdRouteElement {
             this.paintArrow(g2d, Converter2D.getMapDisplayPoint(center, 90-startAngle-extentAngle, Converter2D.getFeetToDots(radius*Units.NM/Units.FT,mapViewAdapter)), heading, arrowSize, true);
         }
 
-        return path.getBounds2D();
+        Rectangle2D extents = path.getBounds2D();
+        if(textBase!=null) {
+            addTextBounds(extents, g2d, text, textBase.getX(), textBase.getY());
+        }
+        return extents;
     }
 
     @Override
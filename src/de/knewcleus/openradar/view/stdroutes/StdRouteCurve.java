@@ -66,7 +66,7 @@ public class StdRouteCurve extends AStdRouteElement {
         Path2D path = new Path2D.Double();
         path.append(new QuadCurve2D.Double(bowStartPoint.getX(),bowStartPoint.getY(),bowControlPoint.getX(),bowControlPoint.getY(),bowEndPoint.getX(),bowEndPoint.getY()),false);
 
-        g2d.draw(path);
+        draw(g2d, path);
 
         if("both".equalsIgnoreCase(arrows) || "start".equalsIgnoreCase(arrows)) {
             double heading = Converter2D.getDirection(bowControlPoint,bowStartPoint);
@@ -0,0 +1,167 @@
+/**
+ * Copyright (C) 2016 OpenRadar contributors
+ *
+ * This file is part of OpenRadar.
+ *
+ * OpenRadar is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * OpenRadar is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * OpenRadar. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Diese Datei ist Teil von OpenRadar.
+ *
+ * OpenRadar ist Freie Software: Sie können es unter den Bedingungen der GNU
+ * General Public License, wie von der Free Software Foundation, Version 3 der
+ * Lizenz oder (nach Ihrer Option) jeder späteren veröffentlichten Version,
+ * weiterverbreiten und/oder modifizieren.
+ *
+ * OpenRadar wird in der Hoffnung, dass es nützlich sein wird, aber OHNE JEDE
+ * GEWÄHRLEISTUNG, bereitgestellt; sogar ohne die implizite Gewährleistung der
+ * MARKTFÄHIGKEIT oder EIGNUNG FÜR EINEN BESTIMMTEN ZWECK. Siehe die GNU General
+ * Public License für weitere Details.
+ *
+ * Sie sollten eine Kopie der GNU General Public License zusammen mit diesem
+ * Programm erhalten haben. Wenn nicht, siehe <http://www.gnu.org/licenses/>.
+ */
+package de.knewcleus.openradar.view.stdroutes;
+
+import java.awt.Font;
+import java.awt.Graphics2D;
+import java.awt.Shape;
+import java.awt.Stroke;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Line2D;
+import java.awt.geom.NoninvertibleTransformException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The device geometry of a route element, recorded while the element paints itself.
+ *
+ * As long as the map is only panned, the recorded shapes and texts are painted again with a translation instead of
+ * projecting the points and running the trigonometry of the element again. The color is not recorded, it comes from
+ * the route attributes at every paint.
+ */
+final class StdRouteGeometry {
+
+    private final static int DRAW = 0;
+    private final static int FILL = 1;
+    private final static int TEXT = 2;
+
+    private final AffineTransform baseTransform;
+    private final AffineTransform baseInverse;
+    private final List<Operation> operations = new ArrayList<Operation>();
+
+    StdRouteGeometry(Graphics2D g2d) {
+        baseTransform = g2d.getTransform();
+        AffineTransform inverse;
+        try {
+            inverse = baseTransform.createInverse();
+        } catch (NoninvertibleTransformException e) {
+            inverse = null;
+        }
+        baseInverse = inverse;
+    }
+
+    void draw(Graphics2D g2d, Shape shape) {
+        g2d.draw(shape);
+        record(g2d, DRAW, shape, null, 0f, 0f);
+    }
+
+    void drawLine(Graphics2D g2d, int x1, int y1, int x2, int y2) {
+        g2d.drawLine(x1, y1, x2, y2);
+        record(g2d, DRAW, new Line2D.Float(x1, y1, x2, y2), null, 0f, 0f);
+    }
+
+    void fill(Graphics2D g2d, Shape shape) {
+        g2d.fill(shape);
+        record(g2d, FILL, shape, null, 0f, 0f);
+    }
+
+    void drawString(Graphics2D g2d, String text, float x, float y) {
+        g2d.drawString(text, x, y);
+        record(g2d, TEXT, null, text, x, y);
+    }
+
+    private void record(Graphics2D g2d, int type, Shape shape, String text, float x, float y) {
+        AffineTransform transform = g2d.getTransform();
+        if(transform.equals(baseTransform)) {
+            transform = null;
+        } else if(baseInverse!=null) {
+            transform.preConcatenate(baseInverse);
+        }
+        operations.add(new Operation(type, shape, text, x, y, transform, g2d.getStroke(), g2d.getFont()));
+    }
+
+    /**
+     * Paints the recorded geometry moved by the given device offset.
+     */
+    void paint(Graphics2D g2d, double dx, double dy) {
+        AffineTransform oldTransform = g2d.getTransform();
+        Stroke oldStroke = g2d.getStroke();
+        Font oldFont = g2d.getFont();
+
+        AffineTransform translated = new AffineTransform(oldTransform);
+        translated.translate(dx, dy);
+        g2d.setTransform(translated);
+        AffineTransform current = null;
+        for(Operation op : operations) {
+            if(op.transform!=current) {
+                g2d.setTransform(translated);
+                if(op.transform!=null) {
+                    g2d.transform(op.transform);
+                }
+                current = op.transform;
+            }
+            if(g2d.getStroke()!=op.stroke) {
+                g2d.setStroke(op.stroke);
+            }
+            switch(op.type) {
+            case DRAW:
+                g2d.draw(op.shape);
+                break;
+            case FILL:
+                g2d.fill(op.shape);
+                break;
+            default:
+                if(g2d.getFont()!=op.font) {
+                    g2d.setFont(op.font);
+                }
+                g2d.drawString(op.text, op.x, op.y);
+            }
+        }
+
+        g2d.setTransform(oldTransform);
+        g2d.setStroke(oldStroke);
+        g2d.setFont(oldFont);
+    }
+
+    private static class Operation {
+        private final int type;
+        private final Shape shape;
+        private final String text;
+        private final float x;
+        private final float y;
+        private final AffineTransform transform;
+        private final Stroke stroke;
+        private final Font font;
+
+        private Operation(int type, Shape shape, String text, float x, float y, AffineTransform transform, Stroke stroke, Font font) {
+            this.type = type;
+            this.shape = shape;
+            this.text = text;
+            this.x = x;
+            this.y = y;
+            this.transform = transform;
+            this.stroke = stroke;
+            this.font = font;
+        }
+    }
+}
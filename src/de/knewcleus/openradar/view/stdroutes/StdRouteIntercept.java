@@ -245,6 +245,7 @@ public class StdRouteIntercept extends AStdRouteElement {
         // and the point at the end of the bow, the start point of the line to the radial
 
         Path2D path = new Path2D.Double();
+        Point2D textBase = null;
 
 //path.append(new Line2D.Double(bowStartPoint, bowCenter),false);
 //path.append(new Line2D.Double(endPoint, radialNormal.getPoint()),false);
@@ -290,14 +291,15 @@ public class StdRouteIntercept extends AStdRouteElement {
 
                // System.out.println(String.format("%3.0f %4.1f %s",direction,gap,text));
                 Point2D middlePoint = Converter2D.getMapDisplayPoint(bowEndPoint, lineDir, length*0.5);
-                g2d.drawString(text, (int)(middlePoint.getX()-bounds.getWidth()/2), (int)(middlePoint.getY()+bounds.getHeight()/2-2));
+                textBase = new Point2D.Double((int)(middlePoint.getX()-bounds.getWidth()/2), (int)(middlePoint.getY()+bounds.getHeight()/2-2));
+                drawString(g2d, text, (int)textBase.getX(), (int)textBase.getY());
 
             } else {
                 // skip text, paint line only
                 path.append(new Line2D.Double(bowEndPoint, secondLineEndPoint),false);
             }
         }
-        g2d.draw(path);
+        draw(g2d, path);
 
         if("both".equalsIgnoreCase(arrows) || "start".equalsIgnoreCase(arrows)) {
             if (firstLineStartPoint!=null) {
@@ -310,7 +312,11 @@ public class StdRouteIntercept extends AStdRouteElement {
             this.paintArrow(g2d, secondLineEndPoint,  90-radial+180, arrowSize, true);
         }
         
-        return path.getBounds2D();
+        Rectangle2D extents = path.getBounds2D();
+        if(textBase!=null) {
+            addTextBounds(extents, g2d, text, textBase.getX(), textBase.getY());
+        }
+        return extents;
     }
 
     @Override
@@ -114,6 +114,7 @@ public class StdRouteLine extends AStdRouteElement {
         }
 
         Path2D path = new Path2D.Double();
+        Point2D textBase = null;
         if(text==null) {
             path.append(new Line2D.Double(startPoint, endPoint),false);
         } else {
@@ -141,14 +142,15 @@ public class StdRouteLine extends AStdRouteElement {
 
                // System.out.println(String.format("%3.0f %4.1f %s",direction,gap,text));
                 Point2D middlePoint = Converter2D.getMapDisplayPoint(startPoint, angle, length*0.5);
-                g2d.drawString(text, (int)(middlePoint.getX()-bounds.getWidth()/2), (int)(middlePoint.getY()+bounds.getHeight()/2-2));
+                textBase = new Point2D.Double((int)(middlePoint.getX()-bounds.getWidth()/2), (int)(middlePoint.getY()+bounds.getHeight()/2-2));
+                drawString(g2d, text, (int)textBase.getX(), (int)textBase.getY());
 
             } else {
                 // skip text, paint line only
                 path.append(new Line2D.Double(startPoint, endPoint),false);
             }
         }
-        g2d.draw(path);
+        draw(g2d, path);
 
 
         if("both".equalsIgnoreCase(arrows) || "start".equalsIgnoreCase(arrows)) {
@@ -160,7 +162,11 @@ public class StdRouteLine extends AStdRouteElement {
             this.paintArrow(g2d, endPoint, heading, arrowSize, true);
         }
 
-        return path.getBounds2D();
+        Rectangle2D extents = path.getBounds2D();
+        if(textBase!=null) {
+            addTextBounds(extents, g2d, text, textBase.getX(), textBase.getY());
+        }
+        return extents;
     }
 
     @Override
@@ -107,10 +107,13 @@ public class StdRouteLoop extends AStdRouteElement {
         path.append(new Line2D.Double(line1MiddlePoint2,line1EndPoint),false);
         path.closePath();
 
-        g2d.drawString(sInboundHeading, (int)(line1TextPoint.getX()-bounds.getWidth()/2), (int)(line1TextPoint.getY()+(bounds.getHeight()/2-2)));
-        g2d.drawString(sOtherHeading, (int)(line2TextPoint.getX()-bounds.getWidth()/2), (int)(line2TextPoint.getY()+(bounds.getHeight()/2-2)));
+        drawString(g2d, sInboundHeading, (int)(line1TextPoint.getX()-bounds.getWidth()/2), (int)(line1TextPoint.getY()+(bounds.getHeight()/2-2)));
+        drawString(g2d, sOtherHeading, (int)(line2TextPoint.getX()-bounds.getWidth()/2), (int)(line2TextPoint.getY()+(bounds.getHeight()/2-2)));
+        Rectangle2D extents = path.getBounds2D();
+        addTextBounds(extents, g2d, sInboundHeading, (int)(line1TextPoint.getX()-bounds.getWidth()/2), (int)(line1TextPoint.getY()+(bounds.getHeight()/2-2)));
+        addTextBounds(extents, g2d, sOtherHeading, (int)(line2TextPoint.getX()-bounds.getWidth()/2), (int)(line2TextPoint.getY()+(bounds.getHeight()/2-2)));
 
-        g2d.draw(path);
+        draw(g2d, path);
 
         if(minHeight!=null) {
             int line = 0;
@@ -128,19 +131,19 @@ public class StdRouteLoop extends AStdRouteElement {
 
             if(misapHeight!=null) {
                 bounds = g2d.getFontMetrics().getStringBounds(misapHeight, g2d);
-                g2d.drawString(misapHeight, (int)(textBase.getX()-bounds.getWidth()/2), (int)(textBase.getY()-line*(bounds.getHeight())));
+                drawString(g2d, misapHeight, (int)(textBase.getX()-bounds.getWidth()/2), (int)(textBase.getY()-line*(bounds.getHeight())));
                 line++;
             }
 
             if(maxHeight!=null) {
                 bounds = g2d.getFontMetrics().getStringBounds(maxHeight, g2d);
-                g2d.drawString(maxHeight, (int)(textBase.getX()-bounds.getWidth()/2), (int)(textBase.getY()-line*(bounds.getHeight())));
+                drawString(g2d, maxHeight, (int)(textBase.getX()-bounds.getWidth()/2), (int)(textBase.getY()-line*(bounds.getHeight())));
                 line++;
             }
             if(minHeight!=null) {
                 g2d.setFont(g2d.getFont().deriveFont(Font.BOLD));
                 bounds = g2d.getFontMetrics().getStringBounds(minHeight, g2d);
-                g2d.drawString(minHeight, (int)(textBase.getX()-bounds.getWidth()/2), (int)(textBase.getY()-line*(bounds.getHeight())));
+                drawString(g2d, minHeight, (int)(textBase.getX()-bounds.getWidth()/2), (int)(textBase.getY()-line*(bounds.getHeight())));
                 g2d.setFont(g2d.getFont().deriveFont(Font.PLAIN));
                 line++;
             }
@@ -151,7 +154,7 @@ public class StdRouteLoop extends AStdRouteElement {
             this.paintArrow(g2d, line2EndPoint, inboundHeading-180, arrowSize, true);
         }
 
-        return path.getBounds2D();
+        return extents;
     }
 
     @Override
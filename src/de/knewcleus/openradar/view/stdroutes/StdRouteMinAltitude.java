@@ -80,13 +80,13 @@ public class StdRouteMinAltitude extends AStdRouteElement {
         Rectangle2D majorBounds = g2d.getFontMetrics().getStringBounds(major, g2d);
         int globalX = (int)(displayPoint.getX()-bounds.getWidth()/2);
 
-        g2d.drawString(major, globalX, (int)(displayPoint.getY()+bounds.getHeight()/2-2));
+        drawString(g2d, major, globalX, (int)(displayPoint.getY()+bounds.getHeight()/2-2));
 
         int fontSize = boldFont.getSize();
         g2d.setFont(boldFont.deriveFont(Math.round(fontSize*0.6f)));
-        g2d.drawString(minor, (int)(globalX+majorBounds.getWidth()+2), (int)(displayPoint.getY()+bounds.getHeight()/2 - fontSize*0.4));
+        drawString(g2d, minor, (int)(globalX+majorBounds.getWidth()+2), (int)(displayPoint.getY()+bounds.getHeight()/2 - fontSize*0.4));
 
-        bounds.setRect(displayPoint.getX(), displayPoint.getY(),bounds.getWidth(),bounds.getHeight());
+        bounds.setRect(globalX, (int)(displayPoint.getY()+bounds.getHeight()/2-2)+bounds.getY(), bounds.getWidth()+2, bounds.getHeight());
         return bounds;
     }
 
@@ -84,7 +84,7 @@ public class StdRouteMultipointLine extends AStdRouteElement {
             path.closePath();
         }
 
-        g2d.draw(path);
+        draw(g2d, path);
 
         return path.getBounds2D();
     }
@@ -268,31 +268,32 @@ public class StdRouteRestriction extends AStdRouteElement {
 				textHeight + (4 * margin) + (4 * linewidth));
 
 		if (slot1Line) // upper line
-			g2d.drawLine(lineStartX, slot1Y, lineEndX, slot1Y);
+			drawLine(g2d, lineStartX, slot1Y, lineEndX, slot1Y);
 
 		// upper text
-		g2d.drawString(slot2Text, (int) (displayPoint.getX() - slot2Bounds.getCenterX()),
+		drawString(g2d, slot2Text, (int) (displayPoint.getX() - slot2Bounds.getCenterX()),
 				midlineY - (fm.getDescent() + margin + (linewidth / 2)));
 
 		if (slot3Line) // middle line
-			g2d.drawLine(lineStartX, midlineY, lineEndX, midlineY);
+			drawLine(g2d, lineStartX, midlineY, lineEndX, midlineY);
 
 		// lower text
-		g2d.drawString(slot4Text, (int) (displayPoint.getX() - slot4Bounds.getCenterX()),
+		drawString(g2d, slot4Text, (int) (displayPoint.getX() - slot4Bounds.getCenterX()),
 				(int) (midlineY + slot4Bounds.getHeight() + margin + (linewidth / 2)));
 
 		if (slot5Line) // lower line
-			g2d.drawLine(lineStartX, slot5Y, lineEndX, slot5Y);
+			drawLine(g2d, lineStartX, slot5Y, lineEndX, slot5Y);
 
 		if (boxSides) { // draw box sides
-			g2d.drawLine(lineStartX, slot1Y, lineStartX, slot5Y);
-			g2d.drawLine(lineEndX, slot1Y, lineEndX, slot5Y);
+			drawLine(g2d, lineStartX, slot1Y, lineStartX, slot5Y);
+			drawLine(g2d, lineEndX, slot1Y, lineEndX, slot5Y);
 		}
 
 		// g2d.setFont(origFont);
 		// g2d.setStroke(origStroke);
 
-		return bounds;
+		// bounds are used for clicks, the painted area is the box between the upper and lower line
+		return new Rectangle2D.Double(lineStartX, slot1Y, lineEndX - lineStartX, slot5Y - slot1Y);
 	}
 
 	@Override
@@ -304,7 +305,7 @@ public class StdRouteRestriction extends AStdRouteElement {
 	public synchronized boolean contains(Point e) {
 		if (bounds == null)
 			return false;
-		return bounds.contains(e);
+		return bounds.contains(toGeometryPoint(e));
 	}
 
 	private int altInFeet(String alt) {
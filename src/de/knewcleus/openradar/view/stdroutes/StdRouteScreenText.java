@@ -75,13 +75,14 @@ public class StdRouteScreenText extends AStdRouteElement {
         g2d.transform(newTransform);
 
         Rectangle2D bounds = g2d.getFontMetrics().getStringBounds(text, g2d);
-        g2d.drawString(text, (int)(displayPoint.getX()-bounds.getWidth()/2), (int)(displayPoint.getY()+bounds.getHeight()/2-2));
+        drawString(g2d, text, (int)(displayPoint.getX()-bounds.getWidth()/2), (int)(displayPoint.getY()+bounds.getHeight()/2-2));
+        Rectangle2D textBounds = new Rectangle2D.Double((int)(displayPoint.getX()-bounds.getWidth()/2)+bounds.getX(), (int)(displayPoint.getY()+bounds.getHeight()/2-2)+bounds.getY(),
+                                                        bounds.getWidth(), bounds.getHeight());
 
         g2d.setTransform(oldTransform);
 
-        bounds.setRect(displayPoint.getX(), displayPoint.getY(),bounds.getWidth(),bounds.getHeight());
         extBounds = new Rectangle2D.Double(displayPoint.getX()-bounds.getWidth(),displayPoint.getY()-bounds.getHeight(),2*bounds.getWidth(),2*bounds.getHeight());
-        return bounds;
+        return newTransform.createTransformedShape(textBounds).getBounds2D();
     }
     /**
      * This method exists to move negative values to the other side of the screen
@@ -118,6 +119,11 @@ public class StdRouteScreenText extends AStdRouteElement {
         return p;
     }
 
+    @Override
+    protected boolean isGeoReferenced() {
+        return false;
+    }
+
     @Override
     public Point2D getEndPoint() {
         return null;
@@ -98,14 +98,16 @@ public class StdRouteText extends AStdRouteElement {
         g2d.transform(newTransform);
 
         bounds = g2d.getFontMetrics().getStringBounds(text, g2d);
-        g2d.drawString(text, (int)(displayPoint.getX()-bounds.getWidth()/2), (int)(displayPoint.getY()-2));
+        drawString(g2d, text, (int)(displayPoint.getX()-bounds.getWidth()/2), (int)(displayPoint.getY()-2));
+        Rectangle2D textBounds = new Rectangle2D.Double((int)(displayPoint.getX()-bounds.getWidth()/2)+bounds.getX(), (int)(displayPoint.getY()-2)+bounds.getY(),
+                                                        bounds.getWidth(), bounds.getHeight());
 
         g2d.setTransform(oldTransform);
 
         bounds.setRect(displayPoint.getX(), displayPoint.getY(),bounds.getWidth(),bounds.getHeight());
         extBounds = new Rectangle2D.Double(displayPoint.getX()-bounds.getWidth(),displayPoint.getY()-bounds.getHeight(),2*bounds.getWidth(),2*bounds.getHeight());
         
-        return bounds;
+        return newTransform.createTransformedShape(textBounds).getBounds2D();
     }
 
     @Override
@@ -117,7 +119,7 @@ public class StdRouteText extends AStdRouteElement {
     public synchronized boolean contains(Point e) {
         // ! route.isVisible(master) || 
         if(!clickable || extBounds==null) return false;
-        return extBounds.contains(e);
+        return extBounds.contains(toGeometryPoint(e));
     }
 
     @Override
@@ -34,6 +34,7 @@ package de.knewcleus.openradar.view.stdroutes;
 
 import java.awt.Graphics2D;
 import java.awt.Point;
+import java.awt.Rectangle;
 import java.awt.RenderingHints;
 import java.awt.event.MouseEvent;
 import java.awt.geom.AffineTransform;
@@ -79,10 +80,14 @@ public class StdRouteView implements IBoundedView, INotificationListener,ISelect
         updateLogicalPosition();
 	}
 
+    /**
+     * Returns the area covered by the route elements. Until all of them have been painted with the current projection
+     * and coordinate system, the whole viewer is returned.
+     */
     @Override
     public synchronized Rectangle2D getDisplayExtents() {
-        if(displayExtents == null || mapViewAdapter.getViewerExtents().getHeight()>0) {
-            displayExtents = mapViewAdapter.getViewerExtents();
+        if(displayExtents == null) {
+            return mapViewAdapter.getViewerExtents();
         }
         return displayExtents;
     }
@@ -102,7 +107,7 @@ public class StdRouteView implements IBoundedView, INotificationListener,ISelect
             return;
         }
         this.visible = visible;
-        mapViewAdapter.getUpdateManager().markRegionDirty(displayExtents);
+        mapViewAdapter.getUpdateManager().markRegionDirty(getDisplayExtents());
     }
 
     @Override
@@ -114,28 +119,51 @@ public class StdRouteView implements IBoundedView, INotificationListener,ISelect
             this.attributes.applyAttributes(g2d, false);
 
             Boolean selected = route.isRouteAssigned(master);
+            Rectangle clip = g2d.getClipBounds();
 
-            displayExtents = null;
             for(AStdRouteElement e : route.getElements()) {
-                if(displayExtents==null) {
-                    displayExtents = e.doPaint(g2d, mapViewAdapter, selected);
-                } else {
-                    Rectangle2D.union(displayExtents, e.doPaint(g2d, mapViewAdapter, selected), displayExtents);
+                Rectangle2D elementBounds = e.getDisplayBounds();
+                if(elementBounds==null || clip==null || elementBounds.intersects(clip)) {
+                    // elements outside of the clip keep their bounds from the last paint
+                    e.doPaint(g2d, mapViewAdapter, selected);
                 }
             }
+            displayExtents = getElementExtents();
             this.attributes.restoreAttributes(g2d);
 
         }
     }
 
+    /**
+     * Returns the union of the element bounds or null if one of the elements does not know its bounds.
+     */
+    private Rectangle2D getElementExtents() {
+        Rectangle2D extents = null;
+        for(AStdRouteElement e : route.getElements()) {
+            Rectangle2D elementBounds = e.getDisplayBounds();
+            if(elementBounds==null) {
+                return null;
+            } else if(extents==null) {
+                extents = new Rectangle2D.Double();
+                extents.setRect(elementBounds);
+            } else {
+                Rectangle2D.union(extents, elementBounds, extents);
+            }
+        }
+        return extents;
+    }
+
     @Override
     public synchronized void validate() {
-        mapViewAdapter.getUpdateManager().markRegionDirty(displayExtents);
+        mapViewAdapter.getUpdateManager().markRegionDirty(getDisplayExtents());
     }
 
     @Override
     public synchronized void acceptNotification(INotification notification) {
         if (notification instanceof ProjectionNotification) {
+            for(AStdRouteElement e : route.getElements()) {
+                e.invalidateDisplayGeometry();
+            }
             updateLogicalPosition();
         }
         if (notification instanceof CoordinateSystemNotification) {
@@ -155,6 +183,11 @@ public class StdRouteView implements IBoundedView, INotificationListener,ISelect
         if(displayExtents!=null) {
             mapViewAdapter.getUpdateManager().markRegionDirty(displayExtents);
         }
+        // panned elements move their bounds along, zoomed ones report theirs with the next paint
+        for(AStdRouteElement e : route.getElements()) {
+            e.coordinateSystemChanged();
+        }
+        displayExtents = getElementExtents();
     }
 
     @Override
@@ -167,7 +167,7 @@ public class StdRouteWay  extends AStdRouteElement {
                     g2d.setStroke(new BasicStroke (1));
                     newTransform.setToRotation(Math.toRadians(angle - 90), c_x, c_y);
                     g2d.transform(newTransform);
-                    g2d.draw(path);
+                    draw(g2d, path);
                     g2d.setStroke(stroke_backup);
 
                     // draw label
@@ -175,7 +175,7 @@ public class StdRouteWay  extends AStdRouteElement {
                         newTransform.setToRotation(Math.toRadians(180), c_x, c_y);
                         g2d.transform(newTransform);
                     }
-                    g2d.drawString(this.label, label_x, label_y);
+                    drawString(g2d, this.label, label_x, label_y);
                 } else {
                     // not enough distance for label
                     box_t = c_y;
@@ -187,10 +187,10 @@ public class StdRouteWay  extends AStdRouteElement {
             // draw simple arrows
             if(al == ar) {
                 if("both".equalsIgnoreCase(arrows) || "start".equalsIgnoreCase(arrows)) {
-                    StdRouteWay.paintSmallArrow(g2d, startPoint, angle, arrowSize, true);
+                    this.paintSmallArrow(g2d, startPoint, angle, arrowSize, true);
                 }
                 if("both".equalsIgnoreCase(arrows) || "end".equalsIgnoreCase(arrows)) {
-                    StdRouteWay.paintSmallArrow(g2d, endPoint, angle, arrowSize, false);
+                    this.paintSmallArrow(g2d, endPoint, angle, arrowSize, false);
                 }
             }
 
@@ -203,7 +203,7 @@ public class StdRouteWay  extends AStdRouteElement {
                 g2d.setTransform(oldTransform);
                 g2d.rotate(Math.toRadians(angle), c_x, c_y);
                 g2d.rotate(headingRadians, c_x, sh_y);
-                g2d.drawString(this.startHeading, sh_x, sh_y);
+                drawString(g2d, this.startHeading, sh_x, sh_y);
 
             }
             if ((eh_w + lh_w < xr - ar) && (eh_w > 0)) {
@@ -213,29 +213,39 @@ public class StdRouteWay  extends AStdRouteElement {
                 g2d.setTransform(oldTransform);
                 g2d.rotate(Math.toRadians(angle), c_x, c_y);
                 g2d.rotate(headingRadians, c_x, eh_y);
-                g2d.drawString(this.endHeading, eh_x, eh_y);
+                drawString(g2d, this.endHeading, eh_x, eh_y);
             }
             path.append(new Line2D.Double(xl, c_y, al, c_y),false);
             path.append(new Line2D.Double(ar, c_y, xr, c_y),false);
             newTransform.setToRotation(Math.toRadians(angle - 90), c_x, c_y);
             g2d.setTransform(newTransform);
-            g2d.draw(path);
+            draw(g2d, path);
             if (angle > 180) {
                 newTransform.setToRotation(Math.toRadians(180), c_x, c_y);
                 g2d.transform(newTransform);
             }
             // draw height
             if((this.height!=null) && (fm.stringWidth(this.height) < distance)) {
-                g2d.drawString(this.height, (int) (c_x - fm.stringWidth(this.height) / 2), box_t - 2 * border_y);
+                drawString(g2d, this.height, (int) (c_x - fm.stringWidth(this.height) / 2), box_t - 2 * border_y);
             }
             // draw distance
             if((this.distance!=null) && (fm.stringWidth(this.distance) < distance)) {
-                g2d.drawString(this.distance, (int) (c_x - fm.stringWidth(this.distance) / 2), box_b + border_y + fm.getAscent());
+                drawString(g2d, this.distance, (int) (c_x - fm.stringWidth(this.distance) / 2), box_b + border_y + fm.getAscent());
             }
             g2d.setTransform(oldTransform);
         }
-        Rectangle2D bounds = new Rectangle2D.Double(startPoint.getX(), startPoint.getY(), endPoint.getX(), endPoint.getY());
-        return bounds.getBounds2D();
+        // the texts are drawn along the line, so they reach at most half of their width and two lines to the side
+        FontMetrics metrics = g2d.getFontMetrics();
+        int textWidth = Math.max(this.label != null ? metrics.stringWidth(this.label) : 0,
+                        Math.max(this.startHeading != null ? metrics.stringWidth(this.startHeading) : 0,
+                        Math.max(this.endHeading != null ? metrics.stringWidth(this.endHeading) : 0,
+                        Math.max(this.height != null ? metrics.stringWidth(this.height) : 0,
+                                 this.distance != null ? metrics.stringWidth(this.distance) : 0))));
+        double margin = textWidth / 2 + 2 * metrics.getHeight();
+        Rectangle2D bounds = new Rectangle2D.Double();
+        bounds.setFrameFromDiagonal(startPoint, endPoint);
+        bounds.setRect(bounds.getX() - margin, bounds.getY() - margin, bounds.getWidth() + 2 * margin, bounds.getHeight() + 2 * margin);
+        return bounds;
     }
 
     @Override
@@ -248,7 +258,7 @@ public class StdRouteWay  extends AStdRouteElement {
         return false;
     }
 
-    protected static void paintSmallArrow(Graphics2D g2d, Point2D tipPoint, double heading, int size, boolean start) {
+    protected void paintSmallArrow(Graphics2D g2d, Point2D tipPoint, double heading, int size, boolean start) {
 
         if(start) {
             heading = heading+180;
@@ -263,7 +273,7 @@ public class StdRouteWay  extends AStdRouteElement {
         path.append(new Line2D.Double(point1, point2),true);
         path.closePath();
 
-        g2d.fill(path);
+        fill(g2d, path);
 
     }
 